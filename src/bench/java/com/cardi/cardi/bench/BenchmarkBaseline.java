@@ -0,0 +1,119 @@
+package com.cardi.cardi.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the engine benchmarks with the GC profiler and holds the results up against the baseline kept in
+ * {@code src/bench/baselines/engine.json}: anything that got more than {@value #TOLERANCE_PERCENT}% slower, or
+ * started allocating more per operation, is called out and the run fails. So does a run with no baseline to
+ * compare against, unless it's there to record one. Re-record the baseline (same machine, quiet box) whenever a
+ * change makes these paths faster or leaner on purpose, and commit it with the change.
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dexec.executable=java \
+ *     -Dbench.args="-cp %classpath com.cardi.cardi.bench.BenchmarkBaseline [--record] [benchmark regex]"
+ * </pre>
+ * Full JMH results land in {@code target/jmh-result.json}.
+ */
+public class BenchmarkBaseline {
+
+    private static final Path BASELINE = Path.of("src/bench/baselines/engine.json");
+    private static final Path RESULTS = Path.of("target/jmh-result.json");
+    private static final String DEFAULT_INCLUDE = "com\\.cardi\\.cardi\\.bench\\.(Bot|CardValidator|GameEngine)Benchmark";
+    private static final int TOLERANCE_PERCENT = 10;
+    private static final double ALLOCATION_SLACK_BYTES = 16; // Allocation per op is measured, so it jitters a little
+
+    public static void main(String[] args) throws Exception {
+        boolean record = false;
+        String include = DEFAULT_INCLUDE;
+        for (String arg : args) {
+            if (arg.equals("--record")) {
+                record = true;
+            } else {
+                include = arg;
+            }
+        }
+        if (!record && !Files.exists(BASELINE)) {
+            // Nothing to compare against is a failed check, not a passed one; and no reason to sit through the run
+            System.err.printf("No baseline at %s; run with --record to make one.%n", BASELINE);
+            System.exit(1);
+        }
+
+        Files.createDirectories(RESULTS.getParent());
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS.toString())
+                .build();
+        Map<String, Measurement> current = new TreeMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            current.put(result.getParams().getBenchmark(), new Measurement(
+                    result.getPrimaryResult().getScore(),
+                    result.getPrimaryResult().getScoreUnit(),
+                    allocation == null ? 0 : allocation.getScore()));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        if (record) {
+            Files.createDirectories(BASELINE.getParent());
+            objectMapper.writeValue(BASELINE.toFile(), current);
+            System.out.printf("Recorded %d benchmarks as the new baseline in %s%n", current.size(), BASELINE);
+            return;
+        }
+        Map<String, Measurement> baseline = objectMapper.readValue(BASELINE.toFile(),
+                objectMapper.getTypeFactory().constructMapType(TreeMap.class, String.class, Measurement.class));
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-70s %14s %14s %12s %12s%n", "benchmark", "baseline", "now", "B/op before", "B/op now");
+        for (Map.Entry<String, Measurement> entry : current.entrySet()) {
+            Measurement now = entry.getValue();
+            Measurement before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %12s %12.1f%n", entry.getKey(), "-", now.score(), "-", now.allocatedBytesPerOp());
+                continue;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %12.1f %12.1f%n", entry.getKey(), before.score(), now.score(),
+                    before.allocatedBytesPerOp(), now.allocatedBytesPerOp());
+            if (now.score() < before.score() * (100 - TOLERANCE_PERCENT) / 100) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s", entry.getKey(), before.score(), now.score(), now.unit()));
+            }
+            if (now.allocatedBytesPerOp() > before.allocatedBytesPerOp() * (100 + TOLERANCE_PERCENT) / 100 + ALLOCATION_SLACK_BYTES) {
+                regressions.add(String.format("%s: %.1f -> %.1f bytes allocated per op", entry.getKey(),
+                        before.allocatedBytesPerOp(), now.allocatedBytesPerOp()));
+            }
+        }
+        report(regressions);
+    }
+
+    private static void report(Collection<String> regressions) {
+        if (regressions.isEmpty()) {
+            System.out.println("No regressions against the baseline.");
+            return;
+        }
+        System.out.println("Regressions against the baseline:");
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+
+    /**
+     * One benchmark's throughput and the garbage each operation leaves behind.
+     */
+    public record Measurement(double score, String unit, double allocatedBytesPerOp) {
+    }
+}
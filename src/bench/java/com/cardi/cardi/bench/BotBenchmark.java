@@ -0,0 +1,79 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.BotBrain;
+import com.cardi.cardi.services.CardValidator;
+import com.cardi.cardi.services.SheddingBotStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long a bot takes to pick its move, across a spread of hands (one card to a fistful), top cards and room
+ * states (penalties, called suits, open questions, turns already taken and both counter house rules). A bot
+ * moves on its room's thread, so this is time nobody else in the room gets; it wants to stay well under a
+ * microsecond and allocate nothing beyond the move it hands back.
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dexec.executable=java \
+ *     -Dbench.args="-cp %classpath org.openjdk.jmh.Main BotBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotBenchmark {
+
+    private static final int CASES = 1024; // A power of two, so picking the next case is a mask
+
+    private final BotBrain brain = new BotBrain(new CardValidator(), new SheddingBotStrategy());
+
+    private GameRoom[] rooms;
+    private Player[] bots;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        rooms = new GameRoom[CASES];
+        bots = new Player[CASES];
+        for (int i = 0; i < CASES; i++) {
+            GameRoom room = new GameRoom("BENCH" + i, i);
+            room.getPlayedPile().push(Card.byOrdinal(random.nextInt(Card.DECK_SIZE)));
+            room.setDrawPenalty(random.nextInt(4) == 0 ? 2 : 0);
+            room.setQuestionActive(random.nextInt(6) == 0);
+            room.setActiveSuit(random.nextInt(5) == 0 ? Suit.STANDARD[random.nextInt(4)] : null);
+            room.setPlayerHasTakenAction(random.nextInt(8) == 0);
+            room.setMatchShapeForCounter(random.nextBoolean());
+            room.setRestrictJKCounters(random.nextBoolean());
+            Player bot = Player.bot("b" + i, "Bot 1");
+            for (int c = 1 + random.nextInt(8); c > 0; c--) {
+                bot.getHand().add(Card.byOrdinal(random.nextInt(Card.DECK_SIZE)));
+            }
+            room.addPlayer(bot);
+            rooms[i] = room;
+            bots[i] = bot;
+        }
+    }
+
+    @Benchmark
+    public BotBrain.Move decide() {
+        int i = next++ & (CASES - 1);
+        return brain.decide(rooms[i], bots[i]);
+    }
+}
@@ -0,0 +1,145 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.CardValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The legality table against the if-chain it replaced, on a spread of top cards, candidates, hands and room
+ * states (penalties, called suits, open questions and both counter house rules).
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dexec.executable=java \
+ *     -Dbench.args="-cp %classpath org.openjdk.jmh.Main CardValidatorBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardValidatorBenchmark {
+
+    private static final int CASES = 1024; // A power of two, so picking the next case is a mask
+
+    private final CardValidator table = new CardValidator();
+    private final IfChainValidator ifChain = new IfChainValidator();
+
+    private Card[] candidates;
+    private Card[] tops;
+    private GameRoom[] rooms;
+    private Hand[] hands;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        candidates = new Card[CASES];
+        tops = new Card[CASES];
+        rooms = new GameRoom[CASES];
+        hands = new Hand[CASES];
+        for (int i = 0; i < CASES; i++) {
+            candidates[i] = Card.byOrdinal(random.nextInt(Card.DECK_SIZE));
+            tops[i] = Card.byOrdinal(random.nextInt(Card.DECK_SIZE));
+            GameRoom room = new GameRoom("BENCH" + i, i);
+            room.setDrawPenalty(random.nextInt(4) == 0 ? 2 : 0);
+            room.setQuestionActive(random.nextInt(6) == 0);
+            room.setActiveSuit(random.nextInt(5) == 0 ? Suit.STANDARD[random.nextInt(4)] : null);
+            room.setMatchShapeForCounter(random.nextBoolean());
+            room.setRestrictJKCounters(random.nextBoolean());
+            rooms[i] = room;
+            Hand hand = new Hand();
+            for (int c = 0; c < 7; c++) {
+                hand.add(Card.byOrdinal(random.nextInt(Card.DECK_SIZE)));
+            }
+            hands[i] = hand;
+        }
+    }
+
+    @Benchmark
+    public boolean isValidPlayIfChain() {
+        int i = next++ & (CASES - 1);
+        return ifChain.isValidPlay(candidates[i], tops[i], rooms[i]);
+    }
+
+    @Benchmark
+    public boolean isValidPlayTable() {
+        int i = next++ & (CASES - 1);
+        return table.isValidPlay(candidates[i], tops[i], rooms[i]);
+    }
+
+    @Benchmark
+    public long playableCardsIfChain() {
+        int i = next++ & (CASES - 1);
+        long playable = 0;
+        for (long held = hands[i].getMask(); held != 0; held &= held - 1) {
+            int ordinal = Long.numberOfTrailingZeros(held);
+            if (ifChain.isValidPlay(Card.byOrdinal(ordinal), tops[i], rooms[i])) {
+                playable |= 1L << ordinal;
+            }
+        }
+        return playable;
+    }
+
+    @Benchmark
+    public long playableCardsTable() {
+        int i = next++ & (CASES - 1);
+        return table.playableCards(hands[i], tops[i], rooms[i]);
+    }
+
+    /**
+     * {@code CardValidator.isValidPlay} as it was before the table, kept here as the baseline.
+     */
+    static final class IfChainValidator {
+
+        private static final Set<Rank> COUNTER_CARDS = EnumSet.of(Rank.TWO, Rank.THREE, Rank.JOKER, Rank.JACK, Rank.KING, Rank.ACE);
+
+        boolean isValidPlay(Card cardToPlay, Card topCard, GameRoom room) {
+            if (cardToPlay == null || topCard == null) {
+                return false;
+            }
+            if (topCard.getRank() == Rank.JOKER) {
+                return true;
+            }
+            if (room.getDrawPenalty() > 0) {
+                if (room.isRestrictJKCounters() && (cardToPlay.getRank() == Rank.JACK || cardToPlay.getRank() == Rank.KING)) {
+                    return false;
+                }
+                if (room.isMatchShapeForCounter() && cardToPlay.getSuit() != topCard.getSuit()) {
+                    if (cardToPlay.getRank() != Rank.ACE) {
+                        return false;
+                    }
+                }
+                return COUNTER_CARDS.contains(cardToPlay.getRank());
+            }
+            if (room.getActiveSuit() != null) {
+                return cardToPlay.getSuit() == room.getActiveSuit() || cardToPlay.getRank() == Rank.ACE;
+            }
+            if (room.isQuestionActive()) {
+                return cardToPlay.getSuit() == topCard.getSuit() || cardToPlay.getRank() == Rank.ACE;
+            }
+            if (cardToPlay.getRank() == Rank.ACE || cardToPlay.getRank() == Rank.JOKER) {
+                return true;
+            }
+            return cardToPlay.getSuit() == topCard.getSuit() || cardToPlay.getRank() == topCard.getRank();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.journal.RoomJournal;
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.CardPile;
+import com.cardi.cardi.model.GameEvent;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.GameState;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.RoomRandom;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.CardValidator;
+import com.cardi.cardi.services.DeckGenerator;
+import com.cardi.cardi.services.GameEventService;
+import com.cardi.cardi.services.GameService;
+import com.cardi.cardi.services.RoomService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * The game engine's hot paths, one room at a time: playing, drawing, reshuffling the played pile back into the
+ * deck, dealing a fresh deck, and turning the room into JSON. Run it with the GC profiler to see what each costs
+ * in allocation as well as time; {@link BenchmarkBaseline} does that and compares against the stored baseline.
+ * <p>
+ * Nothing here talks to a socket or a disk. Announcements go to a stub that remembers nothing, the journal is
+ * switched off, and each benchmark puts the room back the way it found it so every invocation does the same work.
+ * That putting back is measured too, but it's a card or two moved by hand.
+ * <pre>
+ * mvn -Pbench test-compile exec:exec -Dexec.executable=java \
+ *     -Dbench.args="-cp %classpath org.openjdk.jmh.Main GameEngineBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameEngineBenchmark {
+
+    private static final String ROOM_CODE = "BENCH1";
+    private static final Card TOP = Card.of(Suit.HEARTS, Rank.FIVE);
+    private static final Card PLAYED = Card.of(Suit.HEARTS, Rank.SIX);
+    private static final Card HELD = Card.of(Suit.CLUBS, Rank.NINE);
+
+    private final DeckGenerator deckGenerator = new DeckGenerator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GameService gameService;
+    private GameRoom room;
+    private List<Card> play;
+    private Card[] drawn;
+    private List<Card> toReturn;
+    private List<Card> spentPile;
+    private CardPile deck;
+    private RoomRandom random;
+
+    @Setup
+    public void setUp() {
+        room = new GameRoom(ROOM_CODE, 7L);
+        for (int seat = 0; seat < 4; seat++) {
+            room.addPlayer(new Player("player-" + seat, "player" + seat, "session-" + seat));
+        }
+        room.setRoomOwnerId("player-0");
+
+        // Stubs that remember nothing, so a million calls don't pile up a million invocation records
+        RoomService roomService = mock(RoomService.class, withSettings().stubOnly());
+        when(roomService.getRoom(ROOM_CODE)).thenReturn(room);
+        GameEventService events = mock(GameEventService.class, withSettings().stubOnly());
+        RoomJournal journal = new RoomJournal(false, "unused", 1, 5, false, 0);
+        gameService = new GameService(roomService, deckGenerator, new CardValidator(), events, journal);
+
+        gameService.startGame(ROOM_CODE);
+        for (Player player : room.getPlayers()) {
+            player.getHand().clear();
+            player.getHand().add(PLAYED);
+            player.getHand().add(HELD);
+        }
+        room.getPlayedPile().clear();
+        room.getPlayedPile().push(TOP);
+        // Nobody should draw a card they already hold, or putting it back would take theirs too
+        room.getDrawPile().clear();
+        for (Card card : Card.deck()) {
+            if (card != TOP && card != PLAYED && card != HELD) {
+                room.getDrawPile().push(card);
+            }
+        }
+        room.getDrawPile().shuffle(room.getRandom());
+        room.setActiveSuit(null);
+        room.setDrawPenalty(0);
+
+        play = List.of(PLAYED);
+        drawn = new Card[1];
+        toReturn = Arrays.asList(drawn);
+        spentPile = new ArrayList<>(Card.deck().subList(0, 40));
+        deck = new CardPile();
+        random = new RoomRandom(11);
+    }
+
+    /**
+     * The current player plays a Six on a Five and passes; then the Six goes back in their hand.
+     */
+    @Benchmark
+    public GameRoom playCardsAndPass() {
+        Player player = room.getCurrentPlayer();
+        gameService.playCards(ROOM_CODE, player.getId(), null, play, null);
+        gameService.passTurn(ROOM_CODE, player.getId(), null);
+        room.getPlayedPile().pop();
+        player.getHand().add(PLAYED);
+        return room;
+    }
+
+    /**
+     * The current player draws one; then it goes back on the deck.
+     */
+    @Benchmark
+    public GameRoom drawCard() {
+        Player player = room.getCurrentPlayer();
+        drawn[0] = room.getDrawPile().peek();
+        gameService.drawCard(ROOM_CODE, player.getId(), null);
+        player.getHand().removeAll(toReturn);
+        room.getDrawPile().push(drawn[0]);
+        return room;
+    }
+
+    /**
+     * The current player draws from an empty deck, so the played pile is shuffled back in first.
+     */
+    @Benchmark
+    public GameRoom drawCardWithReshuffle() {
+        Player player = room.getCurrentPlayer();
+        CardPile drawPile = room.getDrawPile();
+        CardPile playedPile = room.getPlayedPile();
+        drawPile.clear();
+        playedPile.clear();
+        playedPile.addAll(spentPile);
+        gameService.drawCard(ROOM_CODE, player.getId(), null);
+        player.getHand().clear();
+        player.getHand().add(PLAYED);
+        player.getHand().add(HELD);
+        playedPile.clear();
+        playedPile.push(TOP);
+        return room;
+    }
+
+    @Benchmark
+    public CardPile shuffleDeck() {
+        deckGenerator.shuffleInto(deck, random);
+        return deck;
+    }
+
+    @Benchmark
+    public byte[] serializeGameState() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(GameState.from(room, "player1 played 1 card(s)."));
+    }
+
+    @Benchmark
+    public byte[] serializeGameEvent() throws JsonProcessingException {
+        GameEvent event = new GameEvent(GameEvent.EventType.GAME_STATE_UPDATE, GameState.from(room, "player1 drew."));
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] serializeGameRoom() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(room);
+    }
+}
@@ -0,0 +1,302 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.BotBrain;
+import com.cardi.cardi.services.BotStrategy;
+import com.cardi.cardi.services.CardValidator;
+import com.cardi.cardi.services.DeckGenerator;
+import com.cardi.cardi.services.GameEngine;
+import com.cardi.cardi.services.SheddingBotStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays bot-against-bot games straight on the {@link GameEngine}, no server, no sockets, across every core, under
+ * each combination of the room's house rules, and reports how the games went: how long they last, how long
+ * penalty chains get before somebody gives in and draws, and whether where you sit (counted from whoever the deal
+ * picked to go first) changes your odds. Handy before arguing about whether a house rule is fair.
+ * <p>
+ * The bots are the server's own {@link BotBrain}, so they draw when they have nothing, call Cardi! on their last
+ * card and only go out on a card that's allowed to finish, but which legal card they play is left to chance
+ * rather than to {@link SheddingBotStrategy}: the point is to test the rules, not the bots. Every game is dealt
+ * from its own seed, so a run gives the same numbers whatever the number of cores. Games that are still going
+ * after {@value #MAX_MOVES} moves are given up on and counted as unfinished.
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.main=com.cardi.cardi.bench.GameSimulation -Dbench.args="1000000 4 0,10"
+ *                                                                                        |       | '- hand limits to try (0 = none)
+ *                                                                                        |       '--- players per table
+ *                                                                                        '----------- games per rule set
+ * </pre>
+ */
+public class GameSimulation {
+
+    private static final int MAX_MOVES = 10_000;
+    private static final int GAMES_PER_TASK = 4_096; // Small enough to keep every core busy, big enough to not notice forking
+    private static final int LONGEST_CHAIN = 32;
+
+    private static final CardValidator cardValidator = new CardValidator();
+    private static final GameEngine gameEngine = new GameEngine(new DeckGenerator(), cardValidator);
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        String limits = args.length > 2 ? args[2] : "0";
+
+        List<RuleSet> ruleSets = new ArrayList<>();
+        for (String limit : limits.split(",")) {
+            Integer maxCardsAllowed = Integer.parseInt(limit.trim()) > 0 ? Integer.valueOf(limit.trim()) : null;
+            for (boolean matchShape : new boolean[]{false, true}) {
+                for (boolean restrictJK : new boolean[]{false, true}) {
+                    ruleSets.add(new RuleSet(matchShape, restrictJK, maxCardsAllowed));
+                }
+            }
+        }
+
+        System.out.printf("%d games x %d rule sets, %d players per table, %d threads%n",
+                games, ruleSets.size(), players, ForkJoinPool.commonPool().getParallelism());
+        long totalGames = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ruleSets.size(); i++) {
+            RuleSet rules = ruleSets.get(i);
+            long ruleStart = System.nanoTime();
+            Stats stats = ForkJoinPool.commonPool().invoke(new Games(rules, i, players, 0, games));
+            long millis = Math.max(1, (System.nanoTime() - ruleStart) / 1_000_000);
+            System.out.println();
+            System.out.printf("%s  (%.1fM games/min)%n", rules, stats.games * 60_000.0 / millis / 1_000_000);
+            stats.print();
+            totalGames += stats.games;
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("%nPlayed %d games in %d ms, %.1fM games/min%n", totalGames, millis, totalGames * 60_000.0 / millis / 1_000_000);
+    }
+
+    /**
+     * A stretch of games under one rule set, split in half until it's small enough to just play.
+     */
+    private static final class Games extends RecursiveTask<Stats> {
+        private final RuleSet rules;
+        private final int ruleIndex;
+        private final int players;
+        private final int from;
+        private final int to;
+
+        Games(RuleSet rules, int ruleIndex, int players, int from, int to) {
+            this.rules = rules;
+            this.ruleIndex = ruleIndex;
+            this.players = players;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                Games left = new Games(rules, ruleIndex, players, from, middle);
+                left.fork();
+                Stats right = new Games(rules, ruleIndex, players, middle, to).compute();
+                return right.merge(left.join());
+            }
+            Stats stats = new Stats(players);
+            for (int game = from; game < to; game++) {
+                long seed = (ruleIndex + 1L) << 40 | game;
+                play(new SplittableRandom(seed), seed, stats);
+            }
+            return stats;
+        }
+
+        private void play(SplittableRandom botLuck, long seed, Stats stats) {
+            GameRoom room = new GameRoom("SIM", seed);
+            for (int seat = 0; seat < players; seat++) {
+                room.addPlayer(new Player("p" + seat, "bot" + seat));
+            }
+            rules.applyTo(room);
+            gameEngine.deal(room);
+            int firstSeat = room.getCurrentPlayerIndex();
+            BotBrain brain = new BotBrain(cardValidator, new RandomStrategy(botLuck));
+
+            int turns = 0;
+            int chain = 0;
+            for (int moves = 0; moves < MAX_MOVES; moves++) {
+                Player player = room.getCurrentPlayer();
+                int seatBefore = room.getCurrentPlayerIndex();
+                int penaltyBefore = room.getDrawPenalty();
+
+                GameEngine.Outcome outcome = move(room, player, brain);
+                if (outcome.result() == GameEngine.Result.WON) {
+                    int seat = (room.seatOf(player.getId()) - firstSeat + players) % players;
+                    stats.finished(turns + 1, moves + 1, seat);
+                    return;
+                }
+                if (!outcome.accepted()) {
+                    throw new IllegalStateException("Bot broke the rules: " + outcome.detail());
+                }
+
+                if (room.getDrawPenalty() > penaltyBefore) {
+                    chain++;
+                } else if (penaltyBefore > 0 && room.getDrawPenalty() == 0) {
+                    stats.chain(chain); // Somebody drew, or an Ace called it off
+                    chain = 0;
+                }
+                if (room.getCurrentPlayerIndex() != seatBefore) {
+                    turns++;
+                }
+            }
+            stats.unfinished++;
+        }
+    }
+
+    /**
+     * Does whatever the bot decided, straight on the engine.
+     */
+    private static GameEngine.Outcome move(GameRoom room, Player player, BotBrain brain) {
+        BotBrain.Move move = brain.decide(room, player);
+        return switch (move.action()) {
+            case PASS -> gameEngine.pass(room, player);
+            case DRAW -> gameEngine.draw(room, player);
+            case PLAY -> {
+                if (move.callCardi()) {
+                    player.setHasCalledCardi(true);
+                }
+                yield gameEngine.play(room, player, List.of(move.card()), move.suit());
+            }
+        };
+    }
+
+    /**
+     * A random one of the playable cards, and whichever suit the hand holds most of for an Ace.
+     */
+    private record RandomStrategy(SplittableRandom luck) implements BotStrategy {
+
+        @Override
+        public Card choose(GameRoom room, Player bot, long playable) {
+            // Skip a random number of set bits
+            for (int skip = luck.nextInt(Long.bitCount(playable)); skip > 0; skip--) {
+                playable &= playable - 1;
+            }
+            return Card.byOrdinal(Long.numberOfTrailingZeros(playable));
+        }
+
+        @Override
+        public Suit callSuit(GameRoom room, Player bot, Card ace) {
+            Suit favourite = Suit.HEARTS;
+            for (Suit suit : Suit.STANDARD) {
+                if (Long.bitCount(bot.getHand().cardsOfSuit(suit)) > Long.bitCount(bot.getHand().cardsOfSuit(favourite))) {
+                    favourite = suit;
+                }
+            }
+            return favourite;
+        }
+    }
+
+    private record RuleSet(boolean matchShapeForCounter, boolean restrictJKCounters, Integer maxCardsAllowed) {
+
+        void applyTo(GameRoom room) {
+            room.setMatchShapeForCounter(matchShapeForCounter);
+            room.setRestrictJKCounters(restrictJKCounters);
+            room.setMaxCardsAllowed(maxCardsAllowed);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("matchShapeForCounter=%-5s restrictJKCounters=%-5s maxCardsAllowed=%s",
+                    matchShapeForCounter, restrictJKCounters, maxCardsAllowed == null ? "none" : maxCardsAllowed);
+        }
+    }
+
+    /**
+     * Everything we count, per task, added together on the way back up.
+     */
+    private static final class Stats {
+        final long[] winsBySeat;
+        final long[] turnCounts = new long[MAX_MOVES + 1]; // Games by length in turns
+        final long[] chainCounts = new long[LONGEST_CHAIN + 1]; // Penalty chains by number of cards stacked
+        long games;
+        long unfinished;
+        long moves;
+
+        Stats(int players) {
+            winsBySeat = new long[players];
+        }
+
+        void finished(int turns, int movesPlayed, int seat) {
+            games++;
+            moves += movesPlayed;
+            turnCounts[Math.min(turns, MAX_MOVES)]++;
+            winsBySeat[seat]++;
+        }
+
+        void chain(int length) {
+            chainCounts[Math.min(length, LONGEST_CHAIN)]++;
+        }
+
+        Stats merge(Stats other) {
+            games += other.games;
+            unfinished += other.unfinished;
+            moves += other.moves;
+            add(winsBySeat, other.winsBySeat);
+            add(turnCounts, other.turnCounts);
+            add(chainCounts, other.chainCounts);
+            return this;
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+
+        void print() {
+            long turns = 0;
+            for (int length = 0; length < turnCounts.length; length++) {
+                turns += length * turnCounts[length];
+            }
+            System.out.printf("  games: %d finished, %d unfinished; %.1f moves and %.1f turns each (p50=%d p90=%d p99=%d max=%d turns)%n",
+                    games, unfinished, moves / (double) Math.max(1, games), turns / (double) Math.max(1, games),
+                    percentile(turnCounts, 50), percentile(turnCounts, 90), percentile(turnCounts, 99), percentile(turnCounts, 100));
+
+            long chains = 0;
+            long stacked = 0;
+            int longest = 0;
+            for (int length = 0; length < chainCounts.length; length++) {
+                chains += chainCounts[length];
+                stacked += length * chainCounts[length];
+                if (chainCounts[length] > 0) {
+                    longest = length;
+                }
+            }
+            System.out.printf("  penalty chains: %d, %.2f per game, %.2f cards stacked on average (p90=%d, longest=%d%s)%n",
+                    chains, chains / (double) Math.max(1, games), stacked / (double) Math.max(1, chains),
+                    percentile(chainCounts, 90), longest, longest == LONGEST_CHAIN ? "+" : "");
+
+            StringBuilder seats = new StringBuilder("  win rate by seat (0 goes first):");
+            for (int seat = 0; seat < winsBySeat.length; seat++) {
+                seats.append(String.format(" %d=%.1f%%", seat, 100.0 * winsBySeat[seat] / Math.max(1, games)));
+            }
+            System.out.println(seats);
+        }
+
+        private static int percentile(long[] counts, double percentile) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            long target = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int value = 0; value < counts.length; value++) {
+                seen += counts[value];
+                if (seen >= target && seen > 0) {
+                    return value;
+                }
+            }
+            return 0;
+        }
+    }
+}
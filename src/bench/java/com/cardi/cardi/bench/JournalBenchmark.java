@@ -0,0 +1,115 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.journal.JournalRecord;
+import com.cardi.cardi.journal.MappedJournal;
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.LatencyHistogram;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * How much does writing every action down cost? Several "room threads" append typical PLAYED records to a
+ * {@link MappedJournal} as fast as they can, first letting the flusher sync in the background (the default),
+ * then waiting for every record to be on disk before moving on ({@code cardi.journal.wait-for-sync=true}).
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.main=com.cardi.cardi.bench.JournalBenchmark -Dbench.args="4 200000 5"
+ *                                                                                         |    |    '- sync interval, ms
+ *                                                                                         |    '------ records per thread
+ *                                                                                         '----------- appending threads
+ * </pre>
+ */
+public class JournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int recordsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int syncMillis = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        ByteBuffer record = ByteBuffer.allocate(128);
+        JournalRecord.played("AB12CD", "5f0c8a3e-0d0e-4a43-9a57-6c2b0f1d2e3f",
+                List.of(Card.of(Suit.HEARTS, Rank.SEVEN)), null).encode(record);
+        record.flip();
+        System.out.printf("%d threads x %d records of %d bytes, sync every %d ms%n",
+                threads, recordsPerThread, record.remaining(), syncMillis);
+
+        run("async", threads, recordsPerThread, syncMillis, record, false);
+        // Waiting for the disk is a few orders of magnitude slower, so fewer records make the point
+        run("sync-wait", threads, Math.max(1, recordsPerThread / 100), syncMillis, record, true);
+    }
+
+    private static void run(String mode, int threads, int recordsPerThread, int syncMillis, ByteBuffer record,
+                            boolean waitForSync) throws Exception {
+        Path directory = Files.createTempDirectory("cardi-journal-bench");
+        LatencyHistogram latency = new LatencyHistogram();
+        MappedJournal.JournalStats stats;
+        long wallNanos;
+        try (MappedJournal journal = new MappedJournal(directory, 64 * 1024 * 1024, syncMillis)) {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch go = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = Thread.ofPlatform().name("room-" + t).start(() -> {
+                    ByteBuffer mine = record.duplicate();
+                    ready.countDown();
+                    await(go);
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        long start = System.nanoTime();
+                        long position = journal.append(mine.duplicate());
+                        if (waitForSync) {
+                            try {
+                                journal.awaitDurable(position);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                        latency.record(System.nanoTime() - start);
+                    }
+                });
+            }
+            ready.await();
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            wallNanos = System.nanoTime() - start;
+            stats = journal.getStats();
+        } finally {
+            deleteRecursively(directory);
+        }
+        long records = latency.getCount();
+        System.out.printf("%-9s records=%d p50=%dns p99=%dns max=%dns throughput=%.0f/s fsyncs=%d records/fsync=%.1f%n",
+                mode,
+                records,
+                latency.percentileNanos(50),
+                latency.percentileNanos(99),
+                latency.percentileNanos(100),
+                records * 1e9 / wallNanos,
+                stats.syncs(),
+                stats.recordsPerSync());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
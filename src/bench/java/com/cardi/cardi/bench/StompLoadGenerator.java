@@ -0,0 +1,480 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.model.ActionMessage;
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.CardValidator;
+import com.cardi.cardi.services.LatencyHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Points thousands of scripted bots at a running server, over the same SockJS + STOMP {@code /ws} endpoint the
+ * web client uses, and has them play real games. Each table's first bot creates a room with {@code /app/room.create},
+ * the rest join it with {@code /app/room.join}, the owner deals once everyone is seated (and again after every win),
+ * and from then on each bot plays a card {@link CardValidator} says is legal, draws when it has none, calls
+ * Cardi! on its last card and passes when the rules say so.
+ * <p>
+ * Every action is timed from the moment it's sent to the first reply that shows the server dealt with it (a newer
+ * state, a win, or an error), and the run reports those round trips as percentiles alongside messages per second
+ * each way and everything that went wrong. Bots connect evenly over the ramp-up, and wait a think time of half
+ * to one and a half times the one given before each move. Start the server with its usual settings
+ * (delta broadcasts on or off both work), then:
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.main=com.cardi.cardi.bench.StompLoadGenerator \
+ *     -Dbench.args="2000 4 30 500 120 http://localhost:8080/ws"
+ *                   |    | |  |   |   '- SockJS endpoint
+ *                   |    | |  |   '----- seconds to keep playing once everyone is connected
+ *                   |    | |  '--------- think time before each move, ms
+ *                   |    | '------------ ramp-up, seconds
+ *                   |    '-------------- bots per room
+ *                   '------------------- bots (sessions)
+ * </pre>
+ */
+public class StompLoadGenerator {
+
+    private static final int REPORT_EVERY_SECONDS = 5;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final CardValidator cardValidator = new CardValidator();
+
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    private final WebSocketStompClient stompClient;
+    private final ScheduledExecutorService scheduler;
+    private final String url;
+    private final int thinkMillis;
+    private volatile boolean stopping;
+
+    private StompLoadGenerator(String url, int thinkMillis) {
+        this.url = url;
+        this.thinkMillis = thinkMillis;
+        this.stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int botsPerRoom = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rampUpSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int thinkMillis = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        int durationSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 120;
+        String url = args.length > 5 ? args[5] : "http://localhost:8080/ws";
+
+        System.out.printf("%d bots, %d per room, ramping up over %d s, thinking %d ms, playing for %d s against %s%n",
+                bots, botsPerRoom, rampUpSeconds, thinkMillis, durationSeconds, url);
+        new StompLoadGenerator(url, thinkMillis).run(bots, botsPerRoom, rampUpSeconds, durationSeconds);
+    }
+
+    private void run(int botCount, int botsPerRoom, int rampUpSeconds, int durationSeconds) throws InterruptedException {
+        List<Bot> bots = new ArrayList<>(botCount);
+        Table table = null;
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+        for (int i = 0; i < botCount; i++) {
+            if (i % botsPerRoom == 0) {
+                table = new Table(Math.min(botsPerRoom, botCount - i));
+            }
+            Bot bot = new Bot("bot-" + i, table, i % botsPerRoom == 0);
+            bots.add(bot);
+            scheduler.schedule(bot::connect, rampUpNanos * i / botCount, TimeUnit.NANOSECONDS);
+        }
+
+        long start = System.nanoTime();
+        long end = start + rampUpNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastIn = 0;
+        long lastOut = 0;
+        while (System.nanoTime() < end) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(REPORT_EVERY_SECONDS));
+            long in = messagesIn.sum();
+            long out = messagesOut.sum();
+            LatencyHistogram.Snapshot latency = roundTrips.snapshot();
+            System.out.printf("%4ds connected=%d in=%.0f/s out=%.0f/s actions=%d p50=%.0fus p99=%.0fus errors=%d%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), connected.sum(),
+                    (in - lastIn) / (double) REPORT_EVERY_SECONDS, (out - lastOut) / (double) REPORT_EVERY_SECONDS,
+                    latency.count(), latency.p50Micros(), latency.p99Micros(),
+                    serverErrors.sum() + transportErrors.sum() + connectFailures.sum());
+            lastIn = in;
+            lastOut = out;
+        }
+
+        stopping = true;
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        scheduler.shutdownNow();
+        bots.forEach(Bot::disconnect);
+        stompClient.stop();
+        report(wallMillis);
+    }
+
+    private void report(long wallMillis) {
+        LatencyHistogram.Snapshot latency = roundTrips.snapshot();
+        System.out.println();
+        System.out.printf("round trips  count=%d mean=%.0fus p50=%.0fus p90=%.0fus p99=%.0fus p99.9=%.0fus max=%.0fus%n",
+                latency.count(), latency.meanMicros(), latency.p50Micros(), roundTrips.percentileNanos(90) / 1_000.0,
+                latency.p99Micros(), roundTrips.percentileNanos(99.9) / 1_000.0, latency.maxMicros());
+        System.out.printf("messages     in=%d (%.0f/s) out=%d (%.0f/s)%n",
+                messagesIn.sum(), messagesIn.sum() * 1000.0 / wallMillis,
+                messagesOut.sum(), messagesOut.sum() * 1000.0 / wallMillis);
+        System.out.printf("errors       server=%d transport=%d connect=%d resyncs=%d%n",
+                serverErrors.sum(), transportErrors.sum(), connectFailures.sum(), resyncs.sum());
+        System.out.printf("games        finished=%d wall=%dms%n", gamesFinished.sum(), wallMillis);
+    }
+
+    private long thinkTimeMillis() {
+        return thinkMillis <= 0 ? 0 : ThreadLocalRandom.current().nextLong(thinkMillis / 2, thinkMillis * 3L / 2 + 1);
+    }
+
+    /**
+     * The bots sharing one room. The first to connect creates it; the others wait to hear its code.
+     */
+    private static final class Table {
+        final int seats;
+        final CompletableFuture<String> roomCode = new CompletableFuture<>();
+
+        Table(int seats) {
+            this.seats = seats;
+        }
+    }
+
+    /**
+     * One STOMP session, playing like a patient beginner: always the first legal card it finds a use for.
+     * Frames arrive on the socket's threads and moves go out from the scheduler's, so everything that reads or
+     * changes the bot's picture of the table holds its lock.
+     */
+    private final class Bot extends StompSessionHandlerAdapter {
+
+        private final String username;
+        private final Table table;
+        private final boolean creator;
+        private final GameRoom rules = new GameRoom("RULES", 0L); // Only here to hold what CardValidator looks at
+
+        private StompSession session;
+        private String roomCode;
+        private String playerId;
+        private String ownerId;
+        private List<String> playerIds = List.of();
+        private int seated = 1;
+
+        // The table as we last heard it; deltas are applied on top of the last full state
+        private long version = -1;
+        private boolean started;
+        private int currentPlayerIndex;
+        private Card topCard;
+        private boolean playerHasTakenAction;
+        private Hand hand = new Hand();
+        private long handVersion = -1;
+        private long handNeededFrom; // Our cards change when we play, draw or are dealt; wait until we've seen them
+        private boolean calledCardi;
+
+        private long pendingSince; // When our last action went out, or 0 if nothing is in flight
+        private long pendingVersion;
+        private boolean moveScheduled;
+
+        Bot(String username, Table table, boolean creator) {
+            this.username = username;
+            this.table = table;
+            this.creator = creator;
+        }
+
+        void connect() {
+            if (stopping) return;
+            stompClient.connectAsync(url, this).whenComplete((connectedSession, failure) -> {
+                if (failure != null) {
+                    connectFailures.increment();
+                    if (creator) {
+                        table.roomCode.completeExceptionally(failure);
+                    }
+                }
+            });
+        }
+
+        void disconnect() {
+            StompSession current;
+            synchronized (this) {
+                current = session;
+            }
+            if (current != null && current.isConnected()) {
+                current.disconnect();
+            }
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            synchronized (this) {
+                this.session = session;
+            }
+            connected.increment();
+            subscribe("/user/queue/errors");
+            subscribe("/user/queue/room-updates");
+            subscribe("/user/queue/state");
+            subscribe("/user/queue/hand");
+            if (creator) {
+                send("/app/room.create", message());
+                return;
+            }
+            table.roomCode.thenAccept(code -> {
+                synchronized (this) {
+                    roomCode = code;
+                }
+                subscribe("/topic/game/" + code);
+                ActionMessage join = message();
+                join.setRoomCode(code);
+                send("/app/room.join", join);
+            });
+        }
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers, byte[] payload, Throwable exception) {
+            transportErrors.increment();
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            if (!stopping) {
+                transportErrors.increment();
+            }
+        }
+
+        private void subscribe(String destination) {
+            session.subscribe(destination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    messagesIn.increment();
+                    synchronized (Bot.this) {
+                        onEvent((JsonNode) payload);
+                        maybeMove();
+                    }
+                }
+            });
+        }
+
+        private synchronized void send(String destination, ActionMessage message) {
+            if (stopping || session == null || !session.isConnected()) return;
+            session.send(destination, message);
+            messagesOut.increment();
+        }
+
+        private ActionMessage message() {
+            ActionMessage message = new ActionMessage();
+            message.setUsername(username);
+            message.setRoomCode(roomCode);
+            message.setPlayerId(playerId);
+            return message;
+        }
+
+        private void onEvent(JsonNode event) {
+            JsonNode payload = event.path("payload");
+            switch (event.path("type").asText()) {
+                case "BATCH" -> payload.forEach(this::onEvent);
+                case "ROOM_UPDATE" -> {
+                    applyState(payload);
+                    if (creator && !table.roomCode.isDone()) {
+                        roomCode = payload.path("roomCode").asText();
+                        subscribe("/topic/game/" + roomCode);
+                        table.roomCode.complete(roomCode);
+                    }
+                }
+                case "GAME_START" -> {
+                    applyState(payload);
+                    handNeededFrom = version; // Everyone's dealt a fresh hand at the start's version
+                    calledCardi = false;
+                    answered(false);
+                }
+                case "GAME_STATE_UPDATE" -> {
+                    applyState(payload);
+                    answered(false);
+                }
+                case "GAME_STATE_DELTA" -> {
+                    if (payload.path("baseVersion").asLong() != version) {
+                        resyncs.increment(); // We missed an edition; ask for the whole paper
+                        ActionMessage resync = message();
+                        resync.setVersion(version);
+                        send("/app/game.resync", resync);
+                        return;
+                    }
+                    applyState(payload);
+                    answered(false);
+                }
+                case "HAND_UPDATE" -> {
+                    long handFrameVersion = payload.path("version").asLong();
+                    if (handFrameVersion >= handVersion) {
+                        handVersion = handFrameVersion;
+                        hand = Hand.of(cards(payload.path("cards")));
+                    }
+                }
+                case "PLAYER_JOINED" -> seated++;
+                case "GAME_WIN" -> {
+                    started = false;
+                    gamesFinished.increment();
+                    answered(true); // A win doesn't come with a new state
+                }
+                case "ERROR" -> {
+                    serverErrors.increment();
+                    answered(true);
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void applyState(JsonNode state) {
+            long stateVersion = state.path("version").asLong();
+            if (stateVersion < version) return; // Overtaken by something newer
+            version = stateVersion;
+            if (state.has("players")) {
+                List<String> ids = new ArrayList<>();
+                for (JsonNode player : state.path("players")) {
+                    ids.add(player.path("id").asText());
+                    if (username.equals(player.path("username").asText())) {
+                        playerId = player.path("id").asText();
+                    }
+                }
+                playerIds = ids;
+                seated = Math.max(seated, ids.size());
+            }
+            if (state.has("roomOwnerId")) ownerId = state.path("roomOwnerId").asText();
+            if (state.has("started")) started = state.path("started").asBoolean();
+            if (state.has("currentPlayerIndex")) currentPlayerIndex = state.path("currentPlayerIndex").asInt();
+            if (state.has("topCard")) topCard = card(state.path("topCard"));
+            if (state.has("drawPenalty")) rules.setDrawPenalty(state.path("drawPenalty").asInt());
+            if (state.has("questionActive")) rules.setQuestionActive(state.path("questionActive").asBoolean());
+            if (state.has("activeSuit")) rules.setActiveSuit(Suit.fromLabel(state.path("activeSuit").asText(null)));
+            if (state.has("playerHasTakenAction")) playerHasTakenAction = state.path("playerHasTakenAction").asBoolean();
+        }
+
+        /**
+         * Whatever we sent last has been dealt with, one way or another.
+         * @param settled True if this reply settles it whatever the version; false if only a newer state will do.
+         */
+        private void answered(boolean settled) {
+            if (pendingSince != 0 && (settled || version > pendingVersion)) {
+                roundTrips.record(System.nanoTime() - pendingSince);
+                pendingSince = 0;
+            }
+        }
+
+        private void maybeMove() {
+            if (stopping || moveScheduled || pendingSince != 0 || playerId == null) return;
+            boolean owner = playerId.equals(ownerId);
+            if (!started) {
+                if (!owner || seated < table.seats) return;
+            } else if (!myTurn() || handVersion < handNeededFrom) {
+                return;
+            }
+            moveScheduled = true;
+            scheduler.schedule(this::move, thinkTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private boolean myTurn() {
+            return currentPlayerIndex < playerIds.size() && playerIds.get(currentPlayerIndex).equals(playerId);
+        }
+
+        private synchronized void move() {
+            moveScheduled = false;
+            if (stopping || pendingSince != 0) return;
+            if (!started) {
+                if (playerId.equals(ownerId)) {
+                    act("/app/game.start", message());
+                }
+                return;
+            }
+            if (!myTurn()) return;
+
+            if (playerHasTakenAction && !rules.isQuestionActive()) {
+                act("/app/game.pass", message());
+                return;
+            }
+
+            long playable = cardValidator.playableCards(hand, topCard, rules);
+            if (hand.size() == 1) {
+                if (!calledCardi) {
+                    send("/app/game.callCardi", message());
+                    calledCardi = true;
+                }
+                for (Rank rank : CardValidator.FINISHING_RESTRICTED_CARDS) {
+                    playable &= ~Hand.rankMask(rank); // Can't go out on those, so we'd rather draw
+                }
+            }
+            if (playable == 0) {
+                calledCardi = false; // Drawing takes back a Cardi! call
+                handNeededFrom = version + 1;
+                act("/app/game.draw", message());
+                return;
+            }
+
+            Card card = Card.byOrdinal(Long.numberOfTrailingZeros(playable));
+            ActionMessage play = message();
+            play.setCards(List.of(card));
+            if (card.getRank() == Rank.ACE) {
+                play.setNewSuit(favouriteSuit().getLabel());
+            }
+            handNeededFrom = version + 1;
+            act("/app/game.play", play);
+        }
+
+        /**
+         * The suit we hold most of, for when an Ace lets us pick.
+         */
+        private Suit favouriteSuit() {
+            Suit favourite = Suit.HEARTS;
+            for (Suit suit : Suit.STANDARD) {
+                if (Long.bitCount(hand.cardsOfSuit(suit)) > Long.bitCount(hand.cardsOfSuit(favourite))) {
+                    favourite = suit;
+                }
+            }
+            return favourite;
+        }
+
+        private void act(String destination, ActionMessage message) {
+            pendingSince = System.nanoTime();
+            pendingVersion = version;
+            send(destination, message);
+        }
+
+        private List<Card> cards(JsonNode cards) {
+            List<Card> list = new ArrayList<>(cards.size());
+            cards.forEach(card -> list.add(card(card)));
+            return list;
+        }
+
+        private Card card(JsonNode card) {
+            return card.isNull() ? null : objectMapper.convertValue(card, Card.class);
+        }
+    }
+}
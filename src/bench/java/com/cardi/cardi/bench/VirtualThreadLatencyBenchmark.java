@@ -0,0 +1,123 @@
+package com.cardi.cardi.bench;
+
+import com.cardi.cardi.services.LatencyHistogram;
+import com.cardi.cardi.services.RoomActionExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pits the default thread pools against {@code cardi.threads.virtual=true} on the path a game action takes:
+ * inbound channel, a handler that blocks on the database, then the room's mailbox.
+ * <p>
+ * Thousands of simulated sessions fire actions at a channel built the way {@code WebSocketConfig} builds it,
+ * and we time each one from "frame arrived" to "room action finished".
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.args="2000 10 2"
+ *                                                   |    |  '- milliseconds each handler blocks on "JPA"
+ *                                                   |    '---- actions per session
+ *                                                   '--------- concurrent sessions
+ * </pre>
+ */
+public class VirtualThreadLatencyBenchmark {
+
+    private static final int SESSIONS_PER_ROOM = 4;
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int actionsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int blockingMillis = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        System.out.printf("%d sessions x %d actions, handlers block %d ms%n", sessions, actionsPerSession, blockingMillis);
+        for (boolean virtual : new boolean[]{false, true}) {
+            Result result = run(virtual, sessions, actionsPerSession, blockingMillis);
+            System.out.printf("%-9s actions=%d p50=%.0fus p99=%.0fus max=%.0fus wall=%dms throughput=%.0f/s%n",
+                    virtual ? "virtual" : "platform",
+                    result.latency.count(),
+                    result.latency.p50Micros(),
+                    result.latency.p99Micros(),
+                    result.latency.maxMicros(),
+                    result.wallMillis,
+                    result.latency.count() * 1000.0 / result.wallMillis);
+        }
+    }
+
+    private static Result run(boolean virtual, int sessions, int actionsPerSession, int blockingMillis) throws Exception {
+        RoomActionExecutor rooms = new RoomActionExecutor(0, "bench-room", virtual);
+        Executor inboundExecutor = inboundExecutor(virtual);
+        ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel(inboundExecutor);
+        LatencyHistogram latency = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(sessions * actionsPerSession);
+
+        // Stands in for a @MessageMapping method that talks to the database before handing off to the room.
+        inbound.subscribe(message -> {
+            sleep(blockingMillis);
+            Action action = (Action) message.getPayload();
+            rooms.execute(action.roomCode, () -> {
+                latency.record(System.nanoTime() - action.sentAt);
+                done.countDown();
+            });
+        });
+
+        long start = System.nanoTime();
+        try (var clients = java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int session = 0; session < sessions; session++) {
+                String roomCode = "R" + (session / SESSIONS_PER_ROOM);
+                clients.submit(() -> {
+                    for (int i = 0; i < actionsPerSession; i++) {
+                        Message<Action> message = MessageBuilder.withPayload(new Action(roomCode, System.nanoTime())).build();
+                        inbound.send(message);
+                        sleep(ThreadLocalRandom.current().nextInt(20, 60)); // think time
+                    }
+                });
+            }
+        }
+        if (!done.await(5, TimeUnit.MINUTES)) {
+            System.out.println("Timed out waiting for actions to finish");
+        }
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        rooms.shutdown();
+        if (inboundExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+        return new Result(latency.snapshot(), wallMillis);
+    }
+
+    /**
+     * The same executors the application ends up with in each mode.
+     */
+    private static Executor inboundExecutor(boolean virtual) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor("stomp-in-");
+        }
+        // Spring's default for the client inbound channel: twice the cores, unbounded queue
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        pool.setMaxPoolSize(Integer.MAX_VALUE);
+        pool.setThreadNamePrefix("stomp-in-");
+        pool.initialize();
+        return pool;
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Action(String roomCode, long sentAt) {
+    }
+
+    private record Result(LatencyHistogram.Snapshot latency, long wallMillis) {
+    }
+}
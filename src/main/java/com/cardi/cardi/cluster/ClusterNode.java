@@ -0,0 +1,518 @@
+package com.cardi.cardi.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * One member of a Cardi cluster, and the only part of it that touches a socket.
+ * <p>
+ * Nodes talk over plain TCP, one connection in each direction per pair, in length-prefixed frames:
+ * {@code [i32 length][u8 type][fields]}, with strings as modified UTF-8 and bodies as {@code [i32 length][bytes]}.
+ * Every outgoing connection starts with a HELLO naming its node and carrying the cluster's shared secret, then
+ * carries whatever that node has to say, in order. A connection whose HELLO doesn't name a configured peer, or
+ * gets the secret wrong, is hung up on before a single frame of it is acted on. Frames are written from a per-peer
+ * outbox, so a slow or dead peer never stalls a room's thread.
+ * <p>
+ * Nothing here knows about Spring or STOMP; whatever arrives is handed to a {@link Listener}. That makes it easy
+ * to stand up three of these on localhost in a test and watch them gossip.
+ */
+@Slf4j
+public class ClusterNode implements AutoCloseable {
+
+    static final byte HELLO = 0;
+    static final byte HEARTBEAT = 1;
+    static final byte ACTION = 2;
+    static final byte PUBLISH = 3;
+    static final byte USER = 4;
+    static final byte SUBSCRIBED = 5;
+    static final byte ROOM_CLOSED = 6;
+    static final byte SESSION_CLOSED = 7;
+
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+    private static final int CONNECT_TIMEOUT_MILLIS = 500;
+    private static final long RETRY_MILLIS = 1_000;
+    static final long HEARTBEAT_MILLIS = 500;
+    private static final long PEER_TIMEOUT_MILLIS = 3 * HEARTBEAT_MILLIS;
+
+    /**
+     * What a node does with the frames its peers send it. Called on the connection's reader thread, so frames
+     * from any one peer arrive in the order that peer sent them.
+     */
+    public interface Listener {
+        void onAction(String fromNode, String sessionId, String destination, byte[] payload);
+
+        void onPublish(String roomCode, byte[] frame);
+
+        void onUserMessage(String sessionId, String destination, byte[] frame);
+
+        void onSubscribed(String fromNode, String roomCode, String sessionId);
+
+        void onRoomClosed(String roomCode);
+
+        void onSessionClosed(String fromNode, String sessionId);
+
+        /**
+         * The peer's connection to us dropped, so nothing it told us about its sessions can be relied on any more.
+         */
+        void onPeerDisconnected(String nodeId);
+    }
+
+    private final String nodeId;
+    private final String bindAddress;
+    private final int port;
+    private final String secret;
+    private final int virtualNodes;
+    private final Listener listener;
+    private final IntSupplier localLoad;
+
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+    private final Map<String, Socket> inboundFrom = new ConcurrentHashMap<>();
+    private final ExecutorService readers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cluster-in-", 0).factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cluster-heartbeat").daemon().factory());
+    private volatile ConsistentHashRing ring;
+    private volatile ServerSocket server;
+    private volatile boolean running;
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+
+    /**
+     * @param bindAddress The interface to listen on for peers; keep it to loopback or a cluster-private network.
+     * @param port The port to listen on for peers; 0 picks a free one (see {@link #getPort()}).
+     * @param secret What every member says in its HELLO to prove it belongs; the same on all of them.
+     * @param localLoad How busy this node is, in rooms; shared with peers so they know where to put new ones.
+     */
+    public ClusterNode(String nodeId, String bindAddress, int port, String secret, int virtualNodes, Listener listener,
+                       IntSupplier localLoad) {
+        this.nodeId = nodeId;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = secret;
+        this.virtualNodes = virtualNodes;
+        this.listener = listener;
+        this.localLoad = localLoad;
+        this.ring = new ConsistentHashRing(List.of(nodeId), virtualNodes);
+    }
+
+    public void start() {
+        try {
+            server = new ServerSocket();
+            server.bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cluster node " + nodeId + " can't listen on " + bindAddress + ":" + port, e);
+        }
+        running = true;
+        Thread.ofPlatform().name("cluster-accept").daemon().start(this::acceptLoop);
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, 0, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("Cluster node {} listening on {}:{}", nodeId, bindAddress, getPort());
+    }
+
+    /**
+     * Adds a member to the ring, and to the nodes we'll take connections from. Membership is static for the life of
+     * the node; rooms in memory don't move.
+     */
+    public void addPeer(String peerId, String host, int peerPort) {
+        if (peerId.equals(nodeId)) {
+            return;
+        }
+        peers.computeIfAbsent(peerId, id -> new Peer(id, host, peerPort));
+        List<String> members = new ArrayList<>(peers.keySet());
+        members.add(nodeId);
+        ring = new ConsistentHashRing(members, virtualNodes);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getPort() {
+        ServerSocket socket = server;
+        return socket == null ? port : socket.getLocalPort();
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    public String ownerOf(String roomCode) {
+        return ring.ownerOf(roomCode);
+    }
+
+    public boolean isLocal(String roomCode) {
+        return nodeId.equals(ring.ownerOf(roomCode));
+    }
+
+    /**
+     * Where a new room should go: whichever live node reported the fewest rooms, this one included.
+     * Choosing a peer counts a room against it straight away, so a burst of creates between two heartbeats
+     * doesn't pile onto the same node.
+     */
+    public String leastLoadedNode() {
+        String best = nodeId;
+        int bestLoad = localLoad.getAsInt();
+        for (Peer peer : peers.values()) {
+            if (!peer.isAlive()) {
+                continue;
+            }
+            int load = peer.load;
+            if (load < bestLoad || (load == bestLoad && peer.id.compareTo(best) < 0)) {
+                best = peer.id;
+                bestLoad = load;
+            }
+        }
+        Peer chosen = peers.get(best);
+        if (chosen != null) {
+            chosen.load++;
+        }
+        return best;
+    }
+
+    /**
+     * Hands a client's frame to the node that owns its room.
+     * @return false if that node is known to be down, in which case nothing was sent.
+     */
+    public boolean forwardAction(String toNode, String sessionId, String destination, byte[] payload) {
+        return send(toNode, ACTION, out -> {
+            out.writeUTF(sessionId);
+            out.writeUTF(destination);
+            writeBytes(out, payload);
+        });
+    }
+
+    public void publish(String toNode, String roomCode, byte[] frame) {
+        send(toNode, PUBLISH, out -> {
+            out.writeUTF(roomCode);
+            writeBytes(out, frame);
+        });
+    }
+
+    public void sendToSession(String toNode, String sessionId, String destination, byte[] frame) {
+        send(toNode, USER, out -> {
+            out.writeUTF(sessionId);
+            out.writeUTF(destination);
+            writeBytes(out, frame);
+        });
+    }
+
+    public void subscribed(String toNode, String roomCode, String sessionId) {
+        send(toNode, SUBSCRIBED, out -> {
+            out.writeUTF(roomCode);
+            out.writeUTF(sessionId);
+        });
+    }
+
+    public void roomClosed(String toNode, String roomCode) {
+        send(toNode, ROOM_CLOSED, out -> out.writeUTF(roomCode));
+    }
+
+    public void sessionClosed(String toNode, String sessionId) {
+        send(toNode, SESSION_CLOSED, out -> out.writeUTF(sessionId));
+    }
+
+    public NodeStats getStats() {
+        List<PeerStats> peerStats = new ArrayList<>();
+        for (Peer peer : peers.values()) {
+            peerStats.add(new PeerStats(peer.id, peer.host + ":" + peer.port, peer.isAlive(), peer.load));
+        }
+        return new NodeStats(nodeId, getPort(), localLoad.getAsInt(), ring.getNodes(), peerStats,
+                framesSent.sum(), framesReceived.sum(), framesDropped.sum());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        heartbeat.shutdownNow();
+        closeQuietly(server);
+        inbound.forEach(ClusterNode::closeQuietly);
+        peers.values().forEach(Peer::close);
+        readers.shutdownNow();
+    }
+
+    private boolean send(String toNode, byte type, FrameBody body) {
+        Peer peer = peers.get(toNode);
+        if (peer == null || peer.isDown()) {
+            framesDropped.increment();
+            return false;
+        }
+        peer.enqueue(encode(type, body));
+        return true;
+    }
+
+    private void sendHeartbeats() {
+        int load = localLoad.getAsInt();
+        for (Peer peer : peers.values()) {
+            // A peer that went quiet gets knocked on again once its retry delay is up
+            if (!peer.isDown() || peer.retryDue()) {
+                peer.enqueue(encode(HEARTBEAT, out -> out.writeInt(load)));
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                inbound.add(socket);
+                readers.execute(() -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster node {} failed to accept a peer connection", nodeId, e);
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String fromNode = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (running) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Frame of " + length + " bytes from " + fromNode);
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                framesReceived.increment();
+                DataInputStream body = new DataInputStream(new ByteArrayInputStream(frame, 1, length - 1));
+                if (fromNode != null) {
+                    dispatch(fromNode, frame[0], body);
+                } else if (frame[0] == HELLO) {
+                    fromNode = hello(body, socket);
+                } else {
+                    throw new IOException("Peer spoke before saying HELLO");
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.debug("Cluster connection from {} closed: {}", fromNode, e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+            // Only the peer's current connection speaks for it; an older one closing late changes nothing
+            if (fromNode != null && inboundFrom.remove(fromNode, socket) && running) {
+                listener.onPeerDisconnected(fromNode);
+            }
+        }
+    }
+
+    /**
+     * Checks who's calling before anything they say is listened to.
+     * @return The peer's node id.
+     * @throws IOException If it isn't a configured peer, or doesn't know the secret; the connection is dropped.
+     */
+    private String hello(DataInputStream in, Socket socket) throws IOException {
+        String peerId = in.readUTF();
+        String offered = in.readUTF();
+        if (!peers.containsKey(peerId)) {
+            log.warn("Turned away a cluster connection from {} claiming to be unknown node {}",
+                    socket.getRemoteSocketAddress(), peerId);
+            throw new IOException("Node " + peerId + " isn't one of our peers");
+        }
+        byte[] expected = secret.getBytes(StandardCharsets.UTF_8);
+        // Compared in constant time, so how long a wrong guess takes to fail gives nothing away
+        if (!MessageDigest.isEqual(expected, offered.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Turned away a cluster connection from {} claiming to be {} with the wrong secret",
+                    socket.getRemoteSocketAddress(), peerId);
+            throw new IOException("Node " + peerId + " got the cluster secret wrong");
+        }
+        closeQuietly(inboundFrom.put(peerId, socket)); // It reconnected; the old connection is done for
+        return peerId;
+    }
+
+    private void dispatch(String fromNode, byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case HEARTBEAT -> {
+                Peer peer = peers.get(fromNode);
+                if (peer != null) {
+                    peer.heardFrom(in.readInt());
+                }
+            }
+            case ACTION -> listener.onAction(fromNode, in.readUTF(), in.readUTF(), readBytes(in));
+            case PUBLISH -> listener.onPublish(in.readUTF(), readBytes(in));
+            case USER -> listener.onUserMessage(in.readUTF(), in.readUTF(), readBytes(in));
+            case SUBSCRIBED -> listener.onSubscribed(fromNode, in.readUTF(), in.readUTF());
+            case ROOM_CLOSED -> listener.onRoomClosed(in.readUTF());
+            case SESSION_CLOSED -> listener.onSessionClosed(fromNode, in.readUTF());
+            default -> log.warn("Ignoring cluster frame of unknown type {} from {}", type, fromNode);
+        }
+    }
+
+    private static byte[] encode(byte type, FrameBody body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // Length, filled in below
+            out.writeByte(type);
+            body.write(out);
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - 4;
+            frame[0] = (byte) (length >>> 24);
+            frame[1] = (byte) (length >>> 16);
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+            return frame;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A ByteArrayOutputStream doesn't really throw
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Already on its way out
+        }
+    }
+
+    @FunctionalInterface
+    private interface FrameBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Our side of the connection to one peer: a lazily (re)opened socket and a single-threaded outbox feeding it.
+     */
+    private final class Peer {
+        final String id;
+        final String host;
+        final int port;
+        final ExecutorService outbox;
+        volatile int load;
+        volatile long lastHeard;
+        volatile long downUntil;
+        private Socket socket;
+        private DataOutputStream out;
+
+        Peer(String id, String host, int port) {
+            this.id = id;
+            this.host = host;
+            this.port = port;
+            this.outbox = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("cluster-out-" + id).factory());
+        }
+
+        void enqueue(byte[] frame) {
+            try {
+                outbox.execute(() -> write(frame));
+            } catch (RejectedExecutionException e) {
+                framesDropped.increment(); // Shutting down
+            }
+        }
+
+        void heardFrom(int reportedLoad) {
+            load = reportedLoad;
+            lastHeard = System.currentTimeMillis();
+            downUntil = 0;
+        }
+
+        boolean isAlive() {
+            return !isDown() && System.currentTimeMillis() - lastHeard < PEER_TIMEOUT_MILLIS;
+        }
+
+        boolean isDown() {
+            return downUntil != 0;
+        }
+
+        boolean retryDue() {
+            return downUntil != 0 && System.currentTimeMillis() >= downUntil;
+        }
+
+        private void write(byte[] frame) {
+            try {
+                if (out == null) {
+                    connect();
+                }
+                out.write(frame);
+                out.flush();
+                framesSent.increment();
+                if (downUntil != 0) {
+                    downUntil = 0;
+                }
+            } catch (IOException e) {
+                framesDropped.increment();
+                if (downUntil == 0) {
+                    log.warn("Lost cluster peer {} at {}:{}: {}", id, host, port, e.getMessage());
+                }
+                downUntil = System.currentTimeMillis() + RETRY_MILLIS;
+                disconnect();
+            }
+        }
+
+        private void connect() throws IOException {
+            Socket s = new Socket();
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket = s;
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.write(encode(HELLO, o -> {
+                o.writeUTF(nodeId);
+                o.writeUTF(secret);
+            }));
+        }
+
+        private void disconnect() {
+            closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+
+        void close() {
+            outbox.shutdownNow();
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * A node's view of the cluster: who's in the ring, who's answering, and how busy they say they are.
+     */
+    public record NodeStats(String nodeId, int port, int rooms, Collection<String> ring, List<PeerStats> peers,
+                            long framesSent, long framesReceived, long framesDropped) {
+    }
+
+    public record PeerStats(String nodeId, String address, boolean alive, int rooms) {
+    }
+}
@@ -0,0 +1,361 @@
+package com.cardi.cardi.cluster;
+
+import com.cardi.cardi.services.GameEventService;
+import com.cardi.cardi.services.RoomBroker;
+import com.cardi.cardi.services.RoomService;
+import com.cardi.cardi.services.SessionRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads rooms over several Cardi servers. Room codes hash onto a {@link ConsistentHashRing}; the node a code
+ * lands on owns the room, holds it in memory, and runs every action on it. Players can connect to any node:
+ * <ul>
+ *     <li>a STOMP frame for a room owned elsewhere is forwarded, untouched, to the owner, which feeds it to its own
+ *     {@code @MessageMapping} methods as if the player were connected locally;</li>
+ *     <li>the owner sends that player's private messages back to the node holding their session, and forwards
+ *     room broadcasts to every node with someone subscribed to the room;</li>
+ *     <li>{@code room.create} goes to whichever node is least busy, which picks a code that hashes to itself.</li>
+ * </ul>
+ * Nodes only take connections from the peers in {@code cardi.cluster.peers}, and only if they know
+ * {@code cardi.cluster.secret}. With {@code cardi.cluster.enabled=false} (the default) every room is local and none
+ * of this does anything.
+ */
+@Component
+public class ClusterService implements ChannelInterceptor, ClusterNode.Listener {
+
+    static final String FORWARDED_FROM = "cardiForwardedFrom";
+    private static final String APP_PREFIX = "/app/";
+    private static final String CREATE_DESTINATION = "/app/room.create";
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final String bindAddress;
+    private final int port;
+    private final String secret;
+    private final String peersConfig;
+    private final int virtualNodes;
+    private final GameEventService gameEventService;
+    private final RoomService roomService;
+    private final RoomBroker roomBroker;
+    private final SessionRegistry sessionRegistry;
+    private final ObjectProvider<MessageChannel> clientInboundChannelProvider;
+    private final ObjectMapper objectMapper;
+    private ClusterNode node;
+
+    // On the owner: which node each remote player's session lives on, and who's watching each room from afar
+    private final Map<String, String> remoteSessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> remoteAudiences = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> remoteSessionAttributes = new ConcurrentHashMap<>();
+    private final Map<String, MessageChannel> remoteSessionChannels = new ConcurrentHashMap<>();
+    // On the player's node: which owners have heard of each local session, to tell them when it goes
+    private final Map<String, Set<String>> forwardedSessions = new ConcurrentHashMap<>();
+
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    public ClusterService(@Value("${cardi.cluster.enabled:false}") boolean enabled,
+                          @Value("${cardi.cluster.node-id:node-1}") String nodeId,
+                          @Value("${cardi.cluster.bind-address:127.0.0.1}") String bindAddress,
+                          @Value("${cardi.cluster.port:9401}") int port,
+                          @Value("${cardi.cluster.secret:}") String secret,
+                          @Value("${cardi.cluster.peers:}") String peersConfig,
+                          @Value("${cardi.cluster.virtual-nodes:128}") int virtualNodes,
+                          @Lazy GameEventService gameEventService,
+                          @Lazy RoomService roomService,
+                          RoomBroker roomBroker,
+                          SessionRegistry sessionRegistry,
+                          @Qualifier("clientInboundChannel") ObjectProvider<MessageChannel> clientInboundChannelProvider,
+                          ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = secret;
+        this.peersConfig = peersConfig;
+        this.virtualNodes = virtualNodes;
+        this.gameEventService = gameEventService;
+        this.roomService = roomService;
+        this.roomBroker = roomBroker;
+        this.sessionRegistry = sessionRegistry;
+        this.clientInboundChannelProvider = clientInboundChannelProvider;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (secret.isBlank()) {
+            // Without one, anybody who can reach the port could play any room as anybody
+            throw new IllegalStateException("cardi.cluster.secret must be set when cardi.cluster.enabled=true");
+        }
+        node = new ClusterNode(nodeId, bindAddress, port, secret, virtualNodes, this, roomService::getRoomCount);
+        // Peers are listed as id@host:port, comma separated
+        for (String peer : peersConfig.split(",")) {
+            String trimmed = peer.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int at = trimmed.indexOf('@');
+            int colon = trimmed.lastIndexOf(':');
+            if (at <= 0 || colon < at) {
+                throw new IllegalArgumentException("Cluster peer '" + trimmed + "' should look like id@host:port");
+            }
+            node.addPeer(trimmed.substring(0, at), trimmed.substring(at + 1, colon),
+                    Integer.parseInt(trimmed.substring(colon + 1)));
+        }
+        node.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (node != null) {
+            node.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether this node is the one that holds the room (always true outside cluster mode).
+     */
+    public boolean owns(String roomCode) {
+        return node == null || node.isLocal(roomCode);
+    }
+
+    /**
+     * @return The node that holds the room.
+     */
+    public String ownerOf(String roomCode) {
+        return node == null ? nodeId : node.ownerOf(roomCode);
+    }
+
+    /**
+     * Catches application frames on their way in and sends the ones for somebody else's rooms to that somebody.
+     * Returning null stops the frame here; the owner will deal with it.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (node == null || message.getHeaders().containsKey(FORWARDED_FROM)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || destination == null
+                || !destination.startsWith(APP_PREFIX) || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String target;
+        if (CREATE_DESTINATION.equals(destination)) {
+            target = node.leastLoadedNode();
+        } else {
+            String roomCode = roomCodeOf(payload);
+            target = roomCode == null ? null : node.ownerOf(roomCode);
+        }
+        if (target == null || target.equals(nodeId)) {
+            return message;
+        }
+        String sessionId = accessor.getSessionId();
+        if (node.forwardAction(target, sessionId, destination, payload)) {
+            forwarded.increment();
+            forwardedSessions.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(target);
+        } else {
+            gameEventService.sendErrorToPlayer(sessionId, "That room's server isn't answering. Try again in a moment.");
+        }
+        return null;
+    }
+
+    /**
+     * Sends a private message to a session connected to another node, if it is one.
+     * @return false if the session is ours (or unknown), and the caller should deliver it locally.
+     */
+    public boolean relayToSession(String sessionId, String destination, byte[] frame) {
+        String home = node == null || sessionId == null ? null : remoteSessions.get(sessionId);
+        if (home == null) {
+            return false;
+        }
+        node.sendToSession(home, sessionId, destination, frame);
+        return true;
+    }
+
+    /**
+     * Passes a room broadcast on to every other node with someone watching the room.
+     */
+    public void publish(String roomCode, byte[] frame) {
+        Set<String> audience = node == null ? null : remoteAudiences.get(roomCode);
+        if (audience != null) {
+            for (String member : audience) {
+                node.publish(member, roomCode, frame);
+            }
+        }
+    }
+
+    /**
+     * Tells the nodes watching a closed room to stop, and forgets they were.
+     */
+    public void roomClosed(String roomCode) {
+        Set<String> audience = node == null ? null : remoteAudiences.remove(roomCode);
+        if (audience != null) {
+            for (String member : audience) {
+                node.roomClosed(member, roomCode);
+            }
+        }
+    }
+
+    /**
+     * A local player subscribed to a room that lives elsewhere: ask the owner to send its broadcasts our way.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent subscribeEvent) {
+        if (node == null) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(subscribeEvent.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(RoomBroker.GAME_TOPIC)) {
+            return;
+        }
+        String roomCode = destination.substring(RoomBroker.GAME_TOPIC.length());
+        String owner = node.ownerOf(roomCode);
+        if (!nodeId.equals(owner)) {
+            forwardedSessions.computeIfAbsent(accessor.getSessionId(), id -> ConcurrentHashMap.newKeySet()).add(owner);
+            node.subscribed(owner, roomCode, accessor.getSessionId());
+        }
+    }
+
+    /**
+     * A local player left: every owner we introduced them to can forget them too.
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent disconnectEvent) {
+        Set<String> owners = node == null ? null : forwardedSessions.remove(disconnectEvent.getSessionId());
+        if (owners != null) {
+            for (String owner : owners) {
+                node.sessionClosed(owner, disconnectEvent.getSessionId());
+            }
+        }
+    }
+
+    @Override
+    public void onAction(String fromNode, String sessionId, String destination, byte[] payload) {
+        received.increment();
+        remoteSessions.put(sessionId, fromNode);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        headers.setSessionId(sessionId);
+        // @MessageMapping methods insist on session attributes, so remote sessions get a set of their own
+        headers.setSessionAttributes(remoteSessionAttributes.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()));
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setHeader(FORWARDED_FROM, fromNode);
+        headers.setLeaveMutable(true);
+        inboundChannelFor(sessionId).send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+
+    @Override
+    public void onPublish(String roomCode, byte[] frame) {
+        roomBroker.publish(roomCode, frame);
+    }
+
+    @Override
+    public void onUserMessage(String sessionId, String destination, byte[] frame) {
+        gameEventService.sendFrameToSession(sessionId, destination, frame);
+    }
+
+    @Override
+    public void onSubscribed(String fromNode, String roomCode, String sessionId) {
+        remoteSessions.put(sessionId, fromNode);
+        remoteAudiences.computeIfAbsent(roomCode, code -> ConcurrentHashMap.newKeySet()).add(fromNode);
+        gameEventService.subscribed(roomCode, sessionId);
+    }
+
+    @Override
+    public void onRoomClosed(String roomCode) {
+        roomBroker.roomClosed(roomCode);
+    }
+
+    @Override
+    public void onSessionClosed(String fromNode, String sessionId) {
+        remoteSessions.remove(sessionId, fromNode);
+        remoteSessionAttributes.remove(sessionId);
+        remoteSessionChannels.remove(sessionId);
+        sessionRegistry.disconnected(sessionId); // Their player sits in one of our rooms; mark them away
+    }
+
+    /**
+     * We can't reach the sessions a dropped peer was holding, and won't hear when they close, so they're all
+     * treated as closed now.
+     */
+    @Override
+    public void onPeerDisconnected(String peerId) {
+        for (Map.Entry<String, String> session : remoteSessions.entrySet()) {
+            if (peerId.equals(session.getValue())) {
+                onSessionClosed(peerId, session.getKey());
+            }
+        }
+    }
+
+    public ClusterStats getStats() {
+        return new ClusterStats(enabled, node == null ? null : node.getStats(), remoteSessions.size(),
+                remoteAudiences.size(), forwarded.sum(), received.sum());
+    }
+
+    /**
+     * Only the room code matters for routing, so that's all we dig out of the frame.
+     */
+    private String roomCodeOf(byte[] payload) {
+        try {
+            JsonNode roomCode = objectMapper.readTree(payload).get("roomCode");
+            return roomCode == null || !roomCode.isTextual() ? null : roomCode.asText();
+        } catch (IOException e) {
+            return null; // Let the local handler complain about it
+        }
+    }
+
+    /**
+     * Forwarded frames from one session are handled one after another, same as frames from a local one.
+     */
+    private MessageChannel inboundChannelFor(String sessionId) {
+        MessageChannel inbound = clientInboundChannelProvider.getObject();
+        if (!OrderedMessageChannelDecorator.supportsOrderedMessages(inbound)) {
+            return inbound;
+        }
+        return remoteSessionChannels.computeIfAbsent(sessionId,
+                id -> new OrderedMessageChannelDecorator(inbound, LogFactory.getLog(ClusterService.class)));
+    }
+
+    /**
+     * This node's corner of the cluster, and how much traffic it has passed along.
+     */
+    public record ClusterStats(boolean enabled, ClusterNode.NodeStats node, int remoteSessions, int watchedRooms,
+                               long forwarded, long received) {
+    }
+}
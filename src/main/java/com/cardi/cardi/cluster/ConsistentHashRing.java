@@ -0,0 +1,89 @@
+package com.cardi.cardi.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Decides which node owns which room. Every node is scattered around a 64-bit ring as a bunch of virtual points;
+ * a room belongs to the first point clockwise from the hash of its code. Adding or removing a node only moves
+ * the rooms that land next to its points, roughly 1/N of them, instead of reshuffling the lot.
+ * <p>
+ * Immutable: membership changes build a new ring.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodeIds));
+        int size = nodes.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] byIndex = new String[size];
+        Integer[] order = new Integer[size];
+        int i = 0;
+        for (String node : nodes) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hash(node + "#" + v);
+                byIndex[i] = node;
+                order[i] = i;
+                i++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(hashes[a], hashes[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int j = 0; j < size; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = byIndex[order[j]];
+        }
+    }
+
+    /**
+     * @return The node that owns the key, or null if the ring is empty.
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        long h = hash(key);
+        int low = 0;
+        int high = points.length - 1;
+        // First point at or after h, wrapping round to the start
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], h) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a, finished with a MurmurHash3 mix so that "ROOM01" and "ROOM02" end up nowhere near each other.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
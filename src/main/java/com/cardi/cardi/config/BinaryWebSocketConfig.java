@@ -0,0 +1,22 @@
+package com.cardi.cardi.config;
+
+import com.cardi.cardi.controller.BinaryGameHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private BinaryGameHandler binaryGameHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // A plain (no SockJS, no STOMP) endpoint speaking the compact binary protocol, alongside /ws
+        registry.addHandler(binaryGameHandler, "/ws-bin").setAllowedOriginPatterns("*");
+    }
+}
@@ -1,6 +1,12 @@
 package com.cardi.cardi.config;
 
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.services.RoomBroker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -9,6 +15,16 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Autowired
+    private RoomBroker roomBroker;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${cardi.threads.virtual:false}")
+    private boolean virtualThreads;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enables a simple in-memory broker for topics and user-specific queues
@@ -17,10 +33,33 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
         // Sets the prefix for user-specific destinations
         config.setUserDestinationPrefix("/user");
+        // Messages to one session leave in the order they were sent, not whenever a pool thread gets round to them
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // /topic/game/{roomCode} subscriptions are handled by the room broker, not the simple broker;
+        // in cluster mode, frames for rooms that live on another node are sent there instead of handled here
+        registration.interceptors(roomBroker, clusterService);
+        if (virtualThreads) {
+            // One cheap thread per inbound message, so a handler blocked on the database doesn't starve the pool
+            registration.executor(new VirtualThreadTaskExecutor("stomp-in-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            // A slow client's socket write parks a virtual thread instead of hogging a pool thread
+            registration.executor(new VirtualThreadTaskExecutor("stomp-out-"));
+        }
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        // Handle each session's frames in the order it sent them, however many threads are on the inbound channel
+        registry.setPreserveReceiveOrder(true);
     }
 }
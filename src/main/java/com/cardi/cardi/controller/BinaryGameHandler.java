@@ -0,0 +1,184 @@
+package com.cardi.cardi.controller;
+
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+import com.cardi.cardi.services.BinaryCodec;
+import com.cardi.cardi.services.BinarySessionGateway;
+import com.cardi.cardi.services.GameService;
+import com.cardi.cardi.services.RoomActionExecutor;
+import com.cardi.cardi.services.RoomService;
+import com.cardi.cardi.services.SessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The same game as {@link GameController}, for clients who'd rather speak in bytes than in JSON.
+ * Frames are decoded straight off the socket buffer into {@link GameService} calls; see {@link BinaryCodec}
+ * for the layout. A client must say HELLO (and agree on a version) before anything else.
+ */
+@Component
+public class BinaryGameHandler extends BinaryWebSocketHandler {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomActionExecutor roomActionExecutor;
+
+    @Autowired
+    private BinarySessionGateway binaryGateway;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        binaryGateway.open(session);
+        sessionRegistry.connected(session.getId());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        binaryGateway.close(session.getId());
+        sessionRegistry.disconnected(session.getId());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        String sessionId = session.getId();
+        ByteBuffer frame = message.getPayload();
+        try {
+            byte opcode = frame.get();
+            if (opcode == BinaryCodec.OP_HELLO) {
+                hello(session, frame);
+                return;
+            }
+            if (binaryGateway.getVersion(sessionId) == 0) {
+                binaryGateway.send(sessionId, BinaryCodec.error("Say HELLO first."));
+                session.close(CloseStatus.PROTOCOL_ERROR);
+                return;
+            }
+            dispatch(opcode, sessionId, frame);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            binaryGateway.send(sessionId, BinaryCodec.error("Malformed frame."));
+        }
+    }
+
+    private void hello(WebSocketSession session, ByteBuffer frame) throws Exception {
+        int version = BinaryCodec.negotiate(Byte.toUnsignedInt(frame.get()), Byte.toUnsignedInt(frame.get()));
+        if (version < 0) {
+            binaryGateway.send(session.getId(), BinaryCodec.error("Unsupported protocol version."));
+            session.close(CloseStatus.NOT_ACCEPTABLE);
+            return;
+        }
+        binaryGateway.setVersion(session.getId(), version);
+        binaryGateway.send(session.getId(), BinaryCodec.welcome(version, session.getId()));
+    }
+
+    private void dispatch(byte opcode, String sessionId, ByteBuffer frame) {
+        switch (opcode) {
+            case BinaryCodec.OP_CREATE -> roomService.createRoom(BinaryCodec.readString(frame), sessionId);
+            case BinaryCodec.OP_JOIN -> {
+                String roomCode = BinaryCodec.readString(frame);
+                String username = BinaryCodec.readString(frame);
+                if (elsewhere(sessionId, roomCode)) return;
+                roomActionExecutor.execute(roomCode, () -> roomService.joinRoom(roomCode, username, sessionId));
+            }
+            case BinaryCodec.OP_REJOIN -> {
+                String roomCode = BinaryCodec.readString(frame);
+                String playerId = BinaryCodec.readString(frame);
+                if (elsewhere(sessionId, roomCode)) return;
+                roomActionExecutor.execute(roomCode, () -> roomService.rejoinRoom(roomCode, playerId, sessionId));
+            }
+            case BinaryCodec.OP_START -> {
+                Long seed = frame.remaining() >= Long.BYTES ? frame.getLong() : null;
+                inRoom(sessionId, (roomCode, player) -> gameService.startGame(roomCode, seed));
+            }
+            case BinaryCodec.OP_PLAY -> {
+                Suit newSuit = BinaryCodec.readSuit(frame);
+                List<Card> cards = BinaryCodec.readCards(frame);
+                String chosenSuit = newSuit == null ? null : newSuit.getLabel();
+                inRoom(sessionId, (roomCode, player) ->
+                        gameService.playCards(roomCode, player.getId(), sessionId, cards, chosenSuit));
+            }
+            case BinaryCodec.OP_DRAW -> inRoom(sessionId, (roomCode, player) ->
+                    gameService.drawCard(roomCode, player.getId(), sessionId));
+            case BinaryCodec.OP_CALL_CARDI -> inRoom(sessionId, (roomCode, player) ->
+                    gameService.callCardi(roomCode, player.getId(), sessionId));
+            case BinaryCodec.OP_PASS -> inRoom(sessionId, (roomCode, player) ->
+                    gameService.passTurn(roomCode, player.getId(), sessionId));
+            case BinaryCodec.OP_ADD_BOT -> inRoom(sessionId, (roomCode, player) ->
+                    roomService.addBot(roomCode, sessionId));
+            case BinaryCodec.OP_TURN_TIMER -> {
+                int turnSeconds = Short.toUnsignedInt(frame.getShort());
+                inRoom(sessionId, (roomCode, player) -> roomService.setTurnTimer(roomCode, sessionId, turnSeconds));
+            }
+            case BinaryCodec.OP_RESYNC -> {
+                long version = frame.getLong();
+                String roomCode = binaryGateway.roomOf(sessionId);
+                if (roomCode == null) {
+                    binaryGateway.send(sessionId, BinaryCodec.error("Join a room first."));
+                    return;
+                }
+                roomActionExecutor.execute(roomCode, () -> gameService.resyncState(roomCode, sessionId, version));
+            }
+            default -> binaryGateway.send(sessionId, BinaryCodec.error("Unknown opcode " + Byte.toUnsignedInt(opcode) + "."));
+        }
+    }
+
+    /**
+     * Binary clients don't repeat their room and player id on every frame; we already know where they sit.
+     * The seat is looked up again on the room's own thread, so it sees the room exactly as the action will.
+     */
+    private void inRoom(String sessionId, SeatedAction action) {
+        SessionRegistry.Seat seat = sessionRegistry.seatOf(sessionId);
+        if (seat == null) {
+            binaryGateway.send(sessionId, BinaryCodec.error("Join a room first."));
+            return;
+        }
+        String roomCode = seat.roomCode();
+        roomActionExecutor.execute(roomCode, () -> {
+            SessionRegistry.Seat current = sessionRegistry.seatOf(sessionId);
+            GameRoom room = current == null || !roomCode.equals(current.roomCode()) ? null : roomService.getRoom(roomCode);
+            Player player = room == null ? null : room.getPlayerById(current.playerId());
+            if (player == null) {
+                binaryGateway.send(sessionId, BinaryCodec.error("You're not seated in that room."));
+                return;
+            }
+            action.run(roomCode, player);
+        });
+    }
+
+    /**
+     * Binary sessions aren't forwarded between cluster nodes; a binary client has to connect to the room's owner.
+     */
+    private boolean elsewhere(String sessionId, String roomCode) {
+        if (clusterService.owns(roomCode)) {
+            return false;
+        }
+        binaryGateway.send(sessionId, BinaryCodec.error("That room is hosted on " + clusterService.ownerOf(roomCode) + "."));
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface SeatedAction {
+        void run(String roomCode, Player player);
+    }
+}
@@ -2,6 +2,7 @@ package com.cardi.cardi.controller;
 
 import com.cardi.cardi.model.ActionMessage;
 import com.cardi.cardi.services.GameService;
+import com.cardi.cardi.services.RoomActionExecutor;
 import com.cardi.cardi.services.RoomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -18,6 +19,9 @@ public class GameController {
     @Autowired
     private RoomService roomService;
 
+    @Autowired
+    private RoomActionExecutor roomActionExecutor;
+
     /**
      * Kicks off the grand adventure! A player dares to create a new game room,
      * becoming the supreme overlord (for now).
@@ -35,7 +39,8 @@ public class GameController {
     @MessageMapping("/room.join")
     public void joinRoom(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        roomService.joinRoom(message.getRoomCode(), message.getUsername(), sessionId);
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> roomService.joinRoom(message.getRoomCode(), message.getUsername(), sessionId));
     }
 
     /**
@@ -45,7 +50,31 @@ public class GameController {
     @MessageMapping("/room.rejoin")
     public void rejoinRoom(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        roomService.rejoinRoom(message.getRoomCode(), message.getPlayerId(), sessionId);
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> roomService.rejoinRoom(message.getRoomCode(), message.getPlayerId(), sessionId));
+    }
+
+    /**
+     * The room owner, a few friends short, conjures up a bot to make up the numbers.
+     * It never gets bored and never complains about the shuffle.
+     */
+    @MessageMapping("/room.addBot")
+    public void addBot(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> roomService.addBot(message.getRoomCode(), sessionId));
+    }
+
+    /**
+     * The room owner sets a clock on every turn, so nobody can hold the table hostage by
+     * staring at their cards (or wandering off to make a sandwich).
+     */
+    @MessageMapping("/room.turnTimer")
+    public void setTurnTimer(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        int turnSeconds = message.getTurnSeconds() == null ? 0 : message.getTurnSeconds();
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> roomService.setTurnTimer(message.getRoomCode(), sessionId, turnSeconds));
     }
 
     /**
@@ -54,7 +83,8 @@ public class GameController {
      */
     @MessageMapping("/game.start")
     public void startGame(@Payload ActionMessage message) {
-        gameService.startGame(message.getRoomCode());
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> gameService.startGame(message.getRoomCode(), message.getSeed()));
     }
 
     /**
@@ -64,13 +94,13 @@ public class GameController {
     @MessageMapping("/game.play")
     public void playCard(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        gameService.playCards(
+        roomActionExecutor.execute(message.getRoomCode(), () -> gameService.playCards(
             message.getRoomCode(),
             message.getPlayerId(),
             sessionId,
             message.getCards(),
             message.getNewSuit()
-        );
+        ));
     }
 
     /**
@@ -80,7 +110,8 @@ public class GameController {
     @MessageMapping("/game.draw")
     public void drawCard(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        gameService.drawCard(message.getRoomCode(), message.getPlayerId(), sessionId);
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> gameService.drawCard(message.getRoomCode(), message.getPlayerId(), sessionId));
     }
 
     /**
@@ -90,7 +121,8 @@ public class GameController {
     @MessageMapping("/game.callCardi")
     public void callCardi(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        gameService.callCardi(message.getRoomCode(), message.getPlayerId(), sessionId);
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> gameService.callCardi(message.getRoomCode(), message.getPlayerId(), sessionId));
     }
 
     /**
@@ -100,6 +132,17 @@ public class GameController {
     @MessageMapping("/game.pass")
     public void passTurn(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
         String sessionId = headerAccessor.getSessionId();
-        gameService.passTurn(message.getRoomCode(), message.getPlayerId(), sessionId);
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> gameService.passTurn(message.getRoomCode(), message.getPlayerId(), sessionId));
+    }
+
+    /**
+     * A player noticed a hole in the version numbers and wants the full picture again.
+     */
+    @MessageMapping("/game.resync")
+    public void resync(@Payload ActionMessage message, SimpMessageHeaderAccessor headerAccessor) {
+        String sessionId = headerAccessor.getSessionId();
+        roomActionExecutor.execute(message.getRoomCode(),
+                () -> gameService.resyncState(message.getRoomCode(), sessionId, message.getVersion()));
     }
 }
@@ -0,0 +1,159 @@
+package com.cardi.cardi.controller;
+
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.journal.RoomJournal;
+import com.cardi.cardi.services.BinarySessionGateway;
+import com.cardi.cardi.services.BotService;
+import com.cardi.cardi.services.EncodedFrameCache;
+import com.cardi.cardi.services.GameEventService;
+import com.cardi.cardi.services.RoomActionExecutor;
+import com.cardi.cardi.services.RoomBroker;
+import com.cardi.cardi.services.RoomHibernator;
+import com.cardi.cardi.services.RoomReaper;
+import com.cardi.cardi.services.RoomService;
+import com.cardi.cardi.services.SessionRegistry;
+import com.cardi.cardi.services.TurnTimer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    @Autowired
+    private RoomActionExecutor roomActionExecutor;
+
+    @Autowired
+    private EncodedFrameCache encodedFrameCache;
+
+    @Autowired
+    private BinarySessionGateway binarySessionGateway;
+
+    @Autowired
+    private GameEventService gameEventService;
+
+    @Autowired
+    private RoomBroker roomBroker;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private RoomJournal roomJournal;
+
+    @Autowired
+    private RoomReaper roomReaper;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Autowired
+    private BotService botService;
+
+    @Autowired
+    private TurnTimer turnTimer;
+
+    /**
+     * Peeks under the hood of the room shards: how deep their queues are and how long actions take.
+     */
+    @GetMapping("/shards")
+    public List<RoomActionExecutor.ShardStats> shardStats() {
+        return roomActionExecutor.getShardStats();
+    }
+
+    /**
+     * How often we got to skip serializing a frame because we'd already done it.
+     */
+    @GetMapping("/frames")
+    public EncodedFrameCache.CacheStats frameStats() {
+        return encodedFrameCache.getStats();
+    }
+
+    /**
+     * Who's on the binary endpoint, and how many bytes we've thrown at them.
+     */
+    @GetMapping("/binary")
+    public BinarySessionGateway.GatewayStats binaryStats() {
+        return binarySessionGateway.getStats();
+    }
+
+    /**
+     * How many room broadcasts each action's single batched frame is carrying, on average.
+     */
+    @GetMapping("/batches")
+    public GameEventService.BatchStats batchStats() {
+        return gameEventService.getBatchStats();
+    }
+
+    /**
+     * How many rooms and subscriptions the game-topic broker is minding.
+     */
+    @GetMapping("/broker")
+    public RoomBroker.BrokerStats brokerStats() {
+        return roomBroker.getStats();
+    }
+
+    /**
+     * Which node this is, who its peers are, and how much it has forwarded to them.
+     */
+    @GetMapping("/cluster")
+    public ClusterService.ClusterStats clusterStats() {
+        return clusterService.getStats();
+    }
+
+    /**
+     * How much the journal has written, how many records each fsync carried, and how the snapshots are keeping
+     * it short (null when journaling is off).
+     */
+    @GetMapping("/journal")
+    public RoomJournal.Stats journalStats() {
+        return roomJournal.getStats();
+    }
+
+    /**
+     * How long rooms may sit idle, and how many the reaper has put to sleep or had to close.
+     */
+    @GetMapping("/reaper")
+    public RoomReaper.ReaperStats reaperStats() {
+        return roomReaper.getStats();
+    }
+
+    /**
+     * How many rooms are in memory versus hibernating off-heap, and how long it takes to wake one.
+     */
+    @GetMapping("/rooms")
+    public RoomHibernator.HibernationStats roomStats() {
+        return roomService.getHibernationStats();
+    }
+
+    /**
+     * How many sessions are connected and sitting at a table, and how often they drop or get replaced.
+     */
+    @GetMapping("/sessions")
+    public SessionRegistry.SessionStats sessionStats() {
+        return sessionRegistry.getStats();
+    }
+
+    /**
+     * How many moves the bots have made and how long they took to make up their minds.
+     */
+    @GetMapping("/bots")
+    public BotService.BotStats botStats() {
+        return botService.getStats();
+    }
+
+    /**
+     * How many rooms have a turn clock running, and how many turns ran out and were taken for somebody.
+     */
+    @GetMapping("/turns")
+    public TurnTimer.TimerStats turnStats() {
+        return turnTimer.getStats();
+    }
+}
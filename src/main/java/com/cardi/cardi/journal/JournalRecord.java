@@ -0,0 +1,155 @@
+package com.cardi.cardi.journal;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.Suit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One accepted action, as the journal remembers it: just enough to make it happen again.
+ * <p>
+ * On disk it's {@code [u8 type][str roomCode]} followed by whatever the type needs; strings are
+ * {@code [u16 length][UTF-8]} and cards are their one-byte ordinals. A typical play is a few dozen bytes.
+ * <pre>
+ * CREATED       i64 seed, str playerId, str username
+ * JOINED        str playerId, str username
+ * BOT_JOINED    str playerId, str username
+ * LEFT          str playerId
+ * STARTED       - (written by older versions only)
+ * STARTED_SEEDED  i64 seed the game was dealt from
+ * PLAYED        str playerId, u8 suit (0xFF = none), u8 n, n x u8 card
+ * DREW, CALLED_CARDI, PASSED   str playerId
+ * TURN_TIMER_SET  u16 seconds (0 = off)
+ * </pre>
+ */
+public record JournalRecord(Type type, String roomCode, String playerId, String username, long seed,
+                            int turnSeconds, List<Card> cards, Suit suit) {
+
+    private static final int NONE = 0xFF;
+
+    public enum Type {
+        CREATED, JOINED, LEFT, STARTED, PLAYED, DREW, CALLED_CARDI, PASSED, STARTED_SEEDED, BOT_JOINED, TURN_TIMER_SET
+    }
+
+    public static JournalRecord created(String roomCode, long seed, String playerId, String username) {
+        return new JournalRecord(Type.CREATED, roomCode, playerId, username, seed, 0, List.of(), null);
+    }
+
+    public static JournalRecord joined(String roomCode, String playerId, String username) {
+        return new JournalRecord(Type.JOINED, roomCode, playerId, username, 0, 0, List.of(), null);
+    }
+
+    public static JournalRecord botJoined(String roomCode, String playerId, String username) {
+        return new JournalRecord(Type.BOT_JOINED, roomCode, playerId, username, 0, 0, List.of(), null);
+    }
+
+    public static JournalRecord turnTimerSet(String roomCode, int turnSeconds) {
+        return new JournalRecord(Type.TURN_TIMER_SET, roomCode, null, null, 0, turnSeconds, List.of(), null);
+    }
+
+    public static JournalRecord started(String roomCode) {
+        return new JournalRecord(Type.STARTED, roomCode, null, null, 0, 0, List.of(), null);
+    }
+
+    public static JournalRecord started(String roomCode, long seed) {
+        return new JournalRecord(Type.STARTED_SEEDED, roomCode, null, null, seed, 0, List.of(), null);
+    }
+
+    public static JournalRecord played(String roomCode, String playerId, List<Card> cards, Suit suit) {
+        return new JournalRecord(Type.PLAYED, roomCode, playerId, null, 0, 0, cards, suit);
+    }
+
+    /**
+     * For LEFT, DREW, CALLED_CARDI and PASSED, which only need to know who.
+     */
+    public static JournalRecord byPlayer(Type type, String roomCode, String playerId) {
+        return new JournalRecord(type, roomCode, playerId, null, 0, 0, List.of(), null);
+    }
+
+    /**
+     * Writes the record into the buffer, which must have room for it (see {@link #maxSize()}).
+     */
+    public void encode(ByteBuffer out) {
+        out.put((byte) type.ordinal());
+        putString(out, roomCode);
+        switch (type) {
+            case CREATED -> {
+                out.putLong(seed);
+                putString(out, playerId);
+                putString(out, username);
+            }
+            case JOINED, BOT_JOINED -> {
+                putString(out, playerId);
+                putString(out, username);
+            }
+            case STARTED -> {
+            }
+            case STARTED_SEEDED -> out.putLong(seed);
+            case TURN_TIMER_SET -> out.putShort((short) turnSeconds);
+            case PLAYED -> {
+                putString(out, playerId);
+                out.put((byte) (suit == null ? NONE : suit.ordinal()));
+                out.put((byte) cards.size());
+                for (Card card : cards) {
+                    out.put((byte) card.getOrdinal());
+                }
+            }
+            default -> putString(out, playerId);
+        }
+    }
+
+    public static JournalRecord decode(ByteBuffer in) {
+        Type type = Type.values()[in.get()];
+        String roomCode = getString(in);
+        return switch (type) {
+            case CREATED -> {
+                long seed = in.getLong();
+                yield created(roomCode, seed, getString(in), getString(in));
+            }
+            case JOINED -> joined(roomCode, getString(in), getString(in));
+            case BOT_JOINED -> botJoined(roomCode, getString(in), getString(in));
+            case STARTED -> started(roomCode);
+            case STARTED_SEEDED -> started(roomCode, in.getLong());
+            case TURN_TIMER_SET -> turnTimerSet(roomCode, Short.toUnsignedInt(in.getShort()));
+            case PLAYED -> {
+                String playerId = getString(in);
+                int suit = Byte.toUnsignedInt(in.get());
+                int n = Byte.toUnsignedInt(in.get());
+                List<Card> cards = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    cards.add(Card.byOrdinal(Byte.toUnsignedInt(in.get())));
+                }
+                yield played(roomCode, playerId, cards, suit == NONE ? null : Suit.values()[suit]);
+            }
+            default -> byPlayer(type, roomCode, getString(in));
+        };
+    }
+
+    /**
+     * An upper bound on the encoded size, for sizing buffers.
+     */
+    public int maxSize() {
+        return 1 + 8 + 2 + cards.size() + stringSize(roomCode) + stringSize(playerId) + stringSize(username);
+    }
+
+    private static int stringSize(String value) {
+        return 2 + (value == null ? 0 : 3 * value.length()); // UTF-8 never needs more than 3 bytes per char
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.putShort((short) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,386 @@
+package com.cardi.cardi.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of opaque records, kept in fixed-size memory-mapped segment files
+ * ({@code journal-000001.log}, {@code journal-000002.log}, ...).
+ * <p>
+ * Each record is {@code [u32 length][u32 crc32c][payload]}. Appending is a copy into the mapped segment under a
+ * lock, which costs about as much as a {@code memcpy}. Durability is somebody else's job: a flusher thread wakes
+ * every few milliseconds and forces everything written since its last visit to disk in one go (group commit),
+ * so a thousand appends share one {@code fsync} instead of paying for one each. Callers that need to know their
+ * record is on disk can wait for it with {@link #awaitDurable(long)}.
+ * <p>
+ * Every record has a position: its segment number in the high 32 bits and the offset just past its end in the
+ * low 32. Positions only ever go up, across segments and restarts, so "everything up to position P" is a
+ * meaningful thing to say, and segments that are entirely behind everyone's P can be deleted.
+ * <p>
+ * A crash can leave a half-written record at the tail. Reading stops at the first record whose length or checksum
+ * doesn't add up, and appending carries on in a fresh segment.
+ */
+@Slf4j
+public class MappedJournal implements AutoCloseable {
+
+    static final String PREFIX = "journal-";
+    static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int LEFTOVER_WINDOW_BYTES = 64 * 1024; // Comfortably more than any record we write
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long syncIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private Segment current;
+    private int syncedOffset;
+    private long appendedPosition;
+    private volatile long durablePosition;
+    private volatile boolean open;
+    private final Thread flusher;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    /**
+     * Opens (or creates) the journal in a directory and gets ready to append after the last intact record.
+     * @param segmentBytes How big each segment file is; a record must fit in one.
+     * @param syncIntervalMillis How often the flusher forces new records to disk.
+     */
+    public MappedJournal(Path directory, int segmentBytes, long syncIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncIntervalMillis));
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = segmentFiles();
+            if (existing.isEmpty()) {
+                current = Segment.create(directory, 1, segmentBytes);
+            } else {
+                Path last = existing.get(existing.size() - 1);
+                current = Segment.open(last, indexOf(last));
+                current.position = scan(current.buffer, current.index, null);
+                if (current.hasLeftoversAt(current.position)) {
+                    // A torn record at the tail: leave it be (reading stops there anyway) and carry on in a fresh segment
+                    roll();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open the journal in " + directory, e);
+        }
+        syncedOffset = current.position;
+        appendedPosition = positionOf(current.index, current.position);
+        durablePosition = appendedPosition;
+        open = true;
+        flusher = Thread.ofPlatform().name("journal-flusher").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Copies a record into the journal.
+     * @return The record's position, to hand to {@link #awaitDurable(long)} if you must.
+     */
+    public long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length == 0 || HEADER_BYTES + length > segmentBytes) {
+            throw new IllegalArgumentException("A journal record must be between 1 and " + (segmentBytes - HEADER_BYTES) + " bytes");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        lock.lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("The journal is closed");
+            }
+            if (current.position + HEADER_BYTES + length > segmentBytes) {
+                roll();
+            }
+            MappedByteBuffer buffer = current.buffer;
+            int position = current.position;
+            buffer.put(position + HEADER_BYTES, payload, payload.position(), length);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putInt(position, length); // Written last: a record isn't there until its length is
+            current.position = position + HEADER_BYTES + length;
+            records.increment();
+            bytes.add(HEADER_BYTES + length);
+            appendedPosition = positionOf(current.index, current.position);
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record at the given position (and everything before it) has been forced to disk.
+     */
+    public void awaitDurable(long position) throws InterruptedException {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (syncMonitor) {
+            syncMonitor.notifyAll(); // Nudge the flusher rather than wait out its interval
+            while (durablePosition < position && open) {
+                syncMonitor.wait(1);
+            }
+        }
+    }
+
+    /**
+     * Hands every intact record, oldest first, to the reader along with its position.
+     * The buffer passed in is only valid during the call.
+     */
+    public void replay(ObjLongConsumer<ByteBuffer> reader) {
+        try {
+            for (Path file : segmentFiles()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), indexOf(file), reader);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the journal in " + directory, e);
+        }
+    }
+
+    /**
+     * @return The position just past the last record appended so far.
+     */
+    public long position() {
+        lock.lock();
+        try {
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int currentSegment() {
+        lock.lock();
+        try {
+            return current.index;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finishes the current segment early and carries on in a fresh one, so that everything appended from now on
+     * sits at a position beyond anything seen before.
+     */
+    public void startNewSegment() {
+        lock.lock();
+        try {
+            roll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every finished segment numbered below the given one. The segment being written to is never deleted.
+     * @return How many segments went.
+     */
+    public int deleteSegmentsBefore(int segment) {
+        int limit = Math.min(segment, currentSegment());
+        int deleted = 0;
+        try {
+            for (Path file : segmentFiles()) {
+                if (indexOf(file) < limit) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't delete old journal segments in {}", directory, e);
+        }
+        return deleted;
+    }
+
+    public static long positionOf(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    public static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public JournalStats getStats() {
+        long syncCount = syncs.sum();
+        long recordCount = records.sum();
+        int segments;
+        try {
+            segments = segmentFiles().size();
+        } catch (IOException e) {
+            segments = -1;
+        }
+        return new JournalStats(recordCount, bytes.sum(), syncCount,
+                syncCount == 0 ? 0.0 : (double) recordCount / syncCount, segments, current.index);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            current.buffer.force();
+            durablePosition = appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+        synchronized (syncMonitor) {
+            syncMonitor.notifyAll();
+        }
+        flusher.interrupt();
+    }
+
+    /**
+     * Walks a segment's records, stopping at the first gap or damage.
+     * @return Where the intact records end.
+     */
+    private static int scan(ByteBuffer segment, int index, ObjLongConsumer<ByteBuffer> reader) {
+        int position = 0;
+        int limit = segment.limit();
+        CRC32C crc = new CRC32C();
+        while (position + HEADER_BYTES <= limit) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > limit) {
+                break; // Past the end of what was written, or the length itself got mangled
+            }
+            ByteBuffer payload = segment.slice(position + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                log.warn("Journal record at offset {} is damaged; treating it as the end", position);
+                break;
+            }
+            position += HEADER_BYTES + length;
+            if (reader != null) {
+                reader.accept(payload.asReadOnlyBuffer(), positionOf(index, position));
+            }
+        }
+        return position;
+    }
+
+    private void roll() {
+        current.buffer.force(); // The old segment is finished; make sure all of it landed
+        try {
+            current = Segment.create(directory, current.index + 1, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't start a new journal segment in " + directory, e);
+        }
+        syncedOffset = 0;
+    }
+
+    private void flushLoop() {
+        while (open) {
+            synchronized (syncMonitor) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(syncMonitor, syncIntervalNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            long position;
+            lock.lock();
+            try {
+                if (!open || appendedPosition == durablePosition) {
+                    continue;
+                }
+                buffer = current.buffer;
+                from = syncedOffset;
+                to = current.position;
+                position = appendedPosition;
+                syncedOffset = to;
+            } finally {
+                lock.unlock();
+            }
+            // Appends carry on into the rest of the segment while we wait for the disk
+            if (to > from) {
+                buffer.force(from, to - from);
+            }
+            syncs.increment();
+            durablePosition = position;
+            synchronized (syncMonitor) {
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        final int index;
+        final MappedByteBuffer buffer;
+        int position;
+
+        private Segment(int index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, int index, int size) throws IOException {
+            Path file = directory.resolve(String.format("%s%06d%s", PREFIX, index, SUFFIX));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Mapping past the end grows the file; the new bytes read as zero, i.e. "nothing written yet"
+                return new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path file, int index) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+        }
+
+        boolean hasLeftoversAt(int offset) {
+            int end = Math.min(buffer.limit(), offset + LEFTOVER_WINDOW_BYTES);
+            for (int i = offset; i < end; i++) {
+                if (buffer.get(i) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * How much has been journaled, and how many records each trip to the disk carried on average.
+     */
+    public record JournalStats(long records, long bytes, long syncs, double recordsPerSync, int segments,
+                               int currentSegment) {
+    }
+}
@@ -0,0 +1,398 @@
+package com.cardi.cardi.journal;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Suit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The game's diary. Every action the engine accepts is written down here as a {@link JournalRecord}, so that
+ * after a crash or a restart {@code RoomService} can read the diary back and play every room forward to where
+ * it was. Rooms draw all their luck from a seed recorded when they're created, so replaying the same actions
+ * deals the same cards.
+ * <p>
+ * Reading back years of diary would get slow, so every {@code cardi.journal.snapshot-every} actions a room also
+ * has its picture taken (see {@link RoomSnapshotCodec}). The picture is taken on the room's thread, between
+ * actions, and written to disk in the background. On startup each room is restored from its latest picture and
+ * only the diary entries after it are replayed; segments of the diary that no live room needs any more are
+ * thrown away, so startup time follows the rooms that are alive rather than every game ever played.
+ * <p>
+ * With {@code cardi.journal.enabled=false} (the default) nothing is written and there is nothing to replay.
+ */
+@Slf4j
+@Component
+public class RoomJournal {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long syncIntervalMillis;
+    private final boolean waitForSync;
+    private final int snapshotEvery;
+    private MappedJournal journal;
+    private SnapshotStore snapshots;
+    private ExecutorService snapshotWriter;
+    private volatile boolean replaying;
+
+    // Actions journaled per room since its last snapshot
+    private final Map<String, Integer> actionsSinceSnapshot = new ConcurrentHashMap<>();
+    // Where each live room's history begins: its creation, or its latest snapshot that made it to disk
+    private final Map<String, Long> retainFrom = new ConcurrentHashMap<>();
+    // What the snapshots found at startup already account for, per room; only used while replaying
+    private final Map<String, Long> coveredBySnapshot = new HashMap<>();
+    private volatile Consumer<String> staleRoomHandler = roomCode -> { };
+    private volatile int lastSeenSegment;
+    private int oldestKeptSegment;
+    private int lastSweptSegment;
+
+    private final LongAdder snapshotsWritten = new LongAdder();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder segmentsDeleted = new LongAdder();
+
+    // Room threads encode into their own scratch buffer, then the journal copies it in under its lock
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+
+    public RoomJournal(@Value("${cardi.journal.enabled:false}") boolean enabled,
+                       @Value("${cardi.journal.directory:data/journal}") String directory,
+                       @Value("${cardi.journal.segment-mb:64}") int segmentMegabytes,
+                       @Value("${cardi.journal.sync-interval-ms:5}") long syncIntervalMillis,
+                       @Value("${cardi.journal.wait-for-sync:false}") boolean waitForSync,
+                       @Value("${cardi.journal.snapshot-every:200}") int snapshotEvery) {
+        this(enabled, Path.of(directory), segmentMegabytes * 1024 * 1024, syncIntervalMillis, waitForSync, snapshotEvery);
+    }
+
+    RoomJournal(boolean enabled, Path directory, int segmentBytes, long syncIntervalMillis, boolean waitForSync,
+                int snapshotEvery) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.waitForSync = waitForSync;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (enabled) {
+            journal = new MappedJournal(directory, segmentBytes, syncIntervalMillis);
+            snapshots = new SnapshotStore(directory.resolve("snapshots"));
+            snapshotWriter = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("journal-snapshots").daemon().factory());
+            lastSeenSegment = journal.currentSegment();
+            log.info("Journaling room actions to {}", directory.toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            snapshotWriter.shutdown();
+            try {
+                snapshotWriter.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void roomCreated(String roomCode, long seed, String playerId, String username) {
+        append(JournalRecord.created(roomCode, seed, playerId, username));
+    }
+
+    public void playerJoined(String roomCode, String playerId, String username) {
+        append(JournalRecord.joined(roomCode, playerId, username));
+    }
+
+    public void botJoined(String roomCode, String playerId, String username) {
+        append(JournalRecord.botJoined(roomCode, playerId, username));
+    }
+
+    public void playerLeft(String roomCode, String playerId) {
+        append(JournalRecord.byPlayer(JournalRecord.Type.LEFT, roomCode, playerId));
+    }
+
+    public void turnTimerSet(String roomCode, int turnSeconds) {
+        append(JournalRecord.turnTimerSet(roomCode, turnSeconds));
+    }
+
+    public void gameStarted(String roomCode, long seed) {
+        append(JournalRecord.started(roomCode, seed));
+    }
+
+    public void cardsPlayed(String roomCode, String playerId, List<Card> cards, String chosenSuit) {
+        append(JournalRecord.played(roomCode, playerId, cards, Suit.fromLabel(chosenSuit)));
+    }
+
+    public void cardDrawn(String roomCode, String playerId) {
+        append(JournalRecord.byPlayer(JournalRecord.Type.DREW, roomCode, playerId));
+    }
+
+    public void cardiCalled(String roomCode, String playerId) {
+        append(JournalRecord.byPlayer(JournalRecord.Type.CALLED_CARDI, roomCode, playerId));
+    }
+
+    public void turnPassed(String roomCode, String playerId) {
+        append(JournalRecord.byPlayer(JournalRecord.Type.PASSED, roomCode, playerId));
+    }
+
+    /**
+     * The room has closed for good: forget its history, and its picture.
+     */
+    public void roomClosed(String roomCode) {
+        if (journal == null) {
+            return;
+        }
+        actionsSinceSnapshot.remove(roomCode);
+        retainFrom.remove(roomCode);
+        snapshotWriter.execute(() -> {
+            try {
+                snapshots.delete(roomCode);
+            } catch (IOException e) {
+                log.warn("Couldn't delete the snapshot of closed room {}", roomCode, e);
+            }
+        });
+    }
+
+    /**
+     * @return True once the room has had enough actions since its last picture to deserve a new one.
+     */
+    public boolean isSnapshotDue(String roomCode) {
+        if (journal == null || snapshotEvery <= 0 || replaying) {
+            return false;
+        }
+        Integer actions = actionsSinceSnapshot.get(roomCode);
+        return actions != null && actions >= snapshotEvery;
+    }
+
+    /**
+     * Takes the room's picture and sends it off to be written in the background.
+     * Call it on the room's own thread, between actions, so the picture and the journal position agree.
+     */
+    public void snapshot(GameRoom room) {
+        if (journal == null) {
+            return;
+        }
+        snapshot(room.getRoomCode(), RoomSnapshotCodec.encode(room));
+    }
+
+    /**
+     * Same again, for a room that has already been encoded (a hibernating one, say).
+     * Call it on the room's own thread all the same.
+     */
+    public void snapshot(String roomCode, byte[] snapshot) {
+        if (journal == null) {
+            return;
+        }
+        long position = journal.position(); // Every action this room has taken so far is at or before here
+        actionsSinceSnapshot.put(roomCode, 0);
+        snapshotWriter.execute(() -> write(roomCode, position, snapshot));
+    }
+
+    /**
+     * Who to ask when a room's old history is holding up the clean-up. The handler should get that room to
+     * call {@link #snapshot(GameRoom)} on its own thread.
+     */
+    public void onStaleRoom(Consumer<String> handler) {
+        this.staleRoomHandler = handler;
+    }
+
+    /**
+     * Reads back every room's latest snapshot, to be put in place before {@link #replay} fills in the rest.
+     */
+    public List<GameRoom> loadSnapshots() {
+        List<GameRoom> rooms = new ArrayList<>();
+        if (journal == null) {
+            return rooms;
+        }
+        long end = journal.position();
+        for (SnapshotStore.StoredSnapshot stored : snapshots.loadAll()) {
+            if (stored.position() > end) {
+                // The machine went down before the journal's last pages reached the disk, but after this snapshot
+                // did. Move on to a fresh segment, or new records would land at positions the snapshot claims.
+                log.warn("Snapshot of room {} is ahead of the journal; starting a new segment", stored.roomCode());
+                journal.startNewSegment();
+                end = journal.position();
+            }
+            try {
+                GameRoom room = RoomSnapshotCodec.decode(stored.snapshot());
+                coveredBySnapshot.put(room.getRoomCode(), stored.position());
+                rooms.add(room);
+            } catch (RuntimeException e) {
+                log.warn("Snapshot of room {} can't be read; ignoring it", stored.roomCode(), e);
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Reads the diary back, oldest entry first, skipping whatever the snapshots from {@link #loadSnapshots()}
+     * already account for. Anything the replayed actions try to journal while this runs is ignored; it's already
+     * in there.
+     * @return How many records were replayed.
+     */
+    public long replay(Consumer<JournalRecord> action) {
+        if (journal == null) {
+            return 0;
+        }
+        long[] count = {0};
+        replaying = true;
+        try {
+            journal.replay((buffer, position) -> {
+                JournalRecord record = JournalRecord.decode(buffer);
+                Long covered = coveredBySnapshot.get(record.roomCode());
+                if (covered == null || position > covered) {
+                    action.accept(record);
+                    count[0]++;
+                }
+            });
+        } finally {
+            replaying = false;
+            coveredBySnapshot.clear();
+        }
+        return count[0];
+    }
+
+    /**
+     * Startup is done: takes a fresh picture of every room that made it, throws away pictures of rooms that
+     * didn't, and lets go of journal segments nobody needs any more, so next time is quicker still.
+     * Only call it before anyone can reach the rooms.
+     */
+    public void recovered(Collection<GameRoom> rooms) {
+        if (journal == null) {
+            return;
+        }
+        Set<String> live = new HashSet<>();
+        long position = journal.position();
+        for (GameRoom room : rooms) {
+            live.add(room.getRoomCode());
+            retainFrom.put(room.getRoomCode(), position);
+            snapshot(room);
+        }
+        snapshotWriter.execute(() -> {
+            for (SnapshotStore.StoredSnapshot stored : snapshots.loadAll()) {
+                if (!live.contains(stored.roomCode())) {
+                    try {
+                        snapshots.delete(stored.roomCode());
+                    } catch (IOException e) {
+                        log.warn("Couldn't delete the snapshot of closed room {}", stored.roomCode(), e);
+                    }
+                }
+            }
+            compact();
+        });
+    }
+
+    public Stats getStats() {
+        if (journal == null) {
+            return null;
+        }
+        return new Stats(journal.getStats(), snapshotsWritten.sum(), snapshotBytes.sum(), snapshots.count(),
+                segmentsDeleted.sum());
+    }
+
+    private void append(JournalRecord record) {
+        if (journal == null || replaying) {
+            return;
+        }
+        ByteBuffer buffer = scratch.get();
+        int needed = record.maxSize();
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocate(Math.max(needed, buffer.capacity() * 2));
+            scratch.set(buffer);
+        }
+        buffer.clear();
+        record.encode(buffer);
+        buffer.flip();
+        long position = journal.append(buffer);
+        String roomCode = record.roomCode();
+        if (record.type() == JournalRecord.Type.CREATED) {
+            retainFrom.put(roomCode, position);
+        }
+        if (snapshotEvery > 0) {
+            actionsSinceSnapshot.merge(roomCode, 1, Integer::sum);
+        }
+        int segment = MappedJournal.segmentOf(position);
+        if (segment != lastSeenSegment) {
+            lastSeenSegment = segment;
+            snapshotWriter.execute(this::compact);
+        }
+        if (waitForSync) {
+            try {
+                journal.awaitDurable(position);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs on the snapshot writer.
+     */
+    private void write(String roomCode, long position, byte[] snapshot) {
+        try {
+            snapshotBytes.add(snapshots.write(roomCode, position, snapshot));
+            snapshotsWritten.increment();
+            retainFrom.computeIfPresent(roomCode, (code, previous) -> position); // Unless it closed meanwhile
+        } catch (IOException e) {
+            log.warn("Couldn't write the snapshot of room {}", roomCode, e);
+        }
+        compact();
+    }
+
+    /**
+     * Deletes the segments that are older than every live room's history. If some rooms have sat quiet for so
+     * long that they're the only thing keeping old segments around, asks them (once per segment) for a fresh
+     * picture. Runs on the snapshot writer.
+     */
+    private void compact() {
+        int current = journal.currentSegment();
+        int oldest = current;
+        for (long position : retainFrom.values()) {
+            oldest = Math.min(oldest, MappedJournal.segmentOf(position));
+        }
+        if (oldest > oldestKeptSegment) {
+            segmentsDeleted.add(journal.deleteSegmentsBefore(oldest));
+            oldestKeptSegment = oldest;
+        }
+        if (oldest < current && current > lastSweptSegment) {
+            lastSweptSegment = current;
+            retainFrom.forEach((roomCode, position) -> {
+                if (MappedJournal.segmentOf(position) < current) {
+                    staleRoomHandler.accept(roomCode);
+                }
+            });
+        }
+    }
+
+    /**
+     * The journal's own numbers, plus how the snapshots are keeping it trim.
+     */
+    public record Stats(MappedJournal.JournalStats log, long snapshotsWritten, long snapshotBytes,
+                        int snapshotsOnDisk, long segmentsDeleted) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.cardi.cardi.journal;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.CardPile;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A whole room, squashed flat: every pile and hand as card ordinals, plus the handful of numbers and flags that
+ * say whose turn it is and what they owe. A six-player game mid-flight comes to a few hundred bytes, which is a
+ * lot cheaper to read back than the thousand actions that got it there.
+ * <pre>
+ * u8 format, str roomCode, str ownerId, i64 seed, i64 randomState, i64 version,
+ * u16 flags, u8 currentPlayerIndex, u16 drawPenalty, u8 activeSuit, i16 maxCardsAllowed (-1 = none),
+ * u16 turnSeconds (format 2 on), str lastPlayerIdToDraw,
+ * u8 n, n x u8 card (draw pile, bottom first), u8 n, n x u8 card (played pile, bottom first),
+ * u8 n, n x (str id, str username, u16 wins, u8 player flags, i64 hand mask, u8 jokers)
+ * </pre>
+ * Player flags are 1 for a Cardi! call and 2 for a bot; snapshots from before bots only ever wrote 0 or 1.
+ * Format 1 snapshots, from before turn timers, are still read; their rooms come back with the timer off. The
+ * running turn's deadline isn't kept: a room that comes back starts the current player's clock afresh.
+ * Strings are {@code [u16 length][UTF-8]}, as in {@link JournalRecord}; a missing suit is 0xFF.
+ */
+public final class RoomSnapshotCodec {
+
+    private static final int FORMAT = 2;
+    private static final int FORMAT_BEFORE_TURN_TIMERS = 1;
+    private static final int NONE = 0xFF;
+
+    private static final int REVERSED = 1;
+    private static final int STARTED = 1 << 1;
+    private static final int MATCH_SHAPE_FOR_COUNTER = 1 << 2;
+    private static final int RESTRICT_JK_COUNTERS = 1 << 3;
+    private static final int QUESTION_ACTIVE = 1 << 4;
+    private static final int SKIP_NEXT_TURN = 1 << 5;
+    private static final int PLAYER_HAS_TAKEN_ACTION = 1 << 6;
+
+    private static final int CALLED_CARDI = 1;
+    private static final int BOT = 1 << 1;
+
+    private RoomSnapshotCodec() {
+    }
+
+    /**
+     * Must run on the room's own thread, so the picture isn't taken halfway through somebody's turn.
+     */
+    public static byte[] encode(GameRoom room) {
+        List<Player> players = room.getPlayers();
+        ByteBuffer out = ByteBuffer.allocate(maxSize(room, players));
+        out.put((byte) FORMAT);
+        putString(out, room.getRoomCode());
+        putString(out, room.getRoomOwnerId());
+        out.putLong(room.getSeed());
+        out.putLong(room.getRandom().getState());
+        out.putLong(room.getVersion());
+        out.putShort((short) flags(room));
+        out.put((byte) room.getCurrentPlayerIndex());
+        out.putShort((short) room.getDrawPenalty());
+        out.put((byte) (room.getActiveSuit() == null ? NONE : room.getActiveSuit().ordinal()));
+        out.putShort((short) (room.getMaxCardsAllowed() == null ? -1 : room.getMaxCardsAllowed()));
+        out.putShort((short) room.getTurnSeconds());
+        putString(out, room.getLastPlayerIdToDraw());
+        putCards(out, room.getDrawPile());
+        putCards(out, room.getPlayedPile());
+        out.put((byte) players.size());
+        for (Player player : players) {
+            putString(out, player.getId());
+            putString(out, player.getUsername());
+            out.putShort((short) player.getWins());
+            out.put((byte) ((player.isHasCalledCardi() ? CALLED_CARDI : 0) | (player.isBot() ? BOT : 0)));
+            out.putLong(player.getHand().getMask() & Hand.STANDARD_MASK);
+            out.put((byte) player.getHand().getJokers());
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Builds the room back up. Everyone comes back disconnected; they'll pick up a session when they rejoin.
+     */
+    public static GameRoom decode(ByteBuffer in) {
+        int format = Byte.toUnsignedInt(in.get());
+        if (format != FORMAT && format != FORMAT_BEFORE_TURN_TIMERS) {
+            throw new IllegalArgumentException("Unknown room snapshot format " + format);
+        }
+        String roomCode = getString(in);
+        String ownerId = getString(in);
+        long seed = in.getLong();
+        GameRoom room = new GameRoom(roomCode, seed);
+        room.setRoomOwnerId(ownerId.isEmpty() ? null : ownerId);
+        room.getRandom().setState(in.getLong());
+        room.setVersion(in.getLong());
+        int flags = Short.toUnsignedInt(in.getShort());
+        room.setReversed((flags & REVERSED) != 0);
+        room.setStarted((flags & STARTED) != 0);
+        room.setMatchShapeForCounter((flags & MATCH_SHAPE_FOR_COUNTER) != 0);
+        room.setRestrictJKCounters((flags & RESTRICT_JK_COUNTERS) != 0);
+        room.setQuestionActive((flags & QUESTION_ACTIVE) != 0);
+        room.setSkipNextTurn((flags & SKIP_NEXT_TURN) != 0);
+        room.setPlayerHasTakenAction((flags & PLAYER_HAS_TAKEN_ACTION) != 0);
+        room.setCurrentPlayerIndex(Byte.toUnsignedInt(in.get()));
+        room.setDrawPenalty(Short.toUnsignedInt(in.getShort()));
+        int suit = Byte.toUnsignedInt(in.get());
+        room.setActiveSuit(suit == NONE ? null : Suit.values()[suit]);
+        short maxCards = in.getShort();
+        room.setMaxCardsAllowed(maxCards < 0 ? null : (int) maxCards);
+        if (format != FORMAT_BEFORE_TURN_TIMERS) {
+            room.setTurnSeconds(Short.toUnsignedInt(in.getShort()));
+        }
+        String lastToDraw = getString(in);
+        room.setLastPlayerIdToDraw(lastToDraw.isEmpty() ? null : lastToDraw);
+        getCards(in, room.getDrawPile());
+        getCards(in, room.getPlayedPile());
+        int playerCount = Byte.toUnsignedInt(in.get());
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player(getString(in), getString(in), null);
+            player.setWins(Short.toUnsignedInt(in.getShort()));
+            int playerFlags = in.get();
+            player.setHasCalledCardi((playerFlags & CALLED_CARDI) != 0);
+            player.setBot((playerFlags & BOT) != 0);
+            Hand hand = player.getHand();
+            for (long mask = in.getLong(); mask != 0; mask &= mask - 1) {
+                hand.add(Card.byOrdinal(Long.numberOfTrailingZeros(mask)));
+            }
+            for (int jokers = Byte.toUnsignedInt(in.get()); jokers > 0; jokers--) {
+                hand.add(Card.byOrdinal(Card.FIRST_JOKER));
+            }
+            room.addPlayer(player);
+        }
+        return room;
+    }
+
+    private static int flags(GameRoom room) {
+        int flags = 0;
+        if (room.isReversed()) flags |= REVERSED;
+        if (room.isStarted()) flags |= STARTED;
+        if (room.isMatchShapeForCounter()) flags |= MATCH_SHAPE_FOR_COUNTER;
+        if (room.isRestrictJKCounters()) flags |= RESTRICT_JK_COUNTERS;
+        if (room.isQuestionActive()) flags |= QUESTION_ACTIVE;
+        if (room.isSkipNextTurn()) flags |= SKIP_NEXT_TURN;
+        if (room.isPlayerHasTakenAction()) flags |= PLAYER_HAS_TAKEN_ACTION;
+        return flags;
+    }
+
+    private static int maxSize(GameRoom room, List<Player> players) {
+        int size = 64 + Card.DECK_SIZE * 2 + stringSize(room.getRoomCode()) + stringSize(room.getRoomOwnerId())
+                + stringSize(room.getLastPlayerIdToDraw());
+        for (Player player : players) {
+            size += 16 + stringSize(player.getId()) + stringSize(player.getUsername());
+        }
+        return size;
+    }
+
+    private static void putCards(ByteBuffer out, CardPile cards) {
+        out.put((byte) cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            out.put((byte) cards.ordinalAt(i));
+        }
+    }
+
+    private static void getCards(ByteBuffer in, CardPile into) {
+        int n = Byte.toUnsignedInt(in.get());
+        for (int i = 0; i < n; i++) {
+            into.push(Card.byOrdinal(Byte.toUnsignedInt(in.get())));
+        }
+    }
+
+    private static int stringSize(String value) {
+        return 2 + (value == null ? 0 : 3 * value.length());
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.putShort((short) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
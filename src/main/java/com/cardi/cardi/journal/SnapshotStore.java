@@ -0,0 +1,125 @@
+package com.cardi.cardi.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One file per live room holding its latest snapshot, {@code ROOMCODE.snap}:
+ * {@code [i64 journal position][u32 length][u32 crc32c][snapshot]}. The position says how far into the journal
+ * the snapshot already accounts for; only that room's records after it need replaying.
+ * <p>
+ * Files are written next door and renamed into place, so a crash leaves either the old snapshot or the new one,
+ * never half of each.
+ */
+@Slf4j
+class SnapshotStore {
+
+    private static final String SUFFIX = ".snap";
+    private static final int HEADER_BYTES = 16;
+
+    private final Path directory;
+
+    SnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open the snapshot directory " + directory, e);
+        }
+    }
+
+    /**
+     * @return How many bytes landed on disk.
+     */
+    int write(String roomCode, long position, byte[] snapshot) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(snapshot);
+        ByteBuffer file = ByteBuffer.allocate(HEADER_BYTES + snapshot.length)
+                .putLong(position)
+                .putInt(snapshot.length)
+                .putInt((int) crc.getValue())
+                .put(snapshot)
+                .flip();
+        Path target = fileFor(roomCode);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (file.hasRemaining()) {
+                channel.write(file);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return HEADER_BYTES + snapshot.length;
+    }
+
+    void delete(String roomCode) throws IOException {
+        Files.deleteIfExists(fileFor(roomCode));
+    }
+
+    /**
+     * Every intact snapshot on disk. A damaged one is logged and left out; its room will come back from whatever
+     * journal is still around, or not at all.
+     */
+    List<StoredSnapshot> loadAll() {
+        List<StoredSnapshot> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                StoredSnapshot snapshot = read(file);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read the snapshots in " + directory, e);
+        }
+        return snapshots;
+    }
+
+    int count() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).count();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static StoredSnapshot read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        String name = file.getFileName().toString();
+        String roomCode = name.substring(0, name.length() - SUFFIX.length());
+        if (in.remaining() >= HEADER_BYTES) {
+            long position = in.getLong();
+            int length = in.getInt();
+            int expected = in.getInt();
+            if (length == in.remaining()) {
+                CRC32C crc = new CRC32C();
+                crc.update(in.duplicate());
+                if ((int) crc.getValue() == expected) {
+                    return new StoredSnapshot(roomCode, position, in.slice());
+                }
+            }
+        }
+        log.warn("Snapshot of room {} is damaged; ignoring it", roomCode);
+        return null;
+    }
+
+    private Path fileFor(String roomCode) {
+        return directory.resolve(roomCode + SUFFIX);
+    }
+
+    record StoredSnapshot(String roomCode, long position, ByteBuffer snapshot) {
+    }
+}
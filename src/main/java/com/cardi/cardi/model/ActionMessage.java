@@ -16,4 +16,7 @@ public class ActionMessage {
     private String action; // e.g., "PLAY", "DRAW", "CALL_CARDI"
     private List<Card> cards;
     private String newSuit; // For Ace card
+    private Long version; // Last state version the client saw, for resync requests
+    private Long seed; // Optional seed to deal a new game from, when the server allows it (replays and debugging)
+    private Integer turnSeconds; // How long each turn may take, when the owner sets the turn timer; 0 = no limit
 }
\ No newline at end of file
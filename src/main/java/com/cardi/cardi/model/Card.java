@@ -1,21 +1,141 @@
 package com.cardi.cardi.model;
 
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-@Data
-@NoArgsConstructor
-@EqualsAndHashCode(of = "id")
-public class Card {
-    private final String id = UUID.randomUUID().toString();
-    private String suit;
-    private String value;
+/**
+ * A single playing card. There are exactly 54 of these in the whole universe (52 standard cards and two Jokers),
+ * created once and shared by every game, so comparing two cards is nothing more than comparing references.
+ */
+public final class Card {
 
-    public Card(String suit, String value) {
+    public static final int DECK_SIZE = 54;
+    public static final int STANDARD_CARDS = 52;
+    public static final int FIRST_JOKER = 52;
+
+    private static final Card[] CATALOGUE = new Card[DECK_SIZE];
+    private static final Map<String, Card> BY_ID = new HashMap<>();
+    private static final List<Card> DECK;
+
+    static {
+        for (Suit suit : Suit.STANDARD) {
+            for (Rank rank : Rank.STANDARD) {
+                int ordinal = suit.ordinal() * Rank.STANDARD.length + rank.ordinal();
+                CATALOGUE[ordinal] = new Card(ordinal, rank.getLabel() + suit.getSymbol(), suit, rank);
+            }
+        }
+        CATALOGUE[FIRST_JOKER] = new Card(FIRST_JOKER, "JK1", Suit.JOKER, Rank.JOKER);
+        CATALOGUE[FIRST_JOKER + 1] = new Card(FIRST_JOKER + 1, "JK2", Suit.JOKER, Rank.JOKER);
+        for (Card card : CATALOGUE) {
+            BY_ID.put(card.id, card);
+        }
+        DECK = Collections.unmodifiableList(Arrays.asList(CATALOGUE));
+    }
+
+    private final byte ordinal;
+    private final String id;
+    private final Suit suit;
+    private final Rank rank;
+
+    private Card(int ordinal, String id, Suit suit, Rank rank) {
+        this.ordinal = (byte) ordinal;
+        this.id = id;
         this.suit = suit;
-        this.value = value;
+        this.rank = rank;
+    }
+
+    /**
+     * @return All 54 cards in catalogue order. Handy for building a deck without building any cards.
+     */
+    public static List<Card> deck() {
+        return DECK;
+    }
+
+    public static Card byOrdinal(int ordinal) {
+        return CATALOGUE[ordinal];
+    }
+
+    public static Card byId(String id) {
+        return id == null ? null : BY_ID.get(id);
+    }
+
+    /**
+     * Looks up a card by its shape and number. Asking for a Joker always gets you the first one.
+     */
+    public static Card of(Suit suit, Rank rank) {
+        if (suit == null || rank == null) {
+            return null;
+        }
+        if (rank == Rank.JOKER || suit == Suit.JOKER) {
+            return rank == Rank.JOKER && suit == Suit.JOKER ? CATALOGUE[FIRST_JOKER] : null;
+        }
+        return CATALOGUE[suit.ordinal() * Rank.STANDARD.length + rank.ordinal()];
+    }
+
+    public static Card of(String suit, String value) {
+        return of(Suit.fromLabel(suit), Rank.fromLabel(value));
+    }
+
+    /**
+     * Turns whatever the client sent back into one of the canonical cards.
+     * The id wins if present; otherwise we go by suit and value.
+     */
+    @JsonCreator
+    public static Card fromJson(@JsonProperty("id") String id,
+                                @JsonProperty("suit") String suit,
+                                @JsonProperty("value") String value) {
+        Card card = byId(id);
+        if (card == null) {
+            card = of(suit, value);
+        }
+        if (card == null) {
+            throw new IllegalArgumentException("No such card: " + (id != null ? id : suit + "-" + value));
+        }
+        return card;
+    }
+
+    @JsonIgnore
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Suit getSuit() {
+        return suit;
+    }
+
+    @JsonProperty("value")
+    public Rank getRank() {
+        return rank;
+    }
+
+    @JsonIgnore
+    public boolean isJoker() {
+        return rank == Rank.JOKER;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return id;
     }
 }
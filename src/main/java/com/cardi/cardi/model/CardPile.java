@@ -0,0 +1,146 @@
+package com.cardi.cardi.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EmptyStackException;
+import java.util.RandomAccess;
+import java.util.random.RandomGenerator;
+
+/**
+ * A face-down (or face-up) stack of cards, kept as a row of card ordinals with the top at the end.
+ * A room only ever touches its piles from its own thread, so unlike {@link java.util.Stack} nothing here is
+ * synchronized, and since every {@link Card} is a catalogue singleton one byte per card is all it takes.
+ * <p>
+ * It reads like any other {@code List<Card>}, bottom card first, but only grows and shrinks at the top.
+ */
+public final class CardPile extends AbstractList<Card> implements RandomAccess {
+
+    private byte[] ordinals = new byte[Card.DECK_SIZE];
+    private int size;
+
+    public void push(Card card) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2); // Only if someone sneaks in a second deck
+        }
+        ordinals[size++] = (byte) card.getOrdinal();
+    }
+
+    /**
+     * @throws EmptyStackException If there's nothing left to take.
+     */
+    public Card pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return Card.byOrdinal(ordinals[--size]);
+    }
+
+    /**
+     * @throws EmptyStackException If there's nothing to look at.
+     */
+    public Card peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return Card.byOrdinal(ordinals[size - 1]);
+    }
+
+    /**
+     * Turns the cards under this pile's top card over into {@code into}, on top of whatever is there, and shuffles
+     * them where they lie. The top card stays put. Same swaps, in the same order, as
+     * {@link java.util.Collections#shuffle(java.util.List, RandomGenerator)}, so a given seed deals the same game
+     * as it always has; just without building a list to do it.
+     */
+    public void recycleInto(CardPile into, RandomGenerator random) {
+        if (size <= 1) {
+            return;
+        }
+        int moving = size - 1;
+        into.ensureCapacity(into.size + moving);
+        System.arraycopy(ordinals, 0, into.ordinals, into.size, moving);
+        ordinals[0] = ordinals[moving];
+        size = 1;
+
+        shuffle(into.ordinals, into.size, moving, random);
+        into.size += moving;
+    }
+
+    /**
+     * Replaces whatever is here with one of every card, in catalogue order.
+     */
+    public void fillWithDeck() {
+        ensureCapacity(Card.DECK_SIZE);
+        for (int ordinal = 0; ordinal < Card.DECK_SIZE; ordinal++) {
+            ordinals[ordinal] = (byte) ordinal;
+        }
+        size = Card.DECK_SIZE;
+    }
+
+    /**
+     * Shuffles the whole pile where it lies, with the same swaps as
+     * {@link java.util.Collections#shuffle(java.util.List, RandomGenerator)}.
+     */
+    public void shuffle(RandomGenerator random) {
+        shuffle(ordinals, 0, size, random);
+    }
+
+    /**
+     * @return The ordinal of the card at the given depth, counting from the bottom.
+     */
+    public int ordinalAt(int index) {
+        return ordinals[checkIndex(index)];
+    }
+
+    @Override
+    public Card get(int index) {
+        return Card.byOrdinal(ordinals[checkIndex(index)]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(Card card) {
+        push(card);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Card> cards) {
+        ensureCapacity(size + cards.size());
+        for (Card card : cards) {
+            ordinals[size++] = (byte) card.getOrdinal();
+        }
+        return !cards.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    private static void shuffle(byte[] cards, int from, int count, RandomGenerator random) {
+        for (int i = count; i > 1; i--) {
+            int j = from + random.nextInt(i);
+            byte swap = cards[from + i - 1];
+            cards[from + i - 1] = cards[j];
+            cards[j] = swap;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, Math.max(capacity, ordinals.length * 2));
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index;
+    }
+}
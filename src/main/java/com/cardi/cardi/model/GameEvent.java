@@ -34,6 +34,10 @@ public class GameEvent {
         GAME_WIN,
         ERROR,
         GAME_STATE_UPDATE,
-        ROOM_UPDATE
+        GAME_STATE_DELTA,
+        HAND_UPDATE,
+        ROOM_UPDATE,
+        BATCH,
+        PLAYER_DISCONNECTED
     }
 }
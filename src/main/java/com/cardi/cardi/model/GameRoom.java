@@ -1,18 +1,61 @@
 package com.cardi.cardi.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Stack;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Data
 public class GameRoom {
+    /**
+     * How many players fit around one table.
+     */
+    public static final int MAX_SEATS = 6;
+
     private String roomCode;
     private String roomOwnerId;
-    private List<Player> players = new CopyOnWriteArrayList<>();
-    private Stack<Card> drawPile = new Stack<>();
-    private Stack<Card> playedPile = new Stack<>();
+
+    // Players sit in a fixed row of seats, and an id -> seat index finds anyone without walking the row (as does a
+    // name index, for players who come back under the same name on a new connection). Seat numbers are what turns
+    // are counted in, so "is it their turn?" is an int compare. Like the rest of the room, only the room's own
+    // thread touches these.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Player[] seats = new Player[MAX_SEATS];
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int playerCount = 0;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<String, Integer> seatIndex = new HashMap<>(MAX_SEATS * 2);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<String, Player> nameIndex = new HashMap<>(MAX_SEATS * 2);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<Player> players = new SeatList();
+
+    @Setter(AccessLevel.NONE)
+    private final CardPile drawPile = new CardPile();
+    @Setter(AccessLevel.NONE)
+    private final CardPile playedPile = new CardPile();
     private int currentPlayerIndex = 0;
     private boolean isReversed = false;
     private boolean started = false;
@@ -21,28 +64,201 @@ public class GameRoom {
     private boolean matchShapeForCounter = false;
     private Integer maxCardsAllowed = null;
     private boolean restrictJKCounters = false;
+    private int turnSeconds = 0; // How long each turn may take before it's taken for you; 0 = as long as you like
 
     // Dynamic game state
     private int drawPenalty = 0;
     private boolean questionActive = false;
     private String lastPlayerIdToDraw;
-    private String activeSuit; // For Ace card
+    private Suit activeSuit; // For Ace card
     private boolean skipNextTurn = false;
     private boolean playerHasTakenAction = false;
+    // When the current turn runs out, in epoch millis. Zero until the turn timer starts the clock, which it does
+    // as soon as the action that handed over the turn is done; read by the timer's own thread, hence volatile.
+    private volatile long turnDeadline = 0;
+
+    // Bumped every time the room changes, so clients can spot gaps and cached frames know when they've gone stale
+    private long version = 0;
+
+    // When the room last changed, in epoch millis; the reaper naps or closes rooms that have sat still for too long
+    private volatile long lastActiveAt = System.currentTimeMillis();
+
+    // Every shuffle and coin toss in the room comes from here, so replaying its actions replays its luck too
+    @Setter(AccessLevel.NONE)
+    private long seed;
+    @Setter(AccessLevel.NONE)
+    private RoomRandom random;
+    // Where the room's luck stood when the current game was dealt; start a room from here and replay the same
+    // moves, and you get the same game
+    private long gameSeed;
 
     public GameRoom(String roomCode) {
+        this(roomCode, ThreadLocalRandom.current().nextLong());
+    }
+
+    public GameRoom(String roomCode, long seed) {
         this.roomCode = roomCode;
+        this.seed = seed;
+        this.random = new RoomRandom(seed);
     }
 
+    /**
+     * Sits the player down in the first free seat, at the end of the turn order.
+     * @throws IllegalStateException If the table is full.
+     */
     public void addPlayer(Player player) {
-        this.players.add(player);
+        if (isFull()) {
+            throw new IllegalStateException("Room " + roomCode + " is full");
+        }
+        seats[playerCount] = player;
+        seatIndex.put(player.getId(), playerCount);
+        if (player.getUsername() != null) {
+            nameIndex.putIfAbsent(nameKey(player.getUsername()), player);
+        }
+        playerCount++;
+    }
+
+    /**
+     * Stands the player up. Everyone after them shuffles one seat along, and the turn stays with whoever had it
+     * (or passes on, if it was the leaver's).
+     * @return The player who left, or null if they weren't here.
+     */
+    public Player removePlayer(String playerId) {
+        int seat = seatOf(playerId);
+        if (seat < 0) {
+            return null;
+        }
+        Player leaving = seats[seat];
+        seatIndex.remove(playerId);
+        for (int i = seat + 1; i < playerCount; i++) {
+            seats[i - 1] = seats[i];
+            seatIndex.put(seats[i].getId(), i - 1);
+        }
+        seats[--playerCount] = null;
+        if (leaving.getUsername() != null && nameIndex.remove(nameKey(leaving.getUsername()), leaving)) {
+            for (int i = 0; i < playerCount; i++) {
+                if (leaving.getUsername().equalsIgnoreCase(seats[i].getUsername())) {
+                    nameIndex.putIfAbsent(nameKey(seats[i].getUsername()), seats[i]); // A namesake moves up
+                }
+            }
+        }
+        if (seat == currentPlayerIndex) {
+            turnDeadline = 0; // Somebody new has the turn, and a fresh clock
+        }
+        if (seat < currentPlayerIndex) {
+            currentPlayerIndex--;
+        }
+        if (currentPlayerIndex >= playerCount) {
+            currentPlayerIndex = 0;
+        }
+        return leaving;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clearPlayers() {
+        Arrays.fill(seats, 0, playerCount, null);
+        seatIndex.clear();
+        nameIndex.clear();
+        playerCount = 0;
+        currentPlayerIndex = 0;
+    }
+
+    /**
+     * The players in seat order. A live, read-only view of the seats; nothing is copied.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public boolean isFull() {
+        return playerCount == MAX_SEATS;
+    }
+
+    /**
+     * @return The player's seat number, or -1 if they aren't at this table.
+     */
+    public int seatOf(String playerId) {
+        Integer seat = playerId == null ? null : seatIndex.get(playerId);
+        return seat == null ? -1 : seat;
     }
 
     public Player getPlayerById(String playerId) {
-        return this.players.stream()
-                .filter(p -> p.getId().equals(playerId))
-                .findFirst()
-                .orElse(null);
+        int seat = seatOf(playerId);
+        return seat < 0 ? null : seats[seat];
+    }
+
+    /**
+     * @return Whoever sat down first under that name, ignoring case, or null if nobody here goes by it.
+     */
+    public Player getPlayerByUsername(String username) {
+        return username == null ? null : nameIndex.get(nameKey(username));
+    }
+
+    private static String nameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    public Player getPlayerBySessionId(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (sessionId.equals(seats[seat].getSessionId())) {
+                return seats[seat];
+            }
+        }
+        return null;
+    }
+
+    public Player getCurrentPlayer() {
+        return playerCount == 0 ? null : seats[currentPlayerIndex];
+    }
+
+    /**
+     * @return True if it's this player's turn; a seat number compare, not a look at who they are.
+     */
+    public boolean isTurnOf(Player player) {
+        return player != null && playerCount > 0 && seatOf(player.getId()) == currentPlayerIndex;
+    }
+
+    /**
+     * @return The seat that many turns on from the current one, going whichever way play is going.
+     */
+    public int seatAfter(int turns) {
+        if (playerCount == 0) {
+            return 0;
+        }
+        int step = (isReversed ? -turns : turns) % playerCount;
+        return (currentPlayerIndex + step + playerCount) % playerCount;
+    }
+
+    /**
+     * @return How long the current player has left, or null if there's no game on or no turn timer.
+     *         A turn whose clock hasn't started yet has all of it left.
+     */
+    public Long turnMillisLeft(long nowMillis) {
+        if (!started || turnSeconds <= 0) {
+            return null;
+        }
+        return turnDeadline == 0 ? turnSeconds * 1000L : Math.max(0, turnDeadline - nowMillis);
+    }
+
+    public long nextVersion() {
+        touch();
+        return ++version;
+    }
+
+    /**
+     * Marks the room as in use right now. Every change to the room already does this via {@link #nextVersion()}.
+     */
+    public void touch() {
+        lastActiveAt = System.currentTimeMillis();
     }
 
     public Card getTopCard() {
@@ -51,4 +267,22 @@ public class GameRoom {
         }
         return playedPile.peek();
     }
+
+    /**
+     * The seats, as a list.
+     */
+    private final class SeatList extends AbstractList<Player> implements RandomAccess {
+        @Override
+        public Player get(int index) {
+            if (index < 0 || index >= playerCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return seats[index];
+        }
+
+        @Override
+        public int size() {
+            return playerCount;
+        }
+    }
 }
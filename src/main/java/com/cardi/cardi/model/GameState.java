@@ -12,7 +12,7 @@ import java.util.List;
 public class GameState {
     private String roomCode;
     private String roomOwnerId;
-    private List<Player> players;
+    private List<PlayerView> players; // Hand sizes only; the cards themselves travel privately
     private Card topCard;
     private int currentPlayerIndex;
     private boolean isReversed;
@@ -21,5 +21,31 @@ public class GameState {
     private int drawPenalty;
     private boolean playerHasTakenAction;
     private boolean questionActive;
-    private String activeSuit;
-}
\ No newline at end of file
+    private Suit activeSuit;
+    private long version;
+    private Long turnMillisLeft; // Until the current turn is played for them; null if the room has no turn timer
+
+    /**
+     * Takes a snapshot of everything a client needs to draw the table.
+     * @param room The room to photograph.
+     * @param message A caption for the photo.
+     */
+    public static GameState from(GameRoom room, String message) {
+        return new GameState(
+            room.getRoomCode(),
+            room.getRoomOwnerId(),
+            room.getPlayers().stream().map(PlayerView::from).toList(),
+            room.getTopCard(),
+            room.getCurrentPlayerIndex(),
+            room.isReversed(),
+            room.isStarted(),
+            message,
+            room.getDrawPenalty(),
+            room.isPlayerHasTakenAction(),
+            room.isQuestionActive(),
+            room.getActiveSuit(),
+            room.getVersion(),
+            room.turnMillisLeft(System.currentTimeMillis())
+        );
+    }
+}
@@ -0,0 +1,191 @@
+package com.cardi.cardi.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cards a player is clutching, squeezed into a single 64-bit mask.
+ * Bit {@code n} is set when the player holds the standard card with ordinal {@code n}; the two Jokers are
+ * interchangeable, so they are kept as a count instead and show up as {@link #JOKER_BIT} in face masks.
+ */
+public final class Hand {
+
+    /** Stands in for "at least one Joker" whenever a hand or a play is flattened into a mask. */
+    public static final long JOKER_BIT = 1L << Card.FIRST_JOKER;
+    public static final long STANDARD_MASK = JOKER_BIT - 1;
+
+    private static final long[] SUIT_MASKS = new long[Suit.values().length];
+    private static final long[] RANK_MASKS = new long[Rank.values().length];
+
+    static {
+        for (int ordinal = 0; ordinal < Card.STANDARD_CARDS; ordinal++) {
+            Card card = Card.byOrdinal(ordinal);
+            SUIT_MASKS[card.getSuit().ordinal()] |= 1L << ordinal;
+            RANK_MASKS[card.getRank().ordinal()] |= 1L << ordinal;
+        }
+        SUIT_MASKS[Suit.JOKER.ordinal()] = JOKER_BIT;
+        RANK_MASKS[Rank.JOKER.ordinal()] = JOKER_BIT;
+    }
+
+    private long cards;
+    private int jokers;
+
+    public Hand() {
+    }
+
+    @JsonCreator
+    public static Hand of(List<Card> cards) {
+        Hand hand = new Hand();
+        if (cards != null) {
+            cards.forEach(hand::add);
+        }
+        return hand;
+    }
+
+    /**
+     * @return Every card of the given suit, as a face mask.
+     */
+    public static long suitMask(Suit suit) {
+        return SUIT_MASKS[suit.ordinal()];
+    }
+
+    /**
+     * @return Every card of the given rank, as a face mask.
+     */
+    public static long rankMask(Rank rank) {
+        return RANK_MASKS[rank.ordinal()];
+    }
+
+    /**
+     * Flattens a handful of cards into a face mask without allocating anything.
+     */
+    public static long maskOf(List<Card> cards) {
+        long mask = 0;
+        for (Card card : cards) {
+            mask |= card.isJoker() ? JOKER_BIT : 1L << card.getOrdinal();
+        }
+        return mask;
+    }
+
+    public void add(Card card) {
+        if (card.isJoker()) {
+            jokers++;
+        } else {
+            cards |= 1L << card.getOrdinal();
+        }
+    }
+
+    public boolean contains(Card card) {
+        return card.isJoker() ? jokers > 0 : (cards & (1L << card.getOrdinal())) != 0;
+    }
+
+    /**
+     * Checks that every card in the list is really in this hand, counting duplicates.
+     * Playing the same Seven of Hearts twice is not a clever trick, it's a lie.
+     */
+    public boolean containsAll(List<Card> toCheck) {
+        long seen = 0;
+        int jokersNeeded = 0;
+        for (Card card : toCheck) {
+            if (card.isJoker()) {
+                jokersNeeded++;
+                continue;
+            }
+            long bit = 1L << card.getOrdinal();
+            if ((cards & bit) == 0 || (seen & bit) != 0) {
+                return false;
+            }
+            seen |= bit;
+        }
+        return jokersNeeded <= jokers;
+    }
+
+    /**
+     * Removes all of the given cards, or none of them if any is missing.
+     * @return True if the cards were removed.
+     */
+    public boolean removeAll(List<Card> toRemove) {
+        if (!containsAll(toRemove)) {
+            return false;
+        }
+        for (Card card : toRemove) {
+            if (card.isJoker()) {
+                jokers--;
+            } else {
+                cards &= ~(1L << card.getOrdinal());
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        cards = 0;
+        jokers = 0;
+    }
+
+    public int size() {
+        return Long.bitCount(cards) + jokers;
+    }
+
+    public boolean isEmpty() {
+        return cards == 0 && jokers == 0;
+    }
+
+    /**
+     * @return The standard cards as bits, plus {@link #JOKER_BIT} if any Joker is held.
+     */
+    public long getMask() {
+        return jokers > 0 ? cards | JOKER_BIT : cards;
+    }
+
+    public int getJokers() {
+        return jokers;
+    }
+
+    /**
+     * @return The held cards of the given suit, as a face mask.
+     */
+    public long cardsOfSuit(Suit suit) {
+        return getMask() & SUIT_MASKS[suit.ordinal()];
+    }
+
+    /**
+     * @return The held cards of the given rank, as a face mask.
+     */
+    public long cardsOfRank(Rank rank) {
+        return getMask() & RANK_MASKS[rank.ordinal()];
+    }
+
+    /**
+     * Spells the hand out card by card, in catalogue order, for anyone who can't read bits.
+     */
+    @JsonValue
+    public List<Card> toList() {
+        List<Card> list = new ArrayList<>(size());
+        for (long remaining = cards; remaining != 0; remaining &= remaining - 1) {
+            list.add(Card.byOrdinal(Long.numberOfTrailingZeros(remaining)));
+        }
+        for (int i = 0; i < jokers; i++) {
+            list.add(Card.byOrdinal(Card.FIRST_JOKER + Math.min(i, 1)));
+        }
+        return list;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Hand other && other.cards == cards && other.jokers == jokers;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cards) * 31 + jokers;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
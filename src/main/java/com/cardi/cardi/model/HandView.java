@@ -0,0 +1,24 @@
+package com.cardi.cardi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A player's own cards, for their eyes only. Sent privately, never broadcast.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HandView {
+    private String roomCode;
+    private String playerId;
+    private long version;
+    private List<Card> cards;
+
+    public static HandView from(GameRoom room, Player player) {
+        return new HandView(room.getRoomCode(), player.getId(), room.getVersion(), player.getHand().toList());
+    }
+}
@@ -10,9 +10,6 @@ import lombok.NoArgsConstructor;
 
 import lombok.Setter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 @Data
 @NoArgsConstructor
 @Entity
@@ -26,13 +23,15 @@ public class Player {
     private String id; // The player's unique identifier, their secret agent codename.
     private String username; // The name they bravely (or anonymously) choose for battle.
     @Transient
-    private List<Card> hand = new ArrayList<>(); // The collection of powerful (or pitiful) cards in their possession.
+    private Hand hand = new Hand(); // The collection of powerful (or pitiful) cards in their possession, packed into a bitmask.
     private int wins = 0; // The tally of glorious victories this player has achieved.
     @Transient
     private boolean hasCalledCardi = false; // True if they've declared "Cardi!" (and hopefully not too early).
     @Transient
     @Setter
     private String sessionId; // Their current connection to the game's heartbeat.
+    @Transient
+    private boolean bot = false; // Played by the server itself (see BotService); never has a session.
 
     public Player(String username) {
         this.username = username;
@@ -41,7 +40,7 @@ public class Player {
     public Player(String id, String username) {
         this.id = id;
         this.username = username;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
         this.wins = 0;
     }
 
@@ -49,7 +48,24 @@ public class Player {
         this.id = id;
         this.username = username;
         this.sessionId = sessionId;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
         this.wins = 0;
     }
+
+    /**
+     * A seat filler played by the server, with no connection to speak of.
+     */
+    public static Player bot(String id, String username) {
+        Player bot = new Player(id, username, null);
+        bot.setBot(true);
+        return bot;
+    }
+
+    /**
+     * @return True while their connection is down: still at the table, cards and all, but nobody's listening.
+     *         Bots never had a connection, and never leave.
+     */
+    public boolean isAway() {
+        return sessionId == null && !bot;
+    }
 }
@@ -0,0 +1,34 @@
+package com.cardi.cardi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What everyone at the table is allowed to know about a player: who they are and how many cards
+ * they're hiding, but never which ones.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerView {
+    private String id;
+    private String username;
+    private int handSize;
+    private int wins;
+    private boolean hasCalledCardi;
+    private boolean away; // Connection dropped; their seat is kept for when they rejoin
+    private boolean bot; // Played by the server
+
+    public static PlayerView from(Player player) {
+        return new PlayerView(
+            player.getId(),
+            player.getUsername(),
+            player.getHand().size(),
+            player.getWins(),
+            player.isHasCalledCardi(),
+            player.isAway(),
+            player.isBot()
+        );
+    }
+}
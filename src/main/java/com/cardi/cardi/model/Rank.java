@@ -0,0 +1,55 @@
+package com.cardi.cardi.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The face value printed on a card, from the humble 2 up to the wild Joker.
+ */
+public enum Rank {
+    TWO("2"),
+    THREE("3"),
+    FOUR("4"),
+    FIVE("5"),
+    SIX("6"),
+    SEVEN("7"),
+    EIGHT("8"),
+    NINE("9"),
+    TEN("10"),
+    JACK("J"),
+    QUEEN("Q"),
+    KING("K"),
+    ACE("A"),
+    JOKER("Joker");
+
+    /** The thirteen ranks that come in every standard suit, in catalogue order. */
+    public static final Rank[] STANDARD = {TWO, THREE, FOUR, FIVE, SIX, SEVEN, EIGHT, NINE, TEN, JACK, QUEEN, KING, ACE};
+
+    private final String label;
+
+    Rank(String label) {
+        this.label = label;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param label e.g. "10", "K" or "Joker".
+     * @return The matching rank, or null if there isn't one.
+     */
+    @JsonCreator
+    public static Rank fromLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        for (Rank rank : values()) {
+            if (rank.label.equalsIgnoreCase(label)) {
+                return rank;
+            }
+        }
+        return null;
+    }
+}
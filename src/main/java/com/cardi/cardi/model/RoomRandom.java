@@ -0,0 +1,35 @@
+package com.cardi.cardi.model;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A room's own dice: SplitMix64, which is tiny, fast, and (unlike {@link java.util.SplittableRandom}) happy to tell
+ * you exactly where it's up to. That matters because a snapshot of a room has to capture its luck mid-game, so
+ * that the actions replayed after the snapshot shuffle the same way they did the first time.
+ */
+public final class RoomRandom implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public RoomRandom(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
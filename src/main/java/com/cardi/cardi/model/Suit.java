@@ -0,0 +1,53 @@
+package com.cardi.cardi.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The shapes a card can take. Jokers get a "suit" of their own, because they refuse to fit in.
+ */
+public enum Suit {
+    HEARTS("Hearts", 'H'),
+    SPADES("Spades", 'S'),
+    DIAMONDS("Diamonds", 'D'),
+    CLUBS("Clubs", 'C'),
+    JOKER("Joker", 'X');
+
+    /** The four everyday suits, in catalogue order. */
+    public static final Suit[] STANDARD = {HEARTS, SPADES, DIAMONDS, CLUBS};
+
+    private final String label;
+    private final char symbol;
+
+    Suit(String label, char symbol) {
+        this.label = label;
+        this.symbol = symbol;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Reads a suit off the wire, forgiving about case.
+     * @param label e.g. "Hearts" or "hearts".
+     * @return The matching suit, or null if the label is empty or makes no sense.
+     */
+    @JsonCreator
+    public static Suit fromLabel(String label) {
+        if (label == null || label.isEmpty()) {
+            return null;
+        }
+        for (Suit suit : values()) {
+            if (suit.label.equalsIgnoreCase(label)) {
+                return suit;
+            }
+        }
+        return null;
+    }
+}
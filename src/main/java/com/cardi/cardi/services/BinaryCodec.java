@@ -0,0 +1,323 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameEvent;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.GameState;
+import com.cardi.cardi.model.HandView;
+import com.cardi.cardi.model.PlayerView;
+import com.cardi.cardi.model.Suit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact wire format spoken on the native {@code /ws-bin} endpoint, for clients who would rather not
+ * parse a page of JSON every time someone plays a Seven.
+ * <p>
+ * Every frame starts with a one-byte opcode. Cards travel as their catalogue ordinal (one byte each),
+ * players as their seat number, and strings as a one-byte length followed by UTF-8. Numbers are big-endian.
+ * <pre>
+ * Client to server                          Server to client
+ *   0x00 HELLO   u8 min, u8 max               0x80 WELCOME u8 version, str sessionId
+ *   0x01 CREATE  str username                 0x81 ERROR   str message
+ *   0x02 JOIN    str roomCode, str username   0x82 STATE   u8 eventType, i64 version, str roomCode,
+ *   0x03 REJOIN  str roomCode, str playerId                u8 topCard, u8 currentSeat, u8 flags,
+ *   0x04 START   [i64 seed]                                u8 drawPenalty, u8 activeSuit, u8 ownerSeat,
+ *   0x05 PLAY    u8 newSuit, u8 n, n x card                u8 n, n x (u8 handSize, u8 flags, u16 wins,
+ *   0x06 DRAW                                              str username), str message
+ *   0x07 CARDI                                0x83 HAND    i64 version, str playerId, u8 n, n x card
+ *   0x08 PASS                                 0x84 EVENT   u8 eventType, u8 seat, u8 amount,
+ *   0x09 RESYNC  i64 version                               u8 n, n x card, str name
+ *   0x0A ADD_BOT                              0x85 BATCH   u8 n, n x (u16 length, frame)
+ *   0x0B TIMER   u16 turnSeconds (0 = off)
+ * </pre>
+ * STATE ends with an {@code i32} of milliseconds left on the current turn (-1 when there's no turn timer), after
+ * the message, so a client that stops reading at the message still gets along fine.
+ * Missing cards, suits and seats are sent as {@link #NONE}.
+ */
+public final class BinaryCodec {
+
+    public static final int MIN_VERSION = 1;
+    public static final int MAX_VERSION = 1;
+
+    public static final byte OP_HELLO = 0x00;
+    public static final byte OP_CREATE = 0x01;
+    public static final byte OP_JOIN = 0x02;
+    public static final byte OP_REJOIN = 0x03;
+    public static final byte OP_START = 0x04;
+    public static final byte OP_PLAY = 0x05;
+    public static final byte OP_DRAW = 0x06;
+    public static final byte OP_CALL_CARDI = 0x07;
+    public static final byte OP_PASS = 0x08;
+    public static final byte OP_RESYNC = 0x09;
+    public static final byte OP_ADD_BOT = 0x0A;
+    public static final byte OP_TURN_TIMER = 0x0B;
+
+    public static final byte OP_WELCOME = (byte) 0x80;
+    public static final byte OP_ERROR = (byte) 0x81;
+    public static final byte OP_STATE = (byte) 0x82;
+    public static final byte OP_HAND = (byte) 0x83;
+    public static final byte OP_EVENT = (byte) 0x84;
+    public static final byte OP_BATCH = (byte) 0x85;
+
+    public static final int NONE = 0xFF;
+
+    // STATE flags
+    public static final int FLAG_REVERSED = 1;
+    public static final int FLAG_STARTED = 1 << 1;
+    public static final int FLAG_TAKEN_ACTION = 1 << 2;
+    public static final int FLAG_QUESTION_ACTIVE = 1 << 3;
+
+    // Per-player flags
+    public static final int FLAG_CALLED_CARDI = 1;
+    public static final int FLAG_AWAY = 1 << 1;
+    public static final int FLAG_BOT = 1 << 2;
+
+    private static final int MAX_STRING_BYTES = 255;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Reads a string off the buffer.
+     * @throws IllegalArgumentException if the frame is cut short.
+     */
+    public static String readString(ByteBuffer buffer) {
+        int length = Byte.toUnsignedInt(buffer.get());
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("String runs off the end of the frame");
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a count-prefixed run of card ordinals straight into a list of catalogue cards.
+     * @throws IllegalArgumentException if an ordinal isn't a card.
+     */
+    public static List<Card> readCards(ByteBuffer buffer) {
+        int count = Byte.toUnsignedInt(buffer.get());
+        if (count > buffer.remaining()) {
+            throw new IllegalArgumentException("Card list runs off the end of the frame");
+        }
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int ordinal = Byte.toUnsignedInt(buffer.get());
+            if (ordinal >= Card.DECK_SIZE) {
+                throw new IllegalArgumentException("No such card: " + ordinal);
+            }
+            cards.add(Card.byOrdinal(ordinal));
+        }
+        return cards;
+    }
+
+    /**
+     * @return The suit a one-byte suit code stands for, or null for {@link #NONE}.
+     */
+    public static Suit readSuit(ByteBuffer buffer) {
+        int code = Byte.toUnsignedInt(buffer.get());
+        if (code == NONE) {
+            return null;
+        }
+        if (code >= Suit.values().length) {
+            throw new IllegalArgumentException("No such suit: " + code);
+        }
+        return Suit.values()[code];
+    }
+
+    /**
+     * Picks the highest protocol version both sides speak.
+     * @return The agreed version, or -1 if the ranges don't overlap.
+     */
+    public static int negotiate(int clientMin, int clientMax) {
+        int version = Math.min(clientMax, MAX_VERSION);
+        return version >= Math.max(clientMin, MIN_VERSION) ? version : -1;
+    }
+
+    public static byte[] welcome(int version, String sessionId) {
+        return new Writer(32).u8(OP_WELCOME).u8(version).str(sessionId).toBytes();
+    }
+
+    public static byte[] error(String message) {
+        return new Writer(64).u8(OP_ERROR).str(message).toBytes();
+    }
+
+    /**
+     * Packs several frames produced by one action into a single BATCH frame, in order.
+     */
+    public static byte[] batch(List<byte[]> frames) {
+        int size = 2;
+        for (byte[] frame : frames) {
+            size += 2 + frame.length;
+        }
+        Writer writer = new Writer(size).u8(OP_BATCH).u8(frames.size());
+        for (byte[] frame : frames) {
+            writer.u16(frame.length).raw(frame);
+        }
+        return writer.toBytes();
+    }
+
+    /**
+     * Turns a game event into its binary record.
+     * @param event The event, exactly as the JSON clients would get it.
+     * @param room The room it happened in, used to turn player ids into seats. May be null.
+     * @throws IllegalArgumentException for events that have no binary form (deltas: binary clients get full state).
+     */
+    public static byte[] encode(GameEvent event, GameRoom room) {
+        return switch (event.getType()) {
+            case GAME_STATE_UPDATE, GAME_START, ROOM_UPDATE -> state(event.getType(), (GameState) event.getPayload());
+            case HAND_UPDATE -> hand((HandView) event.getPayload());
+            case ERROR -> error(String.valueOf(event.getPayload()));
+            case GAME_STATE_DELTA -> throw new IllegalArgumentException("Deltas have no binary form");
+            default -> tableEvent(event.getType(), (Map<?, ?>) event.getPayload(), room);
+        };
+    }
+
+    private static byte[] state(GameEvent.EventType type, GameState state) {
+        List<PlayerView> players = state.getPlayers();
+        int flags = (state.isReversed() ? FLAG_REVERSED : 0)
+                | (state.isStarted() ? FLAG_STARTED : 0)
+                | (state.isPlayerHasTakenAction() ? FLAG_TAKEN_ACTION : 0)
+                | (state.isQuestionActive() ? FLAG_QUESTION_ACTIVE : 0);
+        int ownerSeat = NONE;
+        for (int seat = 0; seat < players.size(); seat++) {
+            if (players.get(seat).getId().equals(state.getRoomOwnerId())) {
+                ownerSeat = seat;
+            }
+        }
+
+        Writer writer = new Writer(48 + players.size() * 16)
+                .u8(OP_STATE)
+                .u8(type.ordinal())
+                .i64(state.getVersion())
+                .str(state.getRoomCode())
+                .u8(state.getTopCard() == null ? NONE : state.getTopCard().getOrdinal())
+                .u8(state.getCurrentPlayerIndex())
+                .u8(flags)
+                .u8(state.getDrawPenalty())
+                .u8(state.getActiveSuit() == null ? NONE : state.getActiveSuit().ordinal())
+                .u8(ownerSeat)
+                .u8(players.size());
+        for (PlayerView player : players) {
+            writer.u8(player.getHandSize())
+                    .u8((player.isHasCalledCardi() ? FLAG_CALLED_CARDI : 0) | (player.isAway() ? FLAG_AWAY : 0)
+                            | (player.isBot() ? FLAG_BOT : 0))
+                    .u16(player.getWins())
+                    .str(player.getUsername());
+        }
+        return writer.str(state.getMessage())
+                .i32(state.getTurnMillisLeft() == null ? -1 : (int) Math.min(state.getTurnMillisLeft(), Integer.MAX_VALUE))
+                .toBytes();
+    }
+
+    private static byte[] hand(HandView hand) {
+        List<Card> cards = hand.getCards();
+        Writer writer = new Writer(48 + cards.size())
+                .u8(OP_HAND)
+                .i64(hand.getVersion())
+                .str(hand.getPlayerId())
+                .u8(cards.size());
+        for (Card card : cards) {
+            writer.u8(card.getOrdinal());
+        }
+        return writer.toBytes();
+    }
+
+    private static byte[] tableEvent(GameEvent.EventType type, Map<?, ?> payload, GameRoom room) {
+        Object cardsValue = payload.get("cards");
+        List<?> cards = cardsValue instanceof List<?> list ? list : Collections.emptyList();
+        Object amount = payload.containsKey("numberOfCards") ? payload.get("numberOfCards") : cards.size();
+        Object name = payload.containsKey("username") ? payload.get("username") : payload.get("winnerUsername");
+
+        Writer writer = new Writer(16 + cards.size())
+                .u8(OP_EVENT)
+                .u8(type.ordinal())
+                .u8(seatOf(room, (String) payload.get("playerId")))
+                .u8(((Number) amount).intValue())
+                .u8(cards.size());
+        for (Object card : cards) {
+            writer.u8(((Card) card).getOrdinal());
+        }
+        return writer.str((String) name).toBytes();
+    }
+
+    private static int seatOf(GameRoom room, String playerId) {
+        int seat = room == null ? -1 : room.seatOf(playerId);
+        return seat < 0 ? NONE : seat;
+    }
+
+    /**
+     * A tiny append-only byte writer; cheaper than a stream and it never has to guess the final size right.
+     */
+    private static final class Writer {
+        private byte[] bytes;
+        private int size;
+
+        private Writer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private Writer u8(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        private Writer u16(int value) {
+            ensure(2);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        private Writer i32(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        private Writer i64(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        private Writer raw(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+            return this;
+        }
+
+        private Writer str(String value) {
+            byte[] utf8 = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(utf8.length, MAX_STRING_BYTES);
+            ensure(1 + length);
+            bytes[size++] = (byte) length;
+            System.arraycopy(utf8, 0, bytes, size, length);
+            size += length;
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toBytes() {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.cardi.cardi.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the players talking to us over the native binary endpoint, and which room each one sits in,
+ * so that room broadcasts can reach them without going anywhere near the STOMP broker.
+ */
+@Slf4j
+@Component
+public class BinarySessionGateway {
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT = 512 * 1024;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    public void open(WebSocketSession session) {
+        Connection connection = new Connection(
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT));
+        connections.put(session.getId(), connection);
+    }
+
+    public void close(String sessionId) {
+        Connection connection = connections.remove(sessionId);
+        if (connection != null) {
+            leaveRoom(connection);
+        }
+    }
+
+    /**
+     * @return True if the session is one of ours rather than a STOMP client.
+     */
+    public boolean isBinary(String sessionId) {
+        return sessionId != null && connections.containsKey(sessionId);
+    }
+
+    /**
+     * Records the protocol version agreed with the client. Zero means they haven't said hello yet.
+     */
+    public void setVersion(String sessionId, int version) {
+        Connection connection = connections.get(sessionId);
+        if (connection != null) {
+            connection.version = version;
+        }
+    }
+
+    public int getVersion(String sessionId) {
+        Connection connection = connections.get(sessionId);
+        return connection == null ? 0 : connection.version;
+    }
+
+    /**
+     * Seats a binary session in a room's audience; the binary equivalent of subscribing to /topic/game/{room}.
+     * A session only ever watches one room, so this quietly walks it out of any previous one.
+     */
+    public void bind(String sessionId, String roomCode) {
+        Connection connection = connections.get(sessionId);
+        if (connection == null || roomCode.equals(connection.roomCode)) {
+            return;
+        }
+        leaveRoom(connection);
+        connection.roomCode = roomCode;
+        rooms.computeIfAbsent(roomCode, k -> ConcurrentHashMap.newKeySet()).add(connection);
+    }
+
+    /**
+     * @return The room the session is sitting in, or null if it hasn't joined one.
+     */
+    public String roomOf(String sessionId) {
+        Connection connection = connections.get(sessionId);
+        return connection == null ? null : connection.roomCode;
+    }
+
+    /**
+     * @return True if anyone in the room speaks binary, i.e. whether it's worth encoding a binary frame at all.
+     */
+    public boolean hasListeners(String roomCode) {
+        Set<Connection> audience = rooms.get(roomCode);
+        return audience != null && !audience.isEmpty();
+    }
+
+    public void broadcast(String roomCode, byte[] frame) {
+        Set<Connection> audience = rooms.get(roomCode);
+        if (audience == null) {
+            return;
+        }
+        for (Connection connection : audience) {
+            connection.send(frame);
+        }
+    }
+
+    public void send(String sessionId, byte[] frame) {
+        Connection connection = connections.get(sessionId);
+        if (connection != null) {
+            connection.send(frame);
+        }
+    }
+
+    public void roomClosed(String roomCode) {
+        Set<Connection> audience = rooms.remove(roomCode);
+        if (audience != null) {
+            audience.forEach(connection -> connection.roomCode = null);
+        }
+    }
+
+    public GatewayStats getStats() {
+        return new GatewayStats(connections.size(), rooms.size(), framesSent.sum(), bytesSent.sum());
+    }
+
+    private void leaveRoom(Connection connection) {
+        String roomCode = connection.roomCode;
+        if (roomCode == null) {
+            return;
+        }
+        connection.roomCode = null;
+        rooms.computeIfPresent(roomCode, (code, audience) -> {
+            audience.remove(connection);
+            return audience.isEmpty() ? null : audience;
+        });
+    }
+
+    private final class Connection {
+        private final WebSocketSession session;
+        private volatile int version;
+        private volatile String roomCode;
+
+        private Connection(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private void send(byte[] frame) {
+            if (!session.isOpen()) {
+                return;
+            }
+            try {
+                // The bytes are shared between recipients; wrapping them is free and gives each one its own buffer position.
+                session.sendMessage(new BinaryMessage(frame));
+                framesSent.increment();
+                bytesSent.add(frame.length);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not deliver a frame to binary session {}", session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * How many native clients we have and how much we've sent them.
+     */
+    public record GatewayStats(int sessions, int rooms, long framesSent, long bytesSent) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+
+/**
+ * Works out a bot's next move: the legal options come straight from {@link CardValidator}'s table as a mask,
+ * and the {@link BotStrategy} picks among them. Passing when the turn is done, drawing when nothing can be
+ * played, and calling Cardi! before going down to the last card are all decided here, so every strategy gets
+ * them right.
+ * <p>
+ * Pure and stateless; it reads the room and changes nothing, so it's just as happy in a benchmark as on a room's
+ * thread.
+ */
+public class BotBrain {
+
+    private final CardValidator cardValidator;
+    private final BotStrategy strategy;
+
+    public BotBrain(CardValidator cardValidator, BotStrategy strategy) {
+        this.cardValidator = cardValidator;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param room A game in progress.
+     * @param bot The player whose turn it is.
+     */
+    public Move decide(GameRoom room, Player bot) {
+        if (room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
+            return Move.PASS;
+        }
+        Hand hand = bot.getHand();
+        long playable = cardValidator.playableCards(hand, room.getTopCard(), room);
+        boolean lastCard = hand.size() == 1;
+        if (lastCard) {
+            playable &= ~CardValidator.FINISHING_RESTRICTED_MASK; // Going out on one of those is against the rules; better to draw
+        }
+        if (playable == 0) {
+            return Move.DRAW;
+        }
+
+        Card card = strategy.choose(room, bot, playable);
+        String suit = card.getRank() == Rank.ACE ? strategy.callSuit(room, bot, card).getLabel() : null;
+        return new Move(Action.PLAY, card, suit, lastCard && !bot.isHasCalledCardi());
+    }
+
+    public enum Action {
+        PLAY, DRAW, PASS
+    }
+
+    /**
+     * @param card What to play, for {@link Action#PLAY}.
+     * @param suit The suit to call, if the card is an Ace.
+     * @param callCardi Whether to shout Cardi! first, because this is the last card.
+     */
+    public record Move(Action action, Card card, String suit, boolean callCardi) {
+        public static final Move DRAW = new Move(Action.DRAW, null, null, false);
+        public static final Move PASS = new Move(Action.PASS, null, null, false);
+    }
+}
@@ -0,0 +1,138 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays the bots' turns. After every room action it glances at whose turn it is, and if that's a bot, it drops the
+ * bot's move into the room's mailbox as an action of its own: the move runs on the room's thread like anybody
+ * else's, the STOMP threads never wait for a bot to think, and humans' actions that arrive meanwhile simply queue
+ * up in front of it.
+ * <p>
+ * A bot only gets another go once the room has moved on (its version changed), so a move the rules turn down
+ * can't have a bot spinning in its mailbox. With {@code cardi.bots.play-for-away} the bots also cover for
+ * players who dropped off mid-game, so the table isn't stuck waiting on somebody who may never come back.
+ */
+@Slf4j
+@Service
+public class BotService {
+
+    private final RoomService roomService;
+    private final GameService gameService;
+    private final RoomActionExecutor roomActionExecutor;
+    private final BotBrain brain;
+    private final boolean playForAway;
+
+    // The room version each bot move was queued at; only ever touched on the room's own thread
+    private final Map<String, Long> queuedAt = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram decisionTime = new LatencyHistogram();
+    private final LongAdder moves = new LongAdder();
+
+    public BotService(@Lazy RoomService roomService,
+                      @Lazy GameService gameService,
+                      RoomActionExecutor roomActionExecutor,
+                      CardValidator cardValidator,
+                      BotStrategy strategy,
+                      @Value("${cardi.bots.play-for-away:false}") boolean playForAway) {
+        this.roomService = roomService;
+        this.gameService = gameService;
+        this.roomActionExecutor = roomActionExecutor;
+        this.brain = new BotBrain(cardValidator, strategy);
+        this.playForAway = playForAway;
+        roomActionExecutor.addScope(new TurnScope());
+    }
+
+    public BotStats getStats() {
+        return new BotStats(playForAway, moves.sum(), decisionTime.snapshot());
+    }
+
+    /**
+     * @return The player whose turn it is, if a bot should be playing it.
+     */
+    private Player botToMove(GameRoom room) {
+        if (room == null || !room.isStarted()) {
+            return null;
+        }
+        Player player = room.getCurrentPlayer();
+        if (player == null || !(player.isBot() || (playForAway && player.isAway()))) {
+            return null;
+        }
+        return player;
+    }
+
+    /**
+     * Runs on the room's own thread. Whoever's turn it was when this got queued, the room may have moved on
+     * since, so it looks again.
+     */
+    private void move(String roomCode) {
+        GameRoom room = roomService.peekRoom(roomCode);
+        Player bot = botToMove(room);
+        if (bot == null) {
+            return;
+        }
+
+        long versionBefore = room.getVersion();
+        long start = System.nanoTime();
+        BotBrain.Move move = brain.decide(room, bot);
+        decisionTime.record(System.nanoTime() - start);
+        moves.increment();
+
+        switch (move.action()) {
+            case PLAY -> {
+                if (move.callCardi()) {
+                    gameService.callCardi(roomCode, bot.getId(), null);
+                }
+                gameService.playCards(roomCode, bot.getId(), null, List.of(move.card()), move.suit());
+            }
+            case DRAW -> gameService.drawCard(roomCode, bot.getId(), null);
+            case PASS -> gameService.passTurn(roomCode, bot.getId(), null);
+        }
+        if (room.getVersion() == versionBefore) {
+            log.warn("Room {}: {} tried {} and the rules said no; leaving the turn to the humans", roomCode, bot.getUsername(), move);
+        }
+    }
+
+    /**
+     * Looks at the room at the end of every action, while nothing else can be touching it, and queues the bot's
+     * move if one is due.
+     */
+    private final class TurnScope implements RoomActionExecutor.ActionScope {
+
+        @Override
+        public void enter(String roomCode) {
+        }
+
+        @Override
+        public void exit(String roomCode) {
+            if (roomCode == null || roomCode.isEmpty()) {
+                return;
+            }
+            GameRoom room = roomService.peekRoom(roomCode);
+            if (botToMove(room) == null) {
+                queuedAt.remove(roomCode);
+                return;
+            }
+            Long version = room.getVersion();
+            if (version.equals(queuedAt.put(roomCode, version))) {
+                return; // Already queued, or it tried and nothing changed; don't go round in circles
+            }
+            roomActionExecutor.execute(roomCode, () -> move(roomCode));
+        }
+    }
+
+    /**
+     * Whether bots stand in for absent players, how many moves they've made, and how long deciding took.
+     */
+    public record BotStats(boolean playForAway, long moves, LatencyHistogram.Snapshot decisionTime) {
+    }
+}
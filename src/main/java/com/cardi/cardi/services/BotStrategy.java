@@ -0,0 +1,31 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+
+/**
+ * How a bot picks between the cards it may legally play. Which cards those are, and whether to draw or pass
+ * instead, is {@link BotBrain}'s business; a strategy only ever chooses among legal options, so a silly one
+ * makes a bot play badly but never cheat.
+ * <p>
+ * Strategies are called on the room's own thread and should answer in well under a millisecond: no I/O, no
+ * locks, and preferably no allocation. To play differently, declare your own bean of this type.
+ */
+public interface BotStrategy {
+
+    /**
+     * @param room The room, as it stands; look but don't touch.
+     * @param bot The bot whose turn it is.
+     * @param playable The cards it may play, as a face mask (see {@link com.cardi.cardi.model.Hand}); never empty.
+     * @return One of the playable cards.
+     */
+    Card choose(GameRoom room, Player bot, long playable);
+
+    /**
+     * @param ace The Ace about to be played.
+     * @return The suit to call with it.
+     */
+    Suit callSuit(GameRoom room, Player bot, Card ace);
+}
@@ -2,29 +2,38 @@ package com.cardi.cardi.services;
 
 import com.cardi.cardi.model.Card;
 import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Component
 public class CardValidator {
 
-    public static final Set<String> FINISHING_RESTRICTED_CARDS = Set.of("2", "3", "J", "K", "8", "Q", "Joker", "A");
-    private static final Set<String> QUESTION_CARDS = Set.of("Q", "8");
-    private static final Set<String> COUNTER_CARDS = Set.of("2", "3", "Joker", "J", "K", "A");
+    public static final Set<Rank> FINISHING_RESTRICTED_CARDS = EnumSet.of(Rank.TWO, Rank.THREE, Rank.JACK, Rank.KING, Rank.EIGHT, Rank.QUEEN, Rank.JOKER, Rank.ACE);
+    /** The same cards as a face mask, for masking them out of a hand in one go. */
+    public static final long FINISHING_RESTRICTED_MASK = rankMasks(FINISHING_RESTRICTED_CARDS);
+    private static final Set<Rank> QUESTION_CARDS = EnumSet.of(Rank.QUEEN, Rank.EIGHT);
+    private static final long QUESTION_MASK = Hand.rankMask(Rank.QUEEN) | Hand.rankMask(Rank.EIGHT);
+    private static final Set<Rank> COUNTER_CARDS = EnumSet.of(Rank.TWO, Rank.THREE, Rank.JOKER, Rank.JACK, Rank.KING, Rank.ACE);
+
+    // Legal candidates by rule state and top card; see legalMask
+    private static final long[] LEGAL = compileRules();
 
     public boolean isQuestionCard(Card card) {
         if (card == null) {
             return false;
         }
-        return QUESTION_CARDS.contains(card.getValue());
+        return QUESTION_CARDS.contains(card.getRank());
     }
 
     /**
      * Validates if a single card can be played on the current top card.
+     * One look in the legality table, see {@link #legalMask(Card, GameRoom)}.
      *
      * @param cardToPlay The card the player wants to play.
      * @param topCard    The current card on top of the played pile.
@@ -32,85 +41,152 @@ public class CardValidator {
      * @return True if the play is valid, false otherwise.
      */
     public boolean isValidPlay(Card cardToPlay, Card topCard, GameRoom room) {
-        if (cardToPlay == null || topCard == null) {
+        if (cardToPlay == null) {
             return false;
         }
+        return (legalMask(topCard, room) & (1L << cardToPlay.getOrdinal())) != 0;
+    }
+
+    /**
+     * Every card that could go on the top card right now, as a mask of card ordinals (both Jokers included, and
+     * {@link Hand#JOKER_BIT} is the first of them, so ANDing it with {@link Hand#getMask()} just works).
+     * <p>
+     * The rules only ever look at the top card, the candidate and a handful of facts about the room (penalty
+     * pending, suit called by an Ace, question open, and the two counter house rules), so every answer is worked
+     * out once, when the class loads, and this is a single array load.
+     *
+     * @return The legal cards, or 0 if there's no top card.
+     */
+    public long legalMask(Card topCard, GameRoom room) {
+        if (topCard == null) {
+            return 0;
+        }
+        return LEGAL[ruleState(room) * Card.DECK_SIZE + topCard.getOrdinal()];
+    }
+
+    /**
+     * @return The cards in the hand that could be played on the top card right now, as a face mask.
+     */
+    public long playableCards(Hand hand, Card topCard, GameRoom room) {
+        return legalMask(topCard, room) & hand.getMask();
+    }
+
+    private static long rankMasks(Set<Rank> ranks) {
+        long mask = 0;
+        for (Rank rank : ranks) {
+            mask |= Hand.rankMask(rank);
+        }
+        return mask;
+    }
+
+    private static int ruleState(GameRoom room) {
+        int state = room.getActiveSuit() == null ? 0 : room.getActiveSuit().ordinal() + 1;
+        state = state << 1 | (room.getDrawPenalty() > 0 ? 1 : 0);
+        state = state << 1 | (room.isQuestionActive() ? 1 : 0);
+        state = state << 1 | (room.isMatchShapeForCounter() ? 1 : 0);
+        return state << 1 | (room.isRestrictJKCounters() ? 1 : 0);
+    }
+
+    private static long[] compileRules() {
+        Suit[] suits = Suit.values();
+        long[] table = new long[(suits.length + 1) * 16 * Card.DECK_SIZE];
+        for (int activeSuit = 0; activeSuit <= suits.length; activeSuit++) {
+            for (int flags = 0; flags < 16; flags++) {
+                int state = activeSuit << 4 | flags;
+                for (int top = 0; top < Card.DECK_SIZE; top++) {
+                    long legal = 0;
+                    for (int candidate = 0; candidate < Card.DECK_SIZE; candidate++) {
+                        if (isValidPlay(Card.byOrdinal(candidate), Card.byOrdinal(top),
+                                activeSuit == 0 ? null : suits[activeSuit - 1],
+                                (flags & 8) != 0, (flags & 4) != 0, (flags & 2) != 0, (flags & 1) != 0)) {
+                            legal |= 1L << candidate;
+                        }
+                    }
+                    table[state * Card.DECK_SIZE + top] = legal;
+                }
+            }
+        }
+        return table;
+    }
 
+    /**
+     * The rules themselves, written out longhand. Only used to fill in the table.
+     */
+    private static boolean isValidPlay(Card cardToPlay, Card topCard, Suit activeSuit, boolean penaltyActive,
+                                       boolean questionActive, boolean matchShapeForCounter,
+                                       boolean restrictJKCounters) {
         // Rule: If top card is a Joker, any card is a valid play (unless there's a penalty)
-        if ("Joker".equals(topCard.getValue())) {
+        if (topCard.getRank() == Rank.JOKER) {
             return true;
         }
 
         // Rule: If a draw penalty is active, only counter cards are valid.
-        if (room.getDrawPenalty() > 0) {
+        if (penaltyActive) {
             // Configurable Rule: Restrict J and K as counters
-            if (room.isRestrictJKCounters() && (cardToPlay.getValue().equals("J") || cardToPlay.getValue().equals("K"))) {
+            if (restrictJKCounters && (cardToPlay.getRank() == Rank.JACK || cardToPlay.getRank() == Rank.KING)) {
                 return false;
             }
             // Configurable Rule: Counters must match shape
-            if (room.isMatchShapeForCounter() && !cardToPlay.getSuit().equals(topCard.getSuit())) {
+            if (matchShapeForCounter && cardToPlay.getSuit() != topCard.getSuit()) {
                 // Aces are an exception, they can always counter
-                if (!cardToPlay.getValue().equals("A")) {
+                if (cardToPlay.getRank() != Rank.ACE) {
                     return false;
                 }
             }
-            return COUNTER_CARDS.contains(cardToPlay.getValue());
+            return COUNTER_CARDS.contains(cardToPlay.getRank());
         }
 
         // Rule: Handle active suit declared by a previous Ace
-        if (room.getActiveSuit() != null) {
-            return cardToPlay.getSuit().equals(room.getActiveSuit()) || "A".equals(cardToPlay.getValue());
+        if (activeSuit != null) {
+            return cardToPlay.getSuit() == activeSuit || cardToPlay.getRank() == Rank.ACE;
         }
 
         // Rule: Handle "Question" cards (Q, 8) that set the questionActive flag
-        if (room.isQuestionActive()) {
-            return cardToPlay.getSuit().equals(topCard.getSuit()) || "A".equals(cardToPlay.getValue());
+        if (questionActive) {
+            return cardToPlay.getSuit() == topCard.getSuit() || cardToPlay.getRank() == Rank.ACE;
         }
 
         // Rule: Wild cards (Ace, Joker) are always playable in a normal turn
-        if ("A".equals(cardToPlay.getValue()) || "Joker".equals(cardToPlay.getValue())) {
+        if (cardToPlay.getRank() == Rank.ACE || cardToPlay.getRank() == Rank.JOKER) {
             return true;
         }
 
         // Basic Rule: Match suit or value
-        return cardToPlay.getSuit().equals(topCard.getSuit()) || cardToPlay.getValue().equals(topCard.getValue());
+        return cardToPlay.getSuit() == topCard.getSuit() || cardToPlay.getRank() == topCard.getRank();
     }
 
     /**
      * Validates if a list of cards can be played.
      * All cards must have the same value, and the first card must be a valid play.
+     * The shape checks are done on face masks, so no streams or iterators are harmed in the process.
      *
      * @param cardsToPlay The list of cards to play.
      * @param topCard     The current card on top of the played pile.
      * @param room        The game room.
      * @return True if the multiple-card play is valid.
      */
-        public boolean canPlayMultiple(List<Card> cardsToPlay, Card topCard, GameRoom room) {
-            if (cardsToPlay == null || cardsToPlay.isEmpty()) {
-                return false;
-            }
-    
-            // Standard rule: all cards have the same value
-            final String firstValue = cardsToPlay.get(0).getValue();
-            boolean allSameValue = cardsToPlay.stream().allMatch(c -> c.getValue().equals(firstValue));
-    
-            if (allSameValue) {
-                return isValidPlay(cardsToPlay.get(0), topCard, room);
-            }
-            
-            // Special rule: 8s and Qs of the same suit
-            boolean all8sAndQs = cardsToPlay.stream().allMatch(c -> "8".equals(c.getValue()) || "Q".equals(c.getValue()));
-            if (all8sAndQs) {
-                final String firstSuit = cardsToPlay.get(0).getSuit();
-                boolean allSameSuit = cardsToPlay.stream().allMatch(c -> c.getSuit().equals(firstSuit));
-                if (allSameSuit) {
-                    return isValidPlay(cardsToPlay.get(0), topCard, room);
-                }
-            }
-    
+    public boolean canPlayMultiple(List<Card> cardsToPlay, Card topCard, GameRoom room) {
+        if (cardsToPlay == null || cardsToPlay.isEmpty()) {
             return false;
         }
 
+        Card firstCard = cardsToPlay.get(0);
+        long played = Hand.maskOf(cardsToPlay);
+
+        // Standard rule: all cards have the same value
+        if ((played & ~Hand.rankMask(firstCard.getRank())) == 0) {
+            return isValidPlay(firstCard, topCard, room);
+        }
+
+        // Special rule: 8s and Qs of the same suit
+        boolean all8sAndQs = (played & ~QUESTION_MASK) == 0;
+        if (all8sAndQs && (played & ~Hand.suitMask(firstCard.getSuit())) == 0) {
+            return isValidPlay(firstCard, topCard, room);
+        }
+
+        return false;
+    }
+
     /**
      * Checks if a player is allowed to finish the game with a specific card.
      *
@@ -122,6 +198,6 @@ public class CardValidator {
             return false;
         }
         // Rule: Players cannot finish with special action cards.
-        return !FINISHING_RESTRICTED_CARDS.contains(card.getValue());
+        return !FINISHING_RESTRICTED_CARDS.contains(card.getRank());
     }
 }
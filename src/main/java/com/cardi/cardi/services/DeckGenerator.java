@@ -1,40 +1,25 @@
 package com.cardi.cardi.services;
 
 import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.CardPile;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.random.RandomGenerator;
 
 @Component
 public class DeckGenerator {
 
-    private static final String[] SUITS = {"Hearts", "Spades", "Diamonds", "Clubs"};
-    private static final String[] VALUES = {"2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A"};
-
     /**
-     * Creates a standard 54-card deck (including 2 Jokers) and shuffles it.
+     * Lays a standard 54-card deck (including 2 Jokers) out in the given pile and shuffles it.
+     * The cards themselves come straight from the {@link Card} catalogue and the pile is the room's own, reused
+     * game after game, so a new deal allocates nothing; only the order is new.
      *
-     * @return A shuffled List of {@link Card}.
+     * @param deck The pile to deal into; whatever was in it is gone.
+     * @param random Where the luck comes from; the room's own, so the same seed always deals the same game, and no
+     *               two rooms ever wait on each other for a shuffle.
      */
-    public List<Card> createShuffledDeck() {
-        List<Card> deck = new ArrayList<>();
-
-        // Add standard cards
-        for (String suit : SUITS) {
-            for (String value : VALUES) {
-                deck.add(new Card(suit, value));
-            }
-        }
-
-        // Add Jokers
-        deck.add(new Card("Joker", "Joker"));
-        deck.add(new Card("Joker", "Joker"));
-
-        // Shuffle the deck
-        Collections.shuffle(deck);
-
-        return deck;
+    public void shuffleInto(CardPile deck, RandomGenerator random) {
+        deck.fillWithDeck();
+        deck.shuffle(random);
     }
 }
@@ -0,0 +1,121 @@
+package com.cardi.cardi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the JSON bytes we already produced for a room, keyed by (room, version, view),
+ * so that sending the same thing twice doesn't mean serializing it twice.
+ * Only the newest version of each room is kept; the moment the room moves on, the old frames are tossed.
+ */
+@Component
+public class EncodedFrameCache {
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, RoomFrames> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesEncoded = new LongAdder();
+    private final LongAdder bytesReused = new LongAdder();
+
+    public EncodedFrameCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the encoded frame for a view of a room at a given version, building it only if nobody has yet.
+     * @param roomCode The room the frame describes.
+     * @param version The room version the frame was built from.
+     * @param view Which flavour of the room this is (e.g. "state", "room").
+     * @param payload Builds the object to serialize, called only on a miss.
+     * @return The JSON bytes. Do not scribble on them; they're shared.
+     */
+    public byte[] get(String roomCode, long version, String view, Supplier<?> payload) {
+        return getEncoded(roomCode, version, view, () -> encode(payload.get()));
+    }
+
+    /**
+     * Same as {@link #get}, for frames that bring their own encoding (e.g. the binary protocol).
+     * @param encoder Produces the finished bytes, called only on a miss.
+     */
+    public byte[] getEncoded(String roomCode, long version, String view, Supplier<byte[]> encoder) {
+        return rooms.computeIfAbsent(roomCode, k -> new RoomFrames()).get(version, view, encoder);
+    }
+
+    /**
+     * Serializes a one-off payload that isn't worth remembering.
+     */
+    public byte[] encode(Object payload) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(payload);
+            bytesEncoded.add(bytes.length);
+            return bytes;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + payload.getClass().getSimpleName(), e);
+        }
+    }
+
+    public void evict(String roomCode) {
+        rooms.remove(roomCode);
+    }
+
+    public CacheStats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        return new CacheStats(
+                hitCount,
+                missCount,
+                lookups == 0 ? 0.0 : (double) hitCount / lookups,
+                bytesEncoded.sum(),
+                bytesReused.sum(),
+                rooms.size()
+        );
+    }
+
+    private final class RoomFrames {
+        private long version = -1;
+        private final Map<String, byte[]> frames = new HashMap<>(4);
+
+        private synchronized byte[] get(long requestedVersion, String view, Supplier<byte[]> encoder) {
+            if (requestedVersion != version) {
+                if (requestedVersion < version) {
+                    // Someone is asking about the past; answer them, but don't let it evict the present.
+                    misses.increment();
+                    return encoder.get();
+                }
+                frames.clear();
+                version = requestedVersion;
+            }
+            byte[] frame = frames.get(view);
+            if (frame != null) {
+                hits.increment();
+                bytesReused.add(frame.length);
+                return frame;
+            }
+            misses.increment();
+            frame = encoder.get();
+            frames.put(view, frame);
+            return frame;
+        }
+    }
+
+    /**
+     * How much serialization the cache has saved us so far.
+     */
+    public record CacheStats(long hits,
+                             long misses,
+                             double hitRatio,
+                             long bytesEncoded,
+                             long bytesReused,
+                             int cachedRooms) {
+    }
+}
@@ -0,0 +1,308 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rules of the game and nothing else: who may do what, and what it does to the room. No sockets, no journal,
+ * no Spring; every move takes a room and a player, changes the room (or doesn't) and says how it went in an
+ * {@link Outcome}. {@link GameService} wraps it in the journal and the announcements; simulations and bots can
+ * drive it directly, millions of games at a time.
+ * <p>
+ * Like the room it works on, it isn't thread-safe per room, but it keeps no state of its own, so any number of
+ * threads can share one engine as long as each sticks to its own rooms.
+ */
+public class GameEngine {
+
+    public static final int INITIAL_CARDS_PER_PLAYER = 4;
+    private static final Set<Rank> AUTO_ADVANCE_CARDS = EnumSet.of(Rank.TWO, Rank.THREE, Rank.JOKER, Rank.JACK, Rank.KING, Rank.ACE);
+
+    private final DeckGenerator deckGenerator;
+    private final CardValidator cardValidator;
+
+    public GameEngine(DeckGenerator deckGenerator, CardValidator cardValidator) {
+        this.deckGenerator = deckGenerator;
+        this.cardValidator = cardValidator;
+    }
+
+    /**
+     * Shuffles, deals everyone their opening hand, turns up a first card that isn't one of the special ones and
+     * picks who goes first, all from the room's own luck.
+     * @param room A room with everyone seated who's going to play.
+     */
+    public void deal(GameRoom room) {
+        deckGenerator.shuffleInto(room.getDrawPile(), room.getRandom());
+
+        room.getPlayers().forEach(player -> {
+            player.getHand().clear(); // Fresh start, no cheating with old cards!
+            player.setHasCalledCardi(false); // No "Cardi!" on the first turn!
+            for (int i = 0; i < INITIAL_CARDS_PER_PLAYER; i++) {
+                player.getHand().add(room.getDrawPile().pop()); // Deal out the initial hand of destiny!
+            }
+        });
+
+        Card topCard;
+        // Make sure the first card isn't one of those pesky restricted ones
+        do {
+            if (room.getDrawPile().isEmpty()) {
+                replenishDrawPile(room); // Uh oh, reshuffle the chaos!
+            }
+            topCard = room.getDrawPile().pop();
+        } while (CardValidator.FINISHING_RESTRICTED_CARDS.contains(topCard.getRank()));
+
+        room.getPlayedPile().clear();
+        room.getPlayedPile().push(topCard); // The first card to kick off the mayhem!
+
+        room.setStarted(true);
+        room.setCurrentPlayerIndex(room.getRandom().nextInt(room.getPlayers().size()));
+        room.setReversed(false);
+        room.setDrawPenalty(0);
+        room.setActiveSuit(null);
+        room.setSkipNextTurn(false);
+        room.setPlayerHasTakenAction(false);
+        room.setTurnDeadline(0);
+    }
+
+    /**
+     * A player lays one or more cards on the pile, if the rules let them.
+     * @param cards The cards they wish to unleash upon the table.
+     * @param chosenSuit If an Ace is played, the suit they call.
+     */
+    public Outcome play(GameRoom room, Player player, List<Card> cards, String chosenSuit) {
+        if (!isPlayerTurn(room, player)) {
+            return Outcome.rejected("It's not your turn.");
+        }
+        if (player.getHand().isEmpty()) {
+            return Outcome.rejected("You have no cards to play. You must draw.");
+        }
+        if (room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
+            return Outcome.rejected("You have already played this turn. Please pass the turn.");
+        }
+        if (cards == null || !player.getHand().containsAll(cards)) {
+            return Outcome.rejected("You can't play cards you don't hold.");
+        }
+        if (!cardValidator.canPlayMultiple(cards, room.getTopCard(), room)) {
+            return Outcome.rejected("Invalid play. Check the card rules.");
+        }
+
+        if (player.getHand().size() == cards.size() && player.isHasCalledCardi()) {
+            if (!cardValidator.isAllowedToFinishWith(cards.get(cards.size() - 1))) {
+                return Outcome.rejected("You cannot finish the game with that card.");
+            }
+            player.getHand().removeAll(cards);
+            room.getPlayedPile().addAll(cards);
+            room.setStarted(false);
+            return new Outcome(Result.WON, null, 0);
+        }
+
+        player.getHand().removeAll(cards);
+        room.getPlayedPile().addAll(cards);
+
+        if (room.isQuestionActive()) {
+            room.setQuestionActive(false);
+            room.setPlayerHasTakenAction(true); // Our hero has made their move, now they *must* pass!
+
+            boolean wasPenaltyActive = room.getDrawPenalty() > 0;
+            for (Card card : cards) {
+                processCardEffect(room, card, chosenSuit, wasPenaltyActive);
+            }
+            return Outcome.played("answered.");
+        }
+
+        if (cardValidator.isQuestionCard(cards.get(cards.size() - 1))) {
+            processCardEffect(room, cards.get(cards.size() - 1), chosenSuit, false);
+            room.setPlayerHasTakenAction(false);
+            return Outcome.played("played a Question card.");
+        }
+
+        boolean wasPenaltyActive = room.getDrawPenalty() > 0;
+        for (Card card : cards) {
+            processCardEffect(room, card, chosenSuit, wasPenaltyActive);
+        }
+
+        boolean advanced = false;
+        for (Card card : cards) {
+            if (AUTO_ADVANCE_CARDS.contains(card.getRank())) {
+                advanceTurn(room);
+                advanced = true;
+                break;
+            }
+        }
+        if (!advanced) {
+            room.setPlayerHasTakenAction(true);
+        }
+        return Outcome.played("played " + cards.size() + " card(s).");
+    }
+
+    /**
+     * A player draws: one card for an open question or an empty hand, the whole pending penalty otherwise.
+     */
+    public Outcome draw(GameRoom room, Player player) {
+        if (!isPlayerTurn(room, player)) {
+            return Outcome.rejected("It's not your turn.");
+        }
+        if (room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
+            return Outcome.rejected("You have already played this turn. Please pass the turn.");
+        }
+
+        if (room.isQuestionActive()) {
+            drawInto(room, player, 1);
+            room.setQuestionActive(false);
+            room.setPlayerHasTakenAction(true);
+            advanceTurn(room);
+            return new Outcome(Result.DREW, "drew 1 card for the question.", 1);
+        }
+
+        if (player.getHand().isEmpty()) {
+            drawInto(room, player, 1);
+            player.setHasCalledCardi(false); // Drawing means you forfeit your "Cardi!" call (for now).
+            room.setDrawPenalty(0);
+            advanceTurn(room);
+            return new Outcome(Result.DREW, "was cardless and drew 1 card.", 1);
+        }
+
+        if (room.getMaxCardsAllowed() != null && player.getHand().size() >= room.getMaxCardsAllowed()) {
+            room.setPlayerHasTakenAction(true); // Hands full; all that's left is to pass
+            return new Outcome(Result.HAND_FULL, "cannot draw due to hand size limit.", 0);
+        }
+
+        int cardsToDraw = room.getDrawPenalty() > 0 ? room.getDrawPenalty() : 1;
+        drawInto(room, player, cardsToDraw);
+        player.setHasCalledCardi(false);
+        room.setDrawPenalty(0);
+        advanceTurn(room);
+        return new Outcome(Result.DREW, "drew " + cardsToDraw + " card(s).", cardsToDraw);
+    }
+
+    /**
+     * A player who has already played hands the turn on.
+     */
+    public Outcome pass(GameRoom room, Player player) {
+        if (!isPlayerTurn(room, player)) {
+            return Outcome.rejected("It's not your turn to pass.");
+        }
+        if (!room.isPlayerHasTakenAction()) {
+            return Outcome.rejected("You must play a card before you can pass the turn.");
+        }
+        advanceTurn(room);
+        return new Outcome(Result.PASSED, "passed the turn.", 0);
+    }
+
+    private void drawInto(GameRoom room, Player player, int count) {
+        for (int i = 0; i < count; i++) {
+            if (room.getDrawPile().isEmpty()) {
+                replenishDrawPile(room);
+            }
+            player.getHand().add(room.getDrawPile().pop());
+        }
+    }
+
+    private void processCardEffect(GameRoom room, Card card, String chosenSuit, boolean wasPenaltyActive) {
+        room.setActiveSuit(null);
+
+        switch (card.getRank()) {
+            case TWO:
+            case THREE:
+                room.setDrawPenalty(room.getDrawPenalty() + (card.getRank() == Rank.TWO ? 2 : 3));
+                break;
+            case JOKER:
+                room.setDrawPenalty(room.getDrawPenalty() + 5);
+                break;
+            case JACK:
+                room.setSkipNextTurn(true);
+                break;
+            case KING:
+                room.setReversed(!room.isReversed());
+                break;
+            case ACE:
+                room.setDrawPenalty(0);
+                if (wasPenaltyActive) {
+                    if (room.getPlayedPile().size() > 1) {
+                        Card cardUnder = room.getPlayedPile().get(room.getPlayedPile().size() - 2);
+                        if (!cardUnder.isJoker()) {
+                            room.setActiveSuit(cardUnder.getSuit());
+                        }
+                    }
+                } else {
+                    Suit declaredSuit = Suit.fromLabel(chosenSuit);
+                    if (declaredSuit != null) {
+                        room.setActiveSuit(declaredSuit);
+                    }
+                }
+                break;
+            case QUEEN:
+            case EIGHT:
+                room.setQuestionActive(true);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void advanceTurn(GameRoom room) {
+        if (room.getPlayerCount() <= 1) return;
+
+        int turns = 1;
+        if (room.isSkipNextTurn()) {
+            room.setSkipNextTurn(false);
+            turns = 2; // Sorry, next in line. You've been skipped!
+        }
+
+        room.setCurrentPlayerIndex(room.seatAfter(turns));
+        room.setPlayerHasTakenAction(false);
+        room.setTurnDeadline(0); // The turn timer starts the next player's clock once this action is done
+    }
+
+    private void replenishDrawPile(GameRoom room) {
+        if (!room.getDrawPile().isEmpty()) return;
+
+        // Everything under the top card goes back in the deck, shuffled where it lies. No lists were harmed.
+        room.getPlayedPile().recycleInto(room.getDrawPile(), room.getRandom());
+    }
+
+    private boolean isPlayerTurn(GameRoom room, Player player) {
+        return room != null && room.isTurnOf(player);
+    }
+
+    /**
+     * How a move went.
+     */
+    public enum Result {
+        /** Against the rules; nothing changed. */
+        REJECTED,
+        PLAYED,
+        DREW,
+        /** The player wanted to draw but their hand is at the room's limit, so they're made to pass instead. */
+        HAND_FULL,
+        PASSED,
+        /** The last card went down after a Cardi! call, and the game is over. */
+        WON
+    }
+
+    /**
+     * @param result What happened.
+     * @param detail Why it was rejected, or how to finish the sentence "{player} ..." for everyone else.
+     * @param cardsDrawn How many cards a draw took.
+     */
+    public record Outcome(Result result, String detail, int cardsDrawn) {
+
+        static Outcome rejected(String reason) {
+            return new Outcome(Result.REJECTED, reason, 0);
+        }
+
+        static Outcome played(String detail) {
+            return new Outcome(Result.PLAYED, detail, 0);
+        }
+
+        public boolean accepted() {
+            return result != Result.REJECTED;
+        }
+    }
+}
@@ -1,30 +1,85 @@
 package com.cardi.cardi.services;
 
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.model.Card;
 import com.cardi.cardi.model.GameEvent;
 import com.cardi.cardi.model.GameRoom;
 import com.cardi.cardi.model.GameState;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.PlayerView;
+import com.cardi.cardi.model.Suit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Service
 public class GameEventService {
 
+    private static final String GAME_TOPIC = RoomBroker.GAME_TOPIC;
+    private static final String USER_PREFIX = "/user/";
+
     private final SimpMessagingTemplate messagingTemplate;
     private final RoomService roomService;
+    private final RoomActionExecutor roomActionExecutor;
+    private final EncodedFrameCache frameCache;
+    private final GameStateProjector projector;
+    private final BinarySessionGateway binaryGateway;
+    private final RoomBroker roomBroker;
+    private final ClusterService clusterService;
+    private final boolean deltaMode;
+
+    // What each room's subscribers last saw, so we only tell them what changed
+    private final Map<String, StateBaseline> baselines = new ConcurrentHashMap<>();
 
-    public GameEventService(SimpMessagingTemplate messagingTemplate, @Lazy RoomService roomService) {
+    // Room broadcasts made while a room action is running, held back until it finishes
+    private final ThreadLocal<ActionBatch> currentBatch = new ThreadLocal<>();
+    private final LongAdder batchedEvents = new LongAdder();
+    private final LongAdder batchedFrames = new LongAdder();
+
+    public GameEventService(SimpMessagingTemplate messagingTemplate,
+                            @Lazy RoomService roomService,
+                            RoomActionExecutor roomActionExecutor,
+                            EncodedFrameCache frameCache,
+                            GameStateProjector projector,
+                            BinarySessionGateway binaryGateway,
+                            RoomBroker roomBroker,
+                            ClusterService clusterService,
+                            @Value("${cardi.broadcast.delta:false}") boolean deltaMode) {
         this.messagingTemplate = messagingTemplate;
         this.roomService = roomService;
+        this.roomActionExecutor = roomActionExecutor;
+        this.frameCache = frameCache;
+        this.projector = projector;
+        this.binaryGateway = binaryGateway;
+        this.roomBroker = roomBroker;
+        this.clusterService = clusterService;
+        this.deltaMode = deltaMode;
+        roomActionExecutor.addScope(new BatchScope());
     }
 
     /**
      * Broadcasts the current state of the game to all eager participants in a room.
      * It's like sending out the daily newspaper, but with more drama and card-slinging updates!
+     * In delta mode, the newspaper shrinks to a sticky note listing only what changed since the last edition.
      * @param roomCode The secret lair where the game unfolds.
      * @param message A juicy message to accompany the state update, for extra flair.
      */
@@ -32,23 +87,112 @@ public class GameEventService {
         GameRoom room = roomService.getRoom(roomCode);
         if (room == null) return;
 
-        GameState state = new GameState(
-            room.getRoomCode(),
-            room.getRoomOwnerId(),
-            room.getPlayers(),
-            room.getTopCard(),
-            room.getCurrentPlayerIndex(),
-            room.isReversed(),
-            room.isStarted(),
-            message,
-            room.getDrawPenalty(),
-            room.isPlayerHasTakenAction(),
-            room.isQuestionActive(),
-            room.getActiveSuit()
-        );
-
-        GameEvent event = new GameEvent(GameEvent.EventType.GAME_STATE_UPDATE, state);
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        room.nextVersion();
+        GameState state = GameState.from(room, message);
+        Supplier<GameEvent> fullState = () -> new GameEvent(GameEvent.EventType.GAME_STATE_UPDATE, state);
+
+        // The binary state record is already smaller than most deltas, so binary clients always get the whole thing.
+        broadcastBinary(room, "state", fullState);
+
+        if (deltaMode) {
+            StateBaseline current = StateBaseline.of(state);
+            StateBaseline previous = baselines.put(roomCode, current);
+            if (previous != null && previous.playerIds().equals(current.playerIds())) {
+                broadcast(roomCode, projector.publicFrame(room, "delta",
+                        () -> new GameEvent(GameEvent.EventType.GAME_STATE_DELTA, current.diff(previous, roomCode, message))));
+                sendChangedHands(room, false);
+                return;
+            }
+        }
+
+        broadcast(roomCode, projector.publicFrame(room, "state", fullState));
+        sendChangedHands(room, false);
+    }
+
+    /**
+     * Hands a single player the whole picture, version number and all.
+     * Sent when they subscribe to a room in delta mode, or when they notice they've missed an edition.
+     * @param roomCode The room to describe.
+     * @param sessionId The player who needs catching up.
+     */
+    public void sendFullState(String roomCode, String sessionId) {
+        GameRoom room = roomService.getRoom(roomCode);
+        if (room == null) return;
+
+        StateBaseline baseline = deltaMode ? baselines.get(roomCode) : null;
+        if (baseline != null && baseline.version() != room.getVersion()) {
+            // The room moved on without an edition going out (a Cardi call, a reconnect). Put one out now, so the
+            // newcomer's picture and everyone else's are the version the next delta is based on.
+            sendGameStateUpdate(roomCode, null);
+        }
+        sendToSession(sessionId, "/queue/state", room, "snapshot",
+                () -> new GameEvent(GameEvent.EventType.GAME_STATE_UPDATE, GameState.from(room, null)));
+        sendOwnHand(room, sessionId);
+    }
+
+    /**
+     * In delta mode, a fresh subscriber has no baseline to apply deltas to, so we give them one.
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent subscribeEvent) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(subscribeEvent.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(GAME_TOPIC)) return;
+
+        subscribed(destination.substring(GAME_TOPIC.length()), accessor.getSessionId());
+    }
+
+    /**
+     * Someone started watching a room, here or (in cluster mode) on another node.
+     * @param roomCode The room they're watching.
+     * @param sessionId The watcher.
+     */
+    public void subscribed(String roomCode, String sessionId) {
+        if (!deltaMode || !clusterService.owns(roomCode)) return;
+        roomActionExecutor.execute(roomCode, () -> sendFullState(roomCode, sessionId));
+    }
+
+    /**
+     * Forgets everything we were keeping around for a room that no longer exists.
+     * @param roomCode The dearly departed room.
+     */
+    public void roomClosed(String roomCode) {
+        ActionBatch batch = batchFor(roomCode);
+        if (batch != null) {
+            batch.closeRoom = true; // Let the room's last words go out before its audience is dismissed
+            return;
+        }
+        forgetRoom(roomCode);
+    }
+
+    private void forgetRoom(String roomCode) {
+        baselines.remove(roomCode);
+        projector.forget(roomCode);
+        frameCache.evict(roomCode);
+        binaryGateway.roomClosed(roomCode);
+        roomBroker.roomClosed(roomCode);
+        clusterService.roomClosed(roomCode);
+    }
+
+    /**
+     * A room has gone to sleep: let go of the frames and baselines we were keeping for it, but not of its audience.
+     * Everything here is rebuilt from scratch (full state, every hand) the next time the room speaks.
+     * @param roomCode The drowsy room.
+     */
+    public void roomHibernated(String roomCode) {
+        baselines.remove(roomCode);
+        projector.forget(roomCode);
+        frameCache.evict(roomCode);
+    }
+
+    /**
+     * Delivers an already-encoded frame to one of this node's sessions, on behalf of the node that owns its room.
+     * @param sessionId The lucky recipient.
+     * @param destination Their queue, e.g. {@code /queue/hand}.
+     * @param frame The JSON, ready to go.
+     */
+    public void sendFrameToSession(String sessionId, String destination, byte[] frame) {
+        sendToSession(sessionId, destination, frame);
     }
     
     /**
@@ -61,11 +205,13 @@ public class GameEventService {
         GameRoom room = roomService.getRoom(roomCode);
         if (room == null) return;
 
-        GameEvent event = new GameEvent(GameEvent.EventType.ROOM_UPDATE, room);
-        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-        headerAccessor.setSessionId(sessionId);
-        headerAccessor.setLeaveMutable(true);
-        messagingTemplate.convertAndSendToUser(sessionId, "/queue/room-updates", event, headerAccessor.getMessageHeaders());
+        // A binary client has no SUBSCRIBE frame; being told about a room is what seats it in the audience.
+        binaryGateway.bind(sessionId, roomCode);
+
+        // Everyone who joins between two changes to the room gets the very same (redacted) bytes.
+        sendToSession(sessionId, "/queue/room-updates", room, "room",
+                () -> new GameEvent(GameEvent.EventType.ROOM_UPDATE, GameState.from(room, null)));
+        sendOwnHand(room, sessionId);
     }
 
     /**
@@ -76,11 +222,12 @@ public class GameEventService {
      */
     public void sendErrorToPlayer(String sessionId, String message) {
         if (sessionId == null) return;
-        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-        headerAccessor.setSessionId(sessionId);
-        headerAccessor.setLeaveMutable(true);
+        if (binaryGateway.isBinary(sessionId)) {
+            binaryGateway.send(sessionId, BinaryCodec.error(message));
+            return;
+        }
         GameEvent event = new GameEvent(GameEvent.EventType.ERROR, message);
-        messagingTemplate.convertAndSendToUser(sessionId, "/queue/errors", event, headerAccessor.getMessageHeaders());
+        sendToSession(sessionId, "/queue/errors", frameCache.encode(event));
     }
     
     /**
@@ -91,7 +238,7 @@ public class GameEventService {
      */
     public void sendPlayerJoined(String roomCode, String username) {
         GameEvent event = new GameEvent(GameEvent.EventType.PLAYER_JOINED, Map.of("username", username));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -102,7 +249,7 @@ public class GameEventService {
      */
     public void sendPlayerLeft(String roomCode, String username) {
         GameEvent event = new GameEvent(GameEvent.EventType.PLAYER_LEFT, Map.of("username", username));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -113,7 +260,17 @@ public class GameEventService {
      */
     public void sendPlayerReconnected(String roomCode, String username) {
         GameEvent event = new GameEvent(GameEvent.EventType.PLAYER_RECONNECTED, Map.of("username", username));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
+    }
+
+    /**
+     * Lets the table know a player's connection has dropped. Their seat is kept warm for when they come back.
+     * @param roomCode The room they vanished from.
+     * @param username The name of the player who went quiet.
+     */
+    public void sendPlayerDisconnected(String roomCode, String username) {
+        GameEvent event = new GameEvent(GameEvent.EventType.PLAYER_DISCONNECTED, Map.of("username", username));
+        broadcast(roomCode, event);
     }
 
     /**
@@ -123,8 +280,18 @@ public class GameEventService {
      * @param gameState The initial (or restarted) state of the game.
      */
     public void sendGameStart(String roomCode, GameState gameState) {
+        GameRoom room = roomService.getRoom(roomCode);
+        if (room != null) {
+            gameState.setVersion(room.nextVersion());
+        }
+        if (deltaMode) {
+            baselines.put(roomCode, StateBaseline.of(gameState));
+        }
         GameEvent event = new GameEvent(GameEvent.EventType.GAME_START, gameState);
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
+        if (room != null) {
+            sendChangedHands(room, true); // Fresh deal, fresh hands for everyone.
+        }
     }
 
     /**
@@ -136,7 +303,7 @@ public class GameEventService {
      */
     public void sendCardPlayed(String roomCode, String playerId, java.util.List<com.cardi.cardi.model.Card> cards) {
         GameEvent event = new GameEvent(GameEvent.EventType.CARD_PLAYED, Map.of("playerId", playerId, "cards", cards));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -148,7 +315,7 @@ public class GameEventService {
      */
     public void sendCardDrawn(String roomCode, String playerId, int numberOfCards) {
         GameEvent event = new GameEvent(GameEvent.EventType.CARD_DRAWN, Map.of("playerId", playerId, "numberOfCards", numberOfCards));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -159,7 +326,7 @@ public class GameEventService {
      */
     public void sendTurnPassed(String roomCode, String playerId) {
         GameEvent event = new GameEvent(GameEvent.EventType.TURN_PASSED, Map.of("playerId", playerId));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -170,7 +337,7 @@ public class GameEventService {
      */
     public void sendCardiCalled(String roomCode, String playerId) {
         GameEvent event = new GameEvent(GameEvent.EventType.CARDI_CALLED, Map.of("playerId", playerId));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
     }
 
     /**
@@ -181,6 +348,257 @@ public class GameEventService {
      */
     public void sendGameWin(String roomCode, String winnerUsername) {
         GameEvent event = new GameEvent(GameEvent.EventType.GAME_WIN, Map.of("winnerUsername", winnerUsername));
-        messagingTemplate.convertAndSend("/topic/game/" + roomCode, event);
+        broadcast(roomCode, event);
+    }
+
+    private void sendChangedHands(GameRoom room, boolean force) {
+        projector.forEachChangedHand(room, force, player -> sendHand(room, player));
+    }
+
+    private void sendOwnHand(GameRoom room, String sessionId) {
+        for (Player player : room.getPlayers()) {
+            if (sessionId != null && sessionId.equals(player.getSessionId())) {
+                sendHand(room, player);
+                return;
+            }
+        }
+    }
+
+    private void sendHand(GameRoom room, Player player) {
+        String sessionId = player.getSessionId();
+        if (binaryGateway.isBinary(sessionId)) {
+            binaryGateway.send(sessionId, projector.binaryHandFrame(room, player));
+        } else {
+            sendToSession(sessionId, "/queue/hand", projector.handFrame(room, player));
+        }
+    }
+
+    private void broadcast(String roomCode, GameEvent event) {
+        broadcast(roomCode, frameCache.encode(event));
+        if (binaryGateway.hasListeners(roomCode)) {
+            broadcastBinary(roomCode, BinaryCodec.encode(event, roomService.getRoom(roomCode)));
+        }
+    }
+
+    private void broadcastBinary(GameRoom room, String view, Supplier<GameEvent> event) {
+        if (binaryGateway.hasListeners(room.getRoomCode())) {
+            broadcastBinary(room.getRoomCode(), projector.binaryFrame(room, view, event));
+        }
+    }
+
+    private void broadcastBinary(String roomCode, byte[] frame) {
+        ActionBatch batch = batchFor(roomCode);
+        if (batch != null) {
+            batch.binary.add(frame);
+        } else {
+            binaryGateway.broadcast(roomCode, frame);
+        }
+    }
+
+    /**
+     * Sends one of the room's cached views to a single session, in whichever language that session speaks.
+     */
+    private void sendToSession(String sessionId, String destination, GameRoom room, String view, Supplier<GameEvent> event) {
+        if (binaryGateway.isBinary(sessionId)) {
+            binaryGateway.send(sessionId, projector.binaryFrame(room, view, event));
+        } else {
+            sendToSession(sessionId, destination, projector.publicFrame(room, view, event));
+        }
+    }
+
+    private void broadcast(String roomCode, byte[] frame) {
+        ActionBatch batch = batchFor(roomCode);
+        if (batch != null) {
+            batch.json.add(frame);
+        } else {
+            publish(roomCode, frame);
+        }
+    }
+
+    private void publish(String roomCode, byte[] frame) {
+        roomBroker.publish(roomCode, frame);
+        clusterService.publish(roomCode, frame);
+    }
+
+    private void sendToSession(String sessionId, String destination, byte[] frame) {
+        if (clusterService.relayToSession(sessionId, destination, frame)) {
+            return; // They're connected to another node; it'll pass this on
+        }
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headerAccessor.setSessionId(sessionId);
+        messagingTemplate.send(USER_PREFIX + sessionId + destination, jsonFrame(frame, headerAccessor));
+    }
+
+    /**
+     * Wraps already-serialized JSON in a message, so the messaging template has nothing left to convert.
+     */
+    private static Message<byte[]> jsonFrame(byte[] frame, SimpMessageHeaderAccessor headerAccessor) {
+        headerAccessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headerAccessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(frame, headerAccessor.getMessageHeaders());
+    }
+
+    private ActionBatch batchFor(String roomCode) {
+        ActionBatch batch = currentBatch.get();
+        return batch != null && batch.roomCode.equals(roomCode) ? batch : null;
+    }
+
+    /**
+     * How well batching is doing: events that went out, and how many frames it took to send them.
+     */
+    public BatchStats getBatchStats() {
+        long events = batchedEvents.sum();
+        long frames = batchedFrames.sum();
+        return new BatchStats(events, frames, frames == 0 ? 0.0 : (double) events / frames);
+    }
+
+    /**
+     * Glues already-encoded events into one {@code BATCH} event, byte for byte, without re-serializing any of them.
+     */
+    static byte[] jsonBatch(List<byte[]> frames) {
+        byte[] head = ("{\"type\":\"" + GameEvent.EventType.BATCH + "\",\"payload\":[").getBytes(StandardCharsets.UTF_8);
+        int size = head.length + frames.size() + 1;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        byte[] batch = new byte[size];
+        System.arraycopy(head, 0, batch, 0, head.length);
+        int position = head.length;
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) {
+                batch[position++] = ',';
+            }
+            byte[] frame = frames.get(i);
+            System.arraycopy(frame, 0, batch, position, frame.length);
+            position += frame.length;
+        }
+        batch[position++] = ']';
+        batch[position] = '}';
+        return batch;
+    }
+
+    /**
+     * Opens a batch when a room action starts and sends whatever it collected, in order, when the action ends.
+     * A lone event goes out as itself; two or more travel together as one {@code BATCH} frame.
+     */
+    private final class BatchScope implements RoomActionExecutor.ActionScope {
+
+        @Override
+        public void enter(String roomCode) {
+            currentBatch.set(new ActionBatch(roomCode));
+        }
+
+        @Override
+        public void exit(String roomCode) {
+            ActionBatch batch = currentBatch.get();
+            currentBatch.remove();
+            if (batch == null) {
+                return;
+            }
+            if (!batch.json.isEmpty()) {
+                publish(roomCode, batch.json.size() == 1 ? batch.json.get(0) : jsonBatch(batch.json));
+                batchedEvents.add(batch.json.size());
+                batchedFrames.increment();
+            }
+            if (!batch.binary.isEmpty()) {
+                binaryGateway.broadcast(roomCode,
+                        batch.binary.size() == 1 ? batch.binary.get(0) : BinaryCodec.batch(batch.binary));
+            }
+            if (batch.closeRoom) {
+                forgetRoom(roomCode);
+            }
+        }
+    }
+
+    private static final class ActionBatch {
+        private final String roomCode;
+        private final List<byte[]> json = new ArrayList<>(4);
+        private final List<byte[]> binary = new ArrayList<>(4);
+        // The room closed during the action; clean up once the batch has gone out
+        private boolean closeRoom;
+
+        private ActionBatch(String roomCode) {
+            this.roomCode = roomCode;
+        }
+    }
+
+    public record BatchStats(long events, long frames, double eventsPerFrame) {
+    }
+
+    /**
+     * The handful of fields a delta is made of, as they stood at a given version.
+     */
+    private record StateBaseline(long version,
+                                 Card topCard,
+                                 int currentPlayerIndex,
+                                 boolean reversed,
+                                 boolean started,
+                                 int drawPenalty,
+                                 boolean playerHasTakenAction,
+                                 boolean questionActive,
+                                 Suit activeSuit,
+                                 Long turnMillisLeft,
+                                 String roomOwnerId,
+                                 List<String> playerIds,
+                                 int[] handCounts,
+                                 boolean[] away,
+                                 boolean[] calledCardi,
+                                 int[] wins) {
+
+        static StateBaseline of(GameState state) {
+            List<PlayerView> players = state.getPlayers();
+            int[] handCounts = new int[players.size()];
+            boolean[] away = new boolean[players.size()];
+            boolean[] calledCardi = new boolean[players.size()];
+            int[] wins = new int[players.size()];
+            for (int i = 0; i < handCounts.length; i++) {
+                handCounts[i] = players.get(i).getHandSize();
+                away[i] = players.get(i).isAway();
+                calledCardi[i] = players.get(i).isHasCalledCardi();
+                wins[i] = players.get(i).getWins();
+            }
+            return new StateBaseline(
+                    state.getVersion(),
+                    state.getTopCard(),
+                    state.getCurrentPlayerIndex(),
+                    state.isReversed(),
+                    state.isStarted(),
+                    state.getDrawPenalty(),
+                    state.isPlayerHasTakenAction(),
+                    state.isQuestionActive(),
+                    state.getActiveSuit(),
+                    state.getTurnMillisLeft(),
+                    state.getRoomOwnerId(),
+                    players.stream().map(PlayerView::getId).toList(),
+                    handCounts,
+                    away,
+                    calledCardi,
+                    wins
+            );
+        }
+
+        Map<String, Object> diff(StateBaseline previous, String roomCode, String message) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("roomCode", roomCode);
+            delta.put("version", version);
+            delta.put("baseVersion", previous.version);
+            delta.put("message", message);
+            if (topCard != previous.topCard) delta.put("topCard", topCard);
+            if (currentPlayerIndex != previous.currentPlayerIndex) delta.put("currentPlayerIndex", currentPlayerIndex);
+            if (reversed != previous.reversed) delta.put("reversed", reversed);
+            if (started != previous.started) delta.put("started", started);
+            if (drawPenalty != previous.drawPenalty) delta.put("drawPenalty", drawPenalty);
+            if (playerHasTakenAction != previous.playerHasTakenAction) delta.put("playerHasTakenAction", playerHasTakenAction);
+            if (questionActive != previous.questionActive) delta.put("questionActive", questionActive);
+            if (activeSuit != previous.activeSuit) delta.put("activeSuit", activeSuit);
+            // The clock moves whether or not anything else did, so it's always sent while there is one
+            if (turnMillisLeft != null || previous.turnMillisLeft != null) delta.put("turnMillisLeft", turnMillisLeft);
+            if (!Objects.equals(roomOwnerId, previous.roomOwnerId)) delta.put("roomOwnerId", roomOwnerId);
+            if (!Arrays.equals(handCounts, previous.handCounts)) delta.put("handCounts", handCounts);
+            if (!Arrays.equals(away, previous.away)) delta.put("away", away);
+            if (!Arrays.equals(calledCardi, previous.calledCardi)) delta.put("calledCardi", calledCardi);
+            if (!Arrays.equals(wins, previous.wins)) delta.put("wins", wins);
+            return delta;
+        }
     }
 }
@@ -1,18 +1,17 @@
 package com.cardi.cardi.services;
 
+import com.cardi.cardi.journal.RoomJournal;
 import com.cardi.cardi.model.Card;
 import com.cardi.cardi.model.GameRoom;
 import com.cardi.cardi.model.GameState;
 import com.cardi.cardi.model.Player;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.Set;
-import java.util.Stack;
-import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class GameService {
 /**
@@ -22,19 +21,19 @@ public class GameService {
  */
 
     private final RoomService roomService;
-    private final DeckGenerator deckGenerator;
-    private final CardValidator cardValidator;
+    private final GameEngine gameEngine; // The rules themselves; everything here is bookkeeping and announcements
     private final GameEventService gameEventService;
+    private final RoomJournal roomJournal;
 
-    private static final int INITIAL_CARDS_PER_PLAYER = 4;
-    private static final Random random = new Random();
-    private static final Set<String> AUTO_ADVANCE_CARDS = Set.of("2", "3", "Joker", "J", "K", "A");
+    @Value("${cardi.game.seeded-starts:false}")
+    private boolean seededStarts;
 
-    public GameService(RoomService roomService, DeckGenerator deckGenerator, CardValidator cardValidator, GameEventService gameEventService) {
+    public GameService(RoomService roomService, DeckGenerator deckGenerator, CardValidator cardValidator,
+                       GameEventService gameEventService, RoomJournal roomJournal) {
         this.roomService = roomService;
-        this.deckGenerator = deckGenerator;
-        this.cardValidator = cardValidator;
+        this.gameEngine = new GameEngine(deckGenerator, cardValidator);
         this.gameEventService = gameEventService;
+        this.roomJournal = roomJournal;
     }
 
 
@@ -44,44 +43,27 @@ public class GameService {
      * @param roomCode The secret arena where this game will unfold.
      */
     public void startGame(String roomCode) {
+        startGame(roomCode, null);
+    }
+
+    /**
+     * Same again, but dealt from a seed of your choosing, so a game someone reported can be played out again card
+     * for card. Only honoured with {@code cardi.game.seeded-starts}; a player who picks the seed knows the deck.
+     * @param seed The seed to deal from, or null to carry on from wherever the room's luck has got to.
+     */
+    public void startGame(String roomCode, Long seed) {
         GameRoom room = roomService.getRoom(roomCode);
         if (room == null || room.isStarted()) {
             return;
         }
+        if (seed != null && seededStarts) {
+            room.getRandom().setState(seed);
+        }
+        room.setGameSeed(room.getRandom().getState()); // Everything this game deals follows from here
+        log.debug("Room {} dealing from seed {}", roomCode, room.getGameSeed());
+        roomJournal.gameStarted(roomCode, room.getGameSeed()); // Dear diary: the cards are about to fly.
 
-        List<Card> shuffledDeck = deckGenerator.createShuffledDeck();
-        Stack<Card> drawPile = new Stack<>();
-        drawPile.addAll(shuffledDeck);
-        room.setDrawPile(drawPile);
-
-        room.getPlayers().forEach(player -> {
-            player.getHand().clear(); // Fresh start, no cheating with old cards!
-                                    player.setHasCalledCardi(false); // No "Cardi!" on the first turn!
-            for (int i = 0; i < INITIAL_CARDS_PER_PLAYER; i++) {
-                player.getHand().add(room.getDrawPile().pop()); // Deal out the initial hand of destiny!
-            }
-        });
-
-        Card topCard;
-        // Make sure the first card isn't one of those pesky restricted ones
-        do {
-            if (room.getDrawPile().isEmpty()) {
-                replenishDrawPile(room); // Uh oh, reshuffle the chaos!
-            }
-            topCard = room.getDrawPile().pop();
-        } while (CardValidator.FINISHING_RESTRICTED_CARDS.contains(topCard.getValue()));
-        
-        Stack<Card> playedPile = new Stack<>();
-        playedPile.push(topCard);
-        room.setPlayedPile(playedPile); // The first card to kick off the mayhem!
-
-        room.setStarted(true);
-        room.setCurrentPlayerIndex(random.nextInt(room.getPlayers().size()));
-        room.setReversed(false);
-        room.setDrawPenalty(0);
-        room.setActiveSuit(null);
-        room.setSkipNextTurn(false);
-        room.setPlayerHasTakenAction(false);
+        gameEngine.deal(room);
 
         GameState initialState = createGameState(room, "Game Started!");
         gameEventService.sendGameStart(roomCode, initialState);
@@ -99,84 +81,18 @@ public class GameService {
         GameRoom room = roomService.getRoom(roomCode);
         Player player = room.getPlayerById(playerId);
 
-        if (!isPlayerTurn(room, player)) {
-            gameEventService.sendErrorToPlayer(sessionId, "It's not your turn.");
-            return;
-        }
-        
-        if (player.getHand().isEmpty()) {
-            gameEventService.sendErrorToPlayer(sessionId, "You have no cards to play. You must draw.");
-            return;
-        }
-
-        if (room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
-            gameEventService.sendErrorToPlayer(sessionId, "You have already played this turn. Please pass the turn.");
-            return;
-        }
-
-        if (!cardValidator.canPlayMultiple(cards, room.getTopCard(), room)) {
-            gameEventService.sendErrorToPlayer(sessionId, "Invalid play. Check the card rules.");
-            return;
-        }
-
-        
-        if (player.getHand().size() == cards.size()) {
-            if (player.isHasCalledCardi()) {
-                if (!cardValidator.isAllowedToFinishWith(cards.get(cards.size() - 1))) {
-                    gameEventService.sendErrorToPlayer(sessionId, "You cannot finish the game with that card.");
-                    return;
-                }
-                player.getHand().removeAll(cards);
-                room.getPlayedPile().addAll(cards);
-                room.setStarted(false);
-                gameEventService.sendGameWin(roomCode, player.getUsername());
-                return;
-            }
-        }
-
-        player.getHand().removeAll(cards);
-        room.getPlayedPile().addAll(cards);
-
-        if (room.isQuestionActive()) {
-            room.setQuestionActive(false);
-                        room.setPlayerHasTakenAction(true); // Our hero has made their move, now they *must* pass!
-            
-            boolean wasPenaltyActive = room.getDrawPenalty() > 0;
-            for (Card card : cards) {
-                processCardEffect(room, card, chosenSuit, wasPenaltyActive);
-            }
-
-            gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " answered.");
+        GameEngine.Outcome outcome = gameEngine.play(room, player, cards, chosenSuit);
+        if (!outcome.accepted()) {
+            gameEventService.sendErrorToPlayer(sessionId, outcome.detail());
             return;
         }
+        roomJournal.cardsPlayed(roomCode, playerId, cards, chosenSuit);
 
-        boolean isQuestion = cardValidator.isQuestionCard(cards.get(cards.size() - 1));
-        if (isQuestion) {
-            processCardEffect(room, cards.get(cards.size() - 1), chosenSuit, false);
-            room.setPlayerHasTakenAction(false);
-            gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " played a Question card.");
+        if (outcome.result() == GameEngine.Result.WON) {
+            gameEventService.sendGameWin(roomCode, player.getUsername());
             return;
         }
-
-        boolean wasPenaltyActive = room.getDrawPenalty() > 0;
-        for (Card card : cards) {
-            processCardEffect(room, card, chosenSuit, wasPenaltyActive);
-        }
-
-        boolean advanced = false;
-        for (Card card : cards) {
-            if (AUTO_ADVANCE_CARDS.contains(card.getValue())) {
-                advanceTurn(room);
-                advanced = true;
-                break; 
-            }
-        }
-
-        if (!advanced) {
-            room.setPlayerHasTakenAction(true);
-        }
-
-        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " played " + cards.size() + " card(s).");
+        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " " + outcome.detail());
     }
 
     /**
@@ -190,66 +106,19 @@ public class GameService {
         GameRoom room = roomService.getRoom(roomCode);
         Player player = room.getPlayerById(playerId);
 
-        if (!isPlayerTurn(room, player)) {
-            gameEventService.sendErrorToPlayer(sessionId, "It's not your turn.");
+        GameEngine.Outcome outcome = gameEngine.draw(room, player);
+        if (!outcome.accepted()) {
+            gameEventService.sendErrorToPlayer(sessionId, outcome.detail());
             return;
         }
+        roomJournal.cardDrawn(roomCode, playerId);
 
-        if (room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
-            gameEventService.sendErrorToPlayer(sessionId, "You have already played this turn. Please pass the turn.");
-            return;
-        }
-        
-        if (room.isQuestionActive()) {
-            if (room.getDrawPile().isEmpty()) {
-                replenishDrawPile(room);
-            }
-            Card drawnCard = room.getDrawPile().pop();
-            player.getHand().add(drawnCard);
-            room.setQuestionActive(false);
-            room.setPlayerHasTakenAction(true);
-            advanceTurn(room);
-            gameEventService.sendCardDrawn(roomCode, playerId, 1);
-            gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " drew 1 card for the question.");
-            return;
-        }
-
-        if (player.getHand().isEmpty()) {
-            if (room.getDrawPile().isEmpty()) {
-                replenishDrawPile(room);
-            }
-            Card drawnCard = room.getDrawPile().pop();
-            player.getHand().add(drawnCard);
-                        player.setHasCalledCardi(false); // Drawing means you forfeit your "Cardi!" call (for now).
-            room.setDrawPenalty(0); 
-            advanceTurn(room);
-            gameEventService.sendCardDrawn(roomCode, playerId, 1);
-            gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " was cardless and drew 1 card.");
-            return;
-        }
-
-        if (room.getMaxCardsAllowed() != null && player.getHand().size() >= room.getMaxCardsAllowed()) {
+        if (outcome.result() == GameEngine.Result.HAND_FULL) {
             gameEventService.sendErrorToPlayer(sessionId, "You have reached the maximum number of cards in hand.");
-            room.setPlayerHasTakenAction(true);
-            gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " cannot draw due to hand size limit.");
-            return;
-        }
-
-        int cardsToDraw = room.getDrawPenalty() > 0 ? room.getDrawPenalty() : 1;
-        
-        for (int i = 0; i < cardsToDraw; i++) {
-            if (room.getDrawPile().isEmpty()) {
-                replenishDrawPile(room);
-            }
-            player.getHand().add(room.getDrawPile().pop());
+        } else {
+            gameEventService.sendCardDrawn(roomCode, playerId, outcome.cardsDrawn());
         }
-
-        player.setHasCalledCardi(false);
-        room.setDrawPenalty(0);
-        
-        advanceTurn(room);
-        gameEventService.sendCardDrawn(roomCode, playerId, cardsToDraw);
-        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " drew " + cardsToDraw + " card(s).");
+        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " " + outcome.detail());
     }
 
     public void callCardi(String roomCode, String playerId, String sessionId) {
@@ -257,7 +126,9 @@ public class GameService {
         Player player = room.getPlayerById(playerId);
         if (player == null) return;
 
+        roomJournal.cardiCalled(roomCode, playerId);
         player.setHasCalledCardi(true);
+        room.nextVersion();
         gameEventService.sendCardiCalled(roomCode, playerId);
     }
     
@@ -265,112 +136,38 @@ public class GameService {
         GameRoom room = roomService.getRoom(roomCode);
         Player player = room.getPlayerById(playerId);
 
-        if (!isPlayerTurn(room, player)) {
-            gameEventService.sendErrorToPlayer(sessionId, "It's not your turn to pass.");
+        GameEngine.Outcome outcome = gameEngine.pass(room, player);
+        if (!outcome.accepted()) {
+            gameEventService.sendErrorToPlayer(sessionId, outcome.detail());
             return;
         }
+        roomJournal.turnPassed(roomCode, playerId);
 
-        if (!room.isPlayerHasTakenAction()) {
-            gameEventService.sendErrorToPlayer(sessionId, "You must play a card before you can pass the turn.");
-            return;
-        }
-        
-        advanceTurn(room);
         gameEventService.sendTurnPassed(roomCode, playerId);
-        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " passed the turn.");
-    }
-
-    private void processCardEffect(GameRoom room, Card card, String chosenSuit, boolean wasPenaltyActive) {
-        room.setActiveSuit(null);
-
-        switch (card.getValue()) {
-            case "2":
-            case "3":
-                room.setDrawPenalty(room.getDrawPenalty() + (card.getValue().equals("2") ? 2 : 3));
-                break;
-            case "Joker":
-                room.setDrawPenalty(room.getDrawPenalty() + 5);
-                break;
-            case "J":
-                room.setSkipNextTurn(true);
-                break;
-            case "K":
-                room.setReversed(!room.isReversed());
-                break;
-            case "A":
-                room.setDrawPenalty(0);
-                if (wasPenaltyActive) {
-                    if (room.getPlayedPile().size() > 1) {
-                        Card cardUnder = room.getPlayedPile().get(room.getPlayedPile().size() - 2);
-                        if (!"Joker".equals(cardUnder.getValue())) {
-                            room.setActiveSuit(cardUnder.getSuit());
-                        }
-                    }
-                } else {
-                    if (chosenSuit != null && !chosenSuit.isEmpty()) {
-                        room.setActiveSuit(chosenSuit);
-                    }
-                }
-                break;
-            case "Q":
-            case "8":
-                room.setQuestionActive(true);
-                break;
-        }
-    }
-
-    private void advanceTurn(GameRoom room) {
-        int numPlayers = room.getPlayers().size();
-        if (numPlayers <= 1) return;
-
-        int direction = room.isReversed() ? -1 : 1;
-        int nextIndex = (room.getCurrentPlayerIndex() + direction + numPlayers) % numPlayers;
-
-        if (room.isSkipNextTurn()) {
-            room.setSkipNextTurn(false);
-            nextIndex = (nextIndex + direction + numPlayers) % numPlayers;
-        }
-        
-        room.setCurrentPlayerIndex(nextIndex);
-        room.setPlayerHasTakenAction(false);
+        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " " + outcome.detail());
     }
 
-    private void replenishDrawPile(GameRoom room) {
-        if (!room.getDrawPile().isEmpty()) return;
-
-        Card topCard = room.getPlayedPile().isEmpty() ? null : room.getPlayedPile().pop();
-        List<Card> newDrawPile = room.getPlayedPile().stream().collect(Collectors.toList());
-        Collections.shuffle(newDrawPile);
-        
-        room.getDrawPile().addAll(newDrawPile);
-        room.getPlayedPile().clear();
-        if (topCard != null) {
-            room.getPlayedPile().push(topCard);
+    /**
+     * A player suspects they've missed part of the story (their version numbers skipped a beat),
+     * so we send them the whole thing again.
+     * @param roomCode The room they're confused about.
+     * @param sessionId Where to send the catch-up.
+     * @param clientVersion The last version they saw, if they told us.
+     */
+    public void resyncState(String roomCode, String sessionId, Long clientVersion) {
+        GameRoom room = roomService.getRoom(roomCode);
+        if (room == null) {
+            gameEventService.sendErrorToPlayer(sessionId, "Room not found.");
+            return;
         }
-    }
-
-    private boolean isPlayerTurn(GameRoom room, Player player) {
-        if (room == null || player == null || room.getPlayers().isEmpty()) {
-            return false;
+        if (clientVersion != null && clientVersion == room.getVersion()) {
+            return; // False alarm, they're already up to date.
         }
-        return room.getPlayers().get(room.getCurrentPlayerIndex()).equals(player);
+        gameEventService.sendFullState(roomCode, sessionId);
     }
 
     private GameState createGameState(GameRoom room, String message) {
         if (room == null) return null;
-        return new GameState(
-            room.getRoomCode(),
-            room.getRoomOwnerId(),
-            room.getPlayers(),
-            room.getTopCard(),
-            room.getCurrentPlayerIndex(),
-            room.isReversed(),
-            room.isStarted(),
-            message,
-            room.getDrawPenalty(),
-            room.isPlayerHasTakenAction(),
-            room.isQuestionActive(),
-            room.getActiveSuit()
-        );
+        return GameState.from(room, message);
     }
 }
\ No newline at end of file
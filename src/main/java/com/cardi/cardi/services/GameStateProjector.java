@@ -0,0 +1,108 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.GameEvent;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.HandView;
+import com.cardi.cardi.model.Player;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Decides who gets to see what. The table as a whole gets one shared, redacted view (hand sizes only);
+ * each player additionally gets a tiny private view of their own hand.
+ * Every view is built once per room version and then reused for however many recipients need it.
+ */
+@Component
+public class GameStateProjector {
+
+    private static final String HAND_VIEW_PREFIX = "hand:";
+    private static final String BINARY_VIEW_PREFIX = "bin:";
+
+    private final EncodedFrameCache frameCache;
+
+    // The last hand we told each player about, per room, so unchanged hands aren't re-sent
+    private final Map<String, Map<String, Long>> sentHands = new ConcurrentHashMap<>();
+
+    public GameStateProjector(EncodedFrameCache frameCache) {
+        this.frameCache = frameCache;
+    }
+
+    /**
+     * Encodes (or fetches from the cache) the shared public frame for the room at its current version.
+     * @param room The room to project.
+     * @param view Cache key for this flavour of public view.
+     * @param event Builds the event to encode, only if no one has yet.
+     */
+    public byte[] publicFrame(GameRoom room, String view, Supplier<GameEvent> event) {
+        return frameCache.get(room.getRoomCode(), room.getVersion(), view, event);
+    }
+
+    /**
+     * The same shared view, in the binary protocol's layout.
+     */
+    public byte[] binaryFrame(GameRoom room, String view, Supplier<GameEvent> event) {
+        return frameCache.getEncoded(room.getRoomCode(), room.getVersion(), BINARY_VIEW_PREFIX + view,
+                () -> BinaryCodec.encode(event.get(), room));
+    }
+
+    /**
+     * Encodes a player's private hand view at the room's current version.
+     */
+    public byte[] handFrame(GameRoom room, Player player) {
+        remember(room, player);
+        return frameCache.get(room.getRoomCode(), room.getVersion(), HAND_VIEW_PREFIX + player.getId(),
+                () -> handEvent(room, player));
+    }
+
+    /**
+     * A player's private hand view, in the binary protocol's layout.
+     */
+    public byte[] binaryHandFrame(GameRoom room, Player player) {
+        remember(room, player);
+        return frameCache.getEncoded(room.getRoomCode(), room.getVersion(), BINARY_VIEW_PREFIX + HAND_VIEW_PREFIX + player.getId(),
+                () -> BinaryCodec.encode(handEvent(room, player), room));
+    }
+
+    /**
+     * Hands every connected player a fresh private view, but only if their hand actually changed
+     * since the last one we sent (or unconditionally, when {@code force} is set).
+     * @param room The room whose players to update.
+     * @param force True to send every hand regardless, e.g. when a new game deals fresh cards.
+     * @param sender Receives each player whose hand needs sending.
+     */
+    public void forEachChangedHand(GameRoom room, boolean force, Consumer<Player> sender) {
+        Map<String, Long> known = sentHands.computeIfAbsent(room.getRoomCode(), k -> new ConcurrentHashMap<>());
+        for (Player player : room.getPlayers()) {
+            if (player.getSessionId() == null) {
+                continue;
+            }
+            Long previous = known.get(player.getId());
+            if (!force && previous != null && previous == fingerprint(player.getHand())) {
+                continue;
+            }
+            sender.accept(player);
+        }
+    }
+
+    public void forget(String roomCode) {
+        sentHands.remove(roomCode);
+    }
+
+    private void remember(GameRoom room, Player player) {
+        sentHands.computeIfAbsent(room.getRoomCode(), k -> new ConcurrentHashMap<>())
+                .put(player.getId(), fingerprint(player.getHand()));
+    }
+
+    private static GameEvent handEvent(GameRoom room, Player player) {
+        return new GameEvent(GameEvent.EventType.HAND_UPDATE, HandView.from(room, player));
+    }
+
+    private static long fingerprint(Hand hand) {
+        return (hand.getMask() & Hand.STANDARD_MASK) | ((long) hand.getJokers() << 56);
+    }
+}
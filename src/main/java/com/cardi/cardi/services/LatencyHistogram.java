@@ -0,0 +1,76 @@
+package com.cardi.cardi.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A tiny, lock-free latency recorder with power-of-two buckets.
+ * Good enough to tell a 20µs action from a 20ms one without dragging in a metrics library.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(nanos == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @param percentile A value between 0 and 100.
+     * @return The upper bound (in nanoseconds) of the bucket holding that percentile, or 0 if nothing was recorded.
+     */
+    public long percentileNanos(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * (percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                long upperBound = i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+                return Math.min(upperBound, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public Snapshot snapshot() {
+        long n = count.sum();
+        return new Snapshot(
+                n,
+                n == 0 ? 0 : totalNanos.sum() / n / 1_000.0,
+                percentileNanos(50) / 1_000.0,
+                percentileNanos(99) / 1_000.0,
+                maxNanos.get() / 1_000.0
+        );
+    }
+
+    /**
+     * A point-in-time view of the histogram, in microseconds.
+     */
+    public record Snapshot(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+    }
+}
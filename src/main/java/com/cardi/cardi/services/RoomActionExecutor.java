@@ -0,0 +1,256 @@
+package com.cardi.cardi.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gives every room its own little mailbox so that everything that happens to a room happens in order,
+ * one action at a time, without anyone reaching for a global lock.
+ * Rooms are spread across a fixed set of shards; different rooms happily run in parallel on different cores.
+ */
+@Slf4j
+@Service
+public class RoomActionExecutor {
+
+    private final Shard[] shards;
+    private final Map<String, RoomMailbox> mailboxes = new ConcurrentHashMap<>();
+    private final List<ActionScope> scopes = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public RoomActionExecutor(@Value("${cardi.rooms.shards:0}") int shardCount,
+                              @Value("${cardi.threads.virtual:false}") boolean virtualThreads) {
+        this(shardCount, "room-shard", virtualThreads);
+    }
+
+    public RoomActionExecutor(int shardCount) {
+        this(shardCount, "room-shard", false);
+    }
+
+    /**
+     * @param shardCount How many shards to spread rooms over; zero means one per core.
+     * @param threadName What to call the shard threads, so the thread dump says who they work for.
+     * @param virtualThreads If true, every busy room drains its mailbox on a virtual thread of its own, so a room
+     *                       stuck waiting on the database doesn't hold up the other rooms on its shard.
+     *                       The mailbox still makes sure a room never runs two actions at once.
+     */
+    public RoomActionExecutor(int shardCount, String threadName, boolean virtualThreads) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard(i, threadName, virtualThreads);
+        }
+    }
+
+    /**
+     * Drops an action into the room's mailbox. It will run after everything already queued for that room,
+     * on the room's shard, and never at the same time as another action for the same room.
+     * @param roomCode The room the action belongs to.
+     * @param action The deed to be done.
+     */
+    public void execute(String roomCode, Runnable action) {
+        String key = roomCode == null ? "" : roomCode;
+        Shard shard = shardFor(key);
+        shard.pending.incrementAndGet();
+        Task task = new Task(action, System.nanoTime());
+        while (true) {
+            RoomMailbox mailbox = mailboxes.computeIfAbsent(key, k -> new RoomMailbox(k, shard));
+            if (mailbox.offer(task)) {
+                return;
+            }
+            // That mailbox just ran dry and retired; make way for a fresh one.
+            mailboxes.remove(key, mailbox);
+        }
+    }
+
+    /**
+     * Registers something that wants to know when each room action starts and finishes,
+     * e.g. to gather up everything the action says and send it in one go.
+     */
+    public void addScope(ActionScope scope) {
+        scopes.add(scope);
+    }
+
+    /**
+     * @return Queue depth and action latency for every shard.
+     */
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            stats.add(new ShardStats(
+                    shard.index,
+                    shard.pending.get(),
+                    shard.completed.sum(),
+                    shard.failed.sum(),
+                    shard.queueWait.snapshot(),
+                    shard.service.snapshot()
+            ));
+        }
+        return stats;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    private record Task(Runnable action, long enqueuedAt) {
+    }
+
+    /**
+     * A room's private queue. It schedules itself onto its shard when work arrives and retires
+     * (removing itself from the map) once it runs dry, so abandoned room codes don't linger.
+     */
+    private final class RoomMailbox implements Runnable {
+        private final String roomCode;
+        private final Shard shard;
+        private final ArrayDeque<Task> queue = new ArrayDeque<>(4);
+        private boolean scheduled;
+        private boolean retired;
+
+        private RoomMailbox(String roomCode, Shard shard) {
+            this.roomCode = roomCode;
+            this.shard = shard;
+        }
+
+        private boolean offer(Task task) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                queue.add(task);
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+            }
+            shard.executor.execute(this);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Task task;
+                synchronized (this) {
+                    task = queue.poll();
+                    if (task == null) {
+                        scheduled = false;
+                        retired = true;
+                        mailboxes.remove(roomCode, this);
+                        return;
+                    }
+                }
+                shard.run(roomCode, task);
+            }
+        }
+    }
+
+    private void runScoped(String roomCode, Runnable action) {
+        for (ActionScope scope : scopes) {
+            scope.enter(roomCode);
+        }
+        try {
+            action.run();
+        } finally {
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                scopes.get(i).exit(roomCode);
+            }
+        }
+    }
+
+    /**
+     * Wraps every room action. {@link #exit} is called even when the action blows up.
+     */
+    public interface ActionScope {
+        void enter(String roomCode);
+
+        void exit(String roomCode);
+    }
+
+    private final class Shard {
+        private final int index;
+        private final ExecutorService executor;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+
+        private Shard(int index, String threadName, boolean virtualThreads) {
+            this.index = index;
+            if (virtualThreads) {
+                this.executor = Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name(threadName + "-" + index + "-v", 0).factory());
+                return;
+            }
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, threadName + "-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void run(String roomCode, Task task) {
+            long start = System.nanoTime();
+            pending.decrementAndGet();
+            queueWait.record(start - task.enqueuedAt());
+            try {
+                runScoped(roomCode, task.action());
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Action for room {} blew up", roomCode, e);
+            } finally {
+                service.record(System.nanoTime() - start);
+                completed.increment();
+            }
+        }
+    }
+
+    /**
+     * How busy a shard is: actions waiting, actions done, and how long they waited and ran.
+     */
+    public record ShardStats(int shard,
+                             int queueDepth,
+                             long completedActions,
+                             long failedActions,
+                             LatencyHistogram.Snapshot queueWait,
+                             LatencyHistogram.Snapshot service) {
+    }
+}
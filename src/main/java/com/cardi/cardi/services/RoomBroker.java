@@ -0,0 +1,221 @@
+package com.cardi.cardi.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A broker that knows only one trick, and does it quickly: delivering {@code /topic/game/{roomCode}} messages.
+ * Subscriptions are filed under their room code, so publishing to a room only ever looks at that room's
+ * audience, however many other rooms the node is hosting. Each room's messages are fanned out in order on a
+ * sharded executor of their own, and reach every session in the order they were published.
+ * <p>
+ * It sits on the inbound channel and quietly takes game-topic SUBSCRIBEs for itself, so the simple broker
+ * never hears about them. Everything else (user queues, other topics) still goes to the simple broker.
+ */
+@Component
+public class RoomBroker implements ChannelInterceptor {
+
+    public static final String GAME_TOPIC = "/topic/game/";
+
+    private final ObjectProvider<MessageChannel> clientOutboundChannelProvider;
+    private volatile MessageChannel clientOutboundChannel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoomActionExecutor fanOut;
+
+    private final Map<String, CopyOnWriteArrayList<Subscriber>> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, MessageChannel> sessionChannels = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    public RoomBroker(@Qualifier("clientOutboundChannel") ObjectProvider<MessageChannel> clientOutboundChannelProvider,
+                      ApplicationEventPublisher eventPublisher,
+                      @Value("${cardi.broker.shards:0}") int shardCount,
+                      @Value("${cardi.threads.virtual:false}") boolean virtualThreads) {
+        // Resolved on first use: the channel is built by the very configuration that installs this interceptor.
+        this.clientOutboundChannelProvider = clientOutboundChannelProvider;
+        this.eventPublisher = eventPublisher;
+        this.fanOut = new RoomActionExecutor(shardCount, "room-broker", virtualThreads);
+    }
+
+    /**
+     * Intercepts game-topic subscriptions on their way in. SUBSCRIBE is kept (returning null stops it here);
+     * UNSUBSCRIBE and DISCONNECT are noted and passed along, since the simple broker wants to see them too.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        SimpMessageType type = accessor.getMessageType();
+        if (type == SimpMessageType.SUBSCRIBE) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(GAME_TOPIC)) {
+                return message;
+            }
+            subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), destination.substring(GAME_TOPIC.length()));
+            // The STOMP handler only announces subscriptions the channel accepted, so we do it ourselves.
+            eventPublisher.publishEvent(new SessionSubscribeEvent(this, stompFrame(message), accessor.getUser()));
+            return null;
+        }
+        if (type == SimpMessageType.UNSUBSCRIBE) {
+            unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+        } else if (type == SimpMessageType.DISCONNECT) {
+            disconnect(accessor.getSessionId());
+        }
+        return message;
+    }
+
+    /**
+     * Sends an already-encoded JSON frame to everyone watching the room, after everything published to it before.
+     */
+    public void publish(String roomCode, byte[] frame) {
+        published.increment();
+        fanOut.execute(roomCode, () -> deliver(roomCode, frame));
+    }
+
+    /**
+     * Forgets every subscription to a room that has closed, once everything already published to it has been
+     * delivered, so its farewells aren't cut off.
+     */
+    public void roomClosed(String roomCode) {
+        fanOut.execute(roomCode, () -> dismiss(roomCode));
+    }
+
+    public BrokerStats getStats() {
+        int subscriptions = 0;
+        for (List<Subscriber> audience : rooms.values()) {
+            subscriptions += audience.size();
+        }
+        return new BrokerStats(rooms.size(), subscriptions, sessions.size(), published.sum(), delivered.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String roomCode) {
+        if (sessionId == null || subscriptionId == null || roomCode.isEmpty()) {
+            return;
+        }
+        Subscriber subscriber = new Subscriber(sessionId, subscriptionId, roomCode);
+        rooms.computeIfAbsent(roomCode, k -> new CopyOnWriteArrayList<>()).addIfAbsent(subscriber);
+        sessions.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Set<Subscriber> subscriptions = sessionId == null ? null : sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscriptions) {
+            if (subscriber.subscriptionId().equals(subscriptionId)) {
+                subscriptions.remove(subscriber);
+                leave(subscriber);
+            }
+        }
+    }
+
+    private void disconnect(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        sessionChannels.remove(sessionId);
+        Set<Subscriber> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach(this::leave);
+        }
+    }
+
+    private void leave(Subscriber subscriber) {
+        rooms.computeIfPresent(subscriber.roomCode(), (code, audience) -> {
+            audience.remove(subscriber);
+            return audience.isEmpty() ? null : audience;
+        });
+    }
+
+    private void dismiss(String roomCode) {
+        List<Subscriber> audience = rooms.remove(roomCode);
+        if (audience == null) {
+            return;
+        }
+        for (Subscriber subscriber : audience) {
+            sessions.computeIfPresent(subscriber.sessionId(), (id, subscriptions) -> {
+                subscriptions.remove(subscriber);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+        }
+    }
+
+    private void deliver(String roomCode, byte[] frame) {
+        List<Subscriber> audience = rooms.get(roomCode);
+        if (audience == null) {
+            return;
+        }
+        String destination = GAME_TOPIC + roomCode;
+        for (Subscriber subscriber : audience) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(subscriber.sessionId());
+            headers.setSubscriptionId(subscriber.subscriptionId());
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            channelFor(subscriber.sessionId()).send(MessageBuilder.createMessage(frame, headers.getMessageHeaders()));
+            delivered.increment();
+        }
+    }
+
+    /**
+     * The outbound channel hands messages to a thread pool, which is in no hurry to keep them in order;
+     * wrapping it per session makes each session's messages leave one after another.
+     */
+    private MessageChannel channelFor(String sessionId) {
+        MessageChannel outbound = clientOutboundChannel;
+        if (outbound == null) {
+            outbound = clientOutboundChannelProvider.getObject();
+            clientOutboundChannel = outbound;
+        }
+        if (!OrderedMessageChannelDecorator.supportsOrderedMessages(outbound) || !sessions.containsKey(sessionId)) {
+            return outbound; // Nothing to keep in order, or a straggler for a session that just left
+        }
+        MessageChannel channel = outbound;
+        return sessionChannels.computeIfAbsent(sessionId,
+                id -> new OrderedMessageChannelDecorator(channel, LogFactory.getLog(RoomBroker.class)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Message<byte[]> stompFrame(Message<?> message) {
+        return (Message<byte[]>) message; // Inbound STOMP frames always carry a byte[] body
+    }
+
+    private record Subscriber(String sessionId, String subscriptionId, String roomCode) {
+    }
+
+    /**
+     * How many rooms and subscriptions the broker is minding, and how much it has delivered.
+     */
+    public record BrokerStats(int rooms, int subscriptions, int sessions, long published, long delivered) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.journal.RoomSnapshotCodec;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where rooms go to nap. A room that has sat still for a while is squashed into its snapshot form (a few hundred
+ * bytes, see {@link RoomSnapshotCodec}) and parked in direct memory, outside the heap, instead of keeping its whole
+ * object graph of players, hands, piles and cached frames alive. The first time anyone asks for it again it's
+ * decoded back into a fresh {@link GameRoom}, sessions and all.
+ * <p>
+ * Deciding when a room naps is the {@link RoomReaper}'s job; putting it down and waking it up is
+ * {@link RoomService}'s. This just keeps the beds.
+ */
+@Service
+public class RoomHibernator {
+
+    private final Map<String, HibernatedRoom> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder offHeapBytes = new LongAdder();
+    private final LongAdder hibernations = new LongAdder();
+    private final LongAdder rehydrations = new LongAdder();
+    private final LatencyHistogram rehydrateLatency = new LatencyHistogram();
+
+    /**
+     * Packs the room away. Run it on the room's own thread, and drop every other reference to the room afterwards.
+     */
+    public void hibernate(GameRoom room) {
+        byte[] snapshot = RoomSnapshotCodec.encode(room);
+        ByteBuffer offHeap = ByteBuffer.allocateDirect(snapshot.length).put(snapshot).flip();
+        // The snapshot format leaves sessions out (they don't survive a restart), but they do survive a nap
+        List<Player> players = room.getPlayers();
+        String[] sessionIds = new String[players.size()];
+        for (int seat = 0; seat < sessionIds.length; seat++) {
+            sessionIds[seat] = players.get(seat).getSessionId();
+        }
+        HibernatedRoom previous = rooms.put(room.getRoomCode(),
+                new HibernatedRoom(offHeap, sessionIds, room.getLastActiveAt(), room.isStarted()));
+        if (previous != null) {
+            offHeapBytes.add(-previous.snapshot().capacity());
+        }
+        offHeapBytes.add(snapshot.length);
+        hibernations.increment();
+    }
+
+    /**
+     * Takes the room out of storage and builds it back up.
+     * @return The room, as it was when it went to sleep, or null if it isn't here.
+     */
+    public GameRoom rehydrate(String roomCode) {
+        HibernatedRoom hibernated = rooms.remove(roomCode);
+        if (hibernated == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        offHeapBytes.add(-hibernated.snapshot().capacity());
+        GameRoom room = RoomSnapshotCodec.decode(hibernated.snapshot().duplicate());
+        List<Player> players = room.getPlayers();
+        for (int seat = 0; seat < players.size() && seat < hibernated.sessionIds().length; seat++) {
+            players.get(seat).setSessionId(hibernated.sessionIds()[seat]);
+        }
+        room.setLastActiveAt(hibernated.lastActiveAt()); // Waking up isn't activity; whatever woke it up may be
+        rehydrations.increment();
+        rehydrateLatency.record(System.nanoTime() - start);
+        return room;
+    }
+
+    /**
+     * @return The sleeping room's particulars, without waking it, or null if it isn't here.
+     */
+    public HibernatedRoom peek(String roomCode) {
+        return rooms.get(roomCode);
+    }
+
+    /**
+     * @return A copy of the sleeping room's snapshot bytes, or null if it isn't here.
+     */
+    public byte[] snapshotOf(String roomCode) {
+        HibernatedRoom hibernated = rooms.get(roomCode);
+        if (hibernated == null) {
+            return null;
+        }
+        byte[] snapshot = new byte[hibernated.snapshot().capacity()];
+        hibernated.snapshot().duplicate().get(snapshot);
+        return snapshot;
+    }
+
+    public boolean contains(String roomCode) {
+        return rooms.containsKey(roomCode);
+    }
+
+    public int count() {
+        return rooms.size();
+    }
+
+    public HibernationStats getStats(int residentRooms) {
+        return new HibernationStats(residentRooms, rooms.size(), offHeapBytes.sum(), hibernations.sum(),
+                rehydrations.sum(), rehydrateLatency.snapshot());
+    }
+
+    /**
+     * A room in storage: its snapshot in direct memory, plus the few things the reaper and the sessions need
+     * without decoding it.
+     */
+    public record HibernatedRoom(ByteBuffer snapshot, String[] sessionIds, long lastActiveAt, boolean started) {
+    }
+
+    /**
+     * How many rooms are awake and asleep, what the sleepers cost off-heap, and how long waking one up takes.
+     */
+    public record HibernationStats(int residentRooms,
+                                   int hibernatedRooms,
+                                   long offHeapBytes,
+                                   long hibernations,
+                                   long rehydrations,
+                                   LatencyHistogram.Snapshot rehydrateLatency) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.GameRoom;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closes rooms nobody has touched in a while, so abandoned tables don't sit on the heap forever, and puts rooms
+ * that are merely quiet to sleep (see {@link RoomHibernator}) so they don't either.
+ * <p>
+ * Every room gets one timer on a {@link TimingWheel}, set for when it would go stale if nothing happened to it.
+ * Playing in a room doesn't go near the wheel, it only stamps the room's last-activity time. When the timer goes
+ * off the reaper looks at that stamp: if the room has been busy since, the timer is simply set again for the new
+ * deadline; if it really has been idle that long, the room is hibernated or closed on its own thread, like any
+ * other action. Lobbies and games in progress each get their own idle limit ({@code cardi.rooms.lobby-ttl-minutes}
+ * and {@code cardi.rooms.game-ttl-minutes}), and {@code cardi.rooms.hibernate-after-minutes} says how soon a quiet
+ * room naps; zero means never.
+ */
+@Slf4j
+@Service
+public class RoomReaper {
+
+    private final RoomService roomService;
+    private final RoomActionExecutor roomActionExecutor;
+    private final RoomHibernator roomHibernator;
+    private final long lobbyTtlMillis;
+    private final long gameTtlMillis;
+    private final long hibernateAfterMillis;
+    private final long tickMillis;
+
+    // Only the reaper thread touches the wheel; everybody else drops their rooms in here
+    private final ConcurrentLinkedQueue<String> arrivals = new ConcurrentLinkedQueue<>();
+    private final TimingWheel<String> wheel;
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    private final LongAdder rearmed = new LongAdder();
+    private final LongAdder reaped = new LongAdder();
+    private final LongAdder hibernated = new LongAdder();
+
+    public RoomReaper(@Lazy RoomService roomService,
+                      RoomActionExecutor roomActionExecutor,
+                      RoomHibernator roomHibernator,
+                      @Value("${cardi.rooms.lobby-ttl-minutes:15}") long lobbyTtlMinutes,
+                      @Value("${cardi.rooms.game-ttl-minutes:60}") long gameTtlMinutes,
+                      @Value("${cardi.rooms.hibernate-after-minutes:5}") long hibernateAfterMinutes,
+                      @Value("${cardi.rooms.reaper-tick-ms:1000}") long tickMillis) {
+        this.roomService = roomService;
+        this.roomActionExecutor = roomActionExecutor;
+        this.roomHibernator = roomHibernator;
+        this.lobbyTtlMillis = TimeUnit.MINUTES.toMillis(lobbyTtlMinutes);
+        this.gameTtlMillis = TimeUnit.MINUTES.toMillis(gameTtlMinutes);
+        this.hibernateAfterMillis = TimeUnit.MINUTES.toMillis(hibernateAfterMinutes);
+        this.tickMillis = tickMillis;
+        // 64 slots over 4 levels is a little over six months of one-second ticks, more than enough for any TTL
+        this.wheel = new TimingWheel<>(tickMillis, 64, 4, System.currentTimeMillis());
+        this.ticker = Thread.ofPlatform().name("room-reaper").daemon().start(this::tickLoop);
+    }
+
+    /**
+     * Starts keeping an eye on a room. Call it once, when the room comes into being.
+     */
+    public void track(String roomCode) {
+        if (lobbyTtlMillis > 0 || gameTtlMillis > 0 || hibernateAfterMillis > 0) {
+            arrivals.offer(roomCode);
+        }
+    }
+
+    /**
+     * @return When a room last active at the given time goes stale, or {@code Long.MAX_VALUE} for never.
+     */
+    public long closeDeadline(boolean started, long lastActiveAt) {
+        long ttl = started ? gameTtlMillis : lobbyTtlMillis;
+        return ttl <= 0 ? Long.MAX_VALUE : lastActiveAt + ttl;
+    }
+
+    /**
+     * @return When a room last active at the given time should nap, or {@code Long.MAX_VALUE} for never.
+     */
+    public long hibernateDeadline(long lastActiveAt) {
+        return hibernateAfterMillis <= 0 ? Long.MAX_VALUE : lastActiveAt + hibernateAfterMillis;
+    }
+
+    public ReaperStats getStats() {
+        return new ReaperStats(TimeUnit.MILLISECONDS.toMinutes(lobbyTtlMillis), TimeUnit.MILLISECONDS.toMinutes(gameTtlMillis),
+                TimeUnit.MILLISECONDS.toMinutes(hibernateAfterMillis), rearmed.sum(), hibernated.sum(), reaped.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tickLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(tickMillis));
+            long now = System.currentTimeMillis();
+            try {
+                for (String roomCode; (roomCode = arrivals.poll()) != null; ) {
+                    // A newborn room needs no attention before the shortest of the limits; look again then
+                    wheel.schedule(roomCode, now + firstLook());
+                }
+                wheel.advanceTo(now, roomCode -> expired(roomCode, now));
+            } catch (RuntimeException e) {
+                log.error("Room reaper tick failed", e);
+            }
+        }
+    }
+
+    /**
+     * A timer went off. Runs on the reaper thread, so it only glances at the room, asleep or awake.
+     */
+    private void expired(String roomCode, long now) {
+        GameRoom room = roomService.peekRoom(roomCode);
+        long lastActiveAt;
+        boolean started;
+        if (room != null) {
+            lastActiveAt = room.getLastActiveAt();
+            started = room.isStarted();
+        } else {
+            RoomHibernator.HibernatedRoom sleeping = roomHibernator.peek(roomCode);
+            if (sleeping == null) {
+                return; // Closed some other way; nothing left to watch
+            }
+            lastActiveAt = sleeping.lastActiveAt();
+            started = sleeping.started();
+        }
+
+        if (closeDeadline(started, lastActiveAt) <= now) {
+            roomActionExecutor.execute(roomCode, () -> reap(roomCode));
+            return;
+        }
+        long napAt = hibernateDeadline(lastActiveAt);
+        if (room != null && napAt <= now) {
+            roomActionExecutor.execute(roomCode, () -> hibernate(roomCode));
+        }
+
+        // Awake rooms are looked at again when they'd be due a nap; sleeping ones every nap's length, in case
+        // somebody woke them up and then wandered off again
+        long next = closeDeadline(started, lastActiveAt);
+        if (hibernateAfterMillis > 0) {
+            next = Math.min(next, room != null && napAt > now ? napAt : now + hibernateAfterMillis);
+        }
+        rearmed.increment();
+        wheel.schedule(roomCode, next == Long.MAX_VALUE ? now + firstLook() : next);
+    }
+
+    /**
+     * Runs on the room's own thread. Something may have happened to the room while this waited in its mailbox,
+     * so it checks again before closing it.
+     */
+    private void reap(String roomCode) {
+        GameRoom room = roomService.getRoom(roomCode); // Wakes it, if need be, to say goodbye to everyone properly
+        if (room == null) {
+            return;
+        }
+        if (closeDeadline(room.isStarted(), room.getLastActiveAt()) > System.currentTimeMillis()) {
+            track(roomCode);
+            return;
+        }
+        reaped.increment();
+        roomService.closeIdleRoom(roomCode);
+    }
+
+    /**
+     * Runs on the room's own thread, and checks again for the same reason. The room's timer is still set.
+     */
+    private void hibernate(String roomCode) {
+        GameRoom room = roomService.peekRoom(roomCode);
+        if (room == null || hibernateDeadline(room.getLastActiveAt()) > System.currentTimeMillis()) {
+            return;
+        }
+        hibernated.increment();
+        roomService.hibernateRoom(roomCode);
+    }
+
+    private long firstLook() {
+        return Math.min(Math.min(positiveOrMax(lobbyTtlMillis), positiveOrMax(gameTtlMillis)),
+                positiveOrMax(hibernateAfterMillis));
+    }
+
+    private static long positiveOrMax(long ttl) {
+        return ttl > 0 ? ttl : Long.MAX_VALUE;
+    }
+
+    /**
+     * The idle limits, how many timers went off and were set again, and how many rooms were put to sleep or closed.
+     */
+    public record ReaperStats(long lobbyTtlMinutes,
+                              long gameTtlMinutes,
+                              long hibernateAfterMinutes,
+                              long rearmed,
+                              long hibernated,
+                              long reaped) {
+    }
+}
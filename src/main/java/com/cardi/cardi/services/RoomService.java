@@ -2,10 +2,17 @@ package com.cardi.cardi.services;
 
 import java.util.Optional;
 
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.journal.JournalRecord;
+import com.cardi.cardi.journal.RoomJournal;
 import com.cardi.cardi.model.GameRoom;
 
 import com.cardi.cardi.model.Player;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 
@@ -16,28 +23,103 @@ import java.util.UUID;
 
 import java.util.concurrent.ConcurrentHashMap;
 
+import java.util.concurrent.ThreadLocalRandom;
 
 
+
+@Slf4j
 @Service
 
-public class RoomService {
+public class RoomService implements SmartInitializingSingleton {
+
 
 
+    private static final int MAX_TURN_SECONDS = 600;
 
     private final Map<String, GameRoom> gameRooms = new ConcurrentHashMap<>();
 
-    private static final int MAX_PLAYERS = 6;
 
+    private final GameEventService gameEventService;
 
+    private final ClusterService clusterService;
 
-    private final GameEventService gameEventService;
+    private final RoomJournal roomJournal;
+
+    private final GameService gameService;
 
+    private final RoomReaper roomReaper;
 
+    private final RoomHibernator roomHibernator;
 
-    public RoomService(GameEventService gameEventService) {
+    private final SessionRegistry sessionRegistry;
+
+    @Value("${cardi.game.turn-seconds:0}")
+    private int defaultTurnSeconds;
+
+
+
+    public RoomService(GameEventService gameEventService, ClusterService clusterService, RoomJournal roomJournal,
+                       @Lazy GameService gameService, RoomActionExecutor roomActionExecutor, RoomReaper roomReaper,
+                       RoomHibernator roomHibernator, SessionRegistry sessionRegistry) {
 
         this.gameEventService = gameEventService;
 
+        this.clusterService = clusterService;
+
+        this.roomJournal = roomJournal;
+
+        this.gameService = gameService;
+
+        this.roomReaper = roomReaper;
+
+        this.roomHibernator = roomHibernator;
+
+        this.sessionRegistry = sessionRegistry;
+
+        roomActionExecutor.addScope(new SnapshotScope());
+
+        // A room too quiet to earn a snapshot on its own gets asked for one, in its own mailbox like everything else
+        roomJournal.onStaleRoom(roomCode -> roomActionExecutor.execute(roomCode, () -> takeSnapshot(roomCode)));
+
+    }
+
+
+
+    /**
+     * Once everything is wired up (and before anyone can connect), rebuilds the rooms that were alive when the
+     * server last went down: each from its latest snapshot, then the journal's account of whatever happened since.
+     * Like a time-lapse of every game, at ludicrous speed, starting from the last photo.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+
+        if (!roomJournal.isEnabled()) {
+
+            return;
+
+        }
+
+        long start = System.nanoTime();
+
+        int restored = 0;
+
+        for (GameRoom room : roomJournal.loadSnapshots()) {
+
+            gameRooms.put(room.getRoomCode(), room);
+
+            restored++;
+
+        }
+
+        long records = roomJournal.replay(this::replay);
+
+        roomJournal.recovered(gameRooms.values());
+
+        gameRooms.keySet().forEach(roomReaper::track); // Back from the dead, but on the clock like everyone else
+
+        log.info("Restored {} rooms from snapshots and replayed {} journal records into {} rooms in {} ms", restored,
+                records, gameRooms.size(), (System.nanoTime() - start) / 1_000_000);
+
     }
 
 
@@ -54,18 +136,25 @@ public class RoomService {
 
         String roomCode = generateRoomCode();
 
-        GameRoom room = new GameRoom(roomCode);
-
-        gameRooms.put(roomCode, room);
-
+        GameRoom room = new GameRoom(roomCode, ThreadLocalRandom.current().nextLong());
 
+        room.setTurnSeconds(defaultTurnSeconds);
 
         Player player = new Player(generatePlayerId(), creatorUsername, sessionId);
 
+        roomJournal.roomCreated(roomCode, room.getSeed(), player.getId(), creatorUsername);
+
         room.addPlayer(player);
 
                 room.setRoomOwnerId(player.getId()); // The one who starts it all, the grand architect of chaos.
 
+        // Only publish the room once it's fully furnished, so nobody can join a half-built one.
+        gameRooms.put(roomCode, room);
+
+        roomReaper.track(roomCode); // If everyone wanders off, somebody has to turn the lights out.
+
+        sessionRegistry.seat(sessionId, roomCode, player.getId(), null);
+
 
 
                 // Let's get this party started, but only for the creator. Shhh, it's a surprise!
@@ -98,11 +187,14 @@ public class RoomService {
 
 
 
-        Optional<Player> existingPlayerOpt = room.getPlayers().stream()
+        // Same socket, same seat: the registry knows where they sit. A new socket is looked up by name instead.
+        SessionRegistry.Seat seat = sessionRegistry.seatOf(sessionId);
 
-                .filter(p -> p.getUsername().equalsIgnoreCase(username))
+        Optional<Player> existingPlayerOpt = Optional.ofNullable(seat != null && seat.roomCode().equals(roomCode)
 
-                .findFirst();
+                ? room.getPlayerById(seat.playerId())
+
+                : room.getPlayerByUsername(username));
 
 
 
@@ -112,8 +204,20 @@ public class RoomService {
 
             Player existingPlayer = existingPlayerOpt.get();
 
+            if (existingPlayer.isBot()) {
+
+                gameEventService.sendErrorToPlayer(sessionId, "That name belongs to a bot. Pick another.");
+
+                return;
+
+            }
+
+            sessionRegistry.seat(sessionId, roomCode, existingPlayer.getId(), existingPlayer.getSessionId());
+
             existingPlayer.setSessionId(sessionId);
 
+            room.nextVersion(); // The room changed, so yesterday's cached news is stale.
+
                         gameEventService.sendRoomUpdate(roomCode, sessionId); // Welcome back, champion! Here's what you missed.
 
                         gameEventService.sendPlayerReconnected(roomCode, username); // Announce the triumphant (or perhaps sheepish) return!
@@ -136,7 +240,7 @@ public class RoomService {
 
 
 
-        if (room.getPlayers().size() >= MAX_PLAYERS) {
+        if (room.isFull()) {
 
             gameEventService.sendErrorToPlayer(sessionId, "Room is full.");
 
@@ -148,8 +252,14 @@ public class RoomService {
 
         Player player = new Player(generatePlayerId(), username, sessionId);
 
+        roomJournal.playerJoined(roomCode, player.getId(), username);
+
         room.addPlayer(player);
 
+        room.nextVersion();
+
+        sessionRegistry.seat(sessionId, roomCode, player.getId(), null);
+
 
 
                 // Give the fresh recruit the lowdown on the current mayhem.
@@ -179,13 +289,12 @@ public class RoomService {
             return;
         }
 
-        Optional<Player> existingPlayerOpt = room.getPlayers().stream()
-                .filter(p -> p.getId().equals(playerId))
-                .findFirst();
+        Player existingPlayer = room.getPlayerById(playerId);
 
-        if (existingPlayerOpt.isPresent()) {
-            Player existingPlayer = existingPlayerOpt.get();
+        if (existingPlayer != null && !existingPlayer.isBot()) {
+            sessionRegistry.seat(sessionId, roomCode, playerId, existingPlayer.getSessionId());
             existingPlayer.setSessionId(sessionId);
+            room.nextVersion();
                         gameEventService.sendRoomUpdate(roomCode, sessionId); // Here's the chaos you left behind.
                         gameEventService.sendPlayerReconnected(roomCode, existingPlayer.getUsername()); // Look who's back!
         } else {
@@ -193,19 +302,137 @@ public class RoomService {
         }
     }
 
+    /**
+     * The room's owner pulls up a chair for a bot, so a short table can still get a game going.
+     * The bot plays its own turns from then on (see {@link BotService}). Run it on the room's own thread.
+     *
+     * @param roomCode The lobby that's a few players short.
+     * @param sessionId Whoever asked; only the owner may.
+     */
+    public void addBot(String roomCode, String sessionId) {
+        GameRoom room = getRoom(roomCode);
+        if (room == null) {
+            gameEventService.sendErrorToPlayer(sessionId, "Room not found.");
+            return;
+        }
+        SessionRegistry.Seat seat = sessionRegistry.seatOf(sessionId);
+        if (seat == null || !seat.roomCode().equals(roomCode) || !seat.playerId().equals(room.getRoomOwnerId())) {
+            gameEventService.sendErrorToPlayer(sessionId, "Only the room owner can add bots.");
+            return;
+        }
+        if (room.isStarted()) {
+            gameEventService.sendErrorToPlayer(sessionId, "Game has already started. Cannot add a bot.");
+            return;
+        }
+        if (room.isFull()) {
+            gameEventService.sendErrorToPlayer(sessionId, "Room is full.");
+            return;
+        }
 
+        Player bot = Player.bot(generatePlayerId(), botName(room));
+        roomJournal.botJoined(roomCode, bot.getId(), bot.getUsername());
+        room.addPlayer(bot);
+        gameEventService.sendPlayerJoined(roomCode, bot.getUsername());
+        gameEventService.sendGameStateUpdate(roomCode, bot.getUsername() + " pulled up a chair.");
+    }
 
     /**
-     * Seeks out a game room by its legendary room code.
+     * The room's owner decides how long each turn may take before the server takes it for whoever is dawdling
+     * (see {@link TurnTimer}). Lobbies only; changing the clock mid-game would be bad sportsmanship.
+     * Run it on the room's own thread.
+     *
+     * @param turnSeconds Seconds per turn, or 0 to let everyone take as long as they like.
+     */
+    public void setTurnTimer(String roomCode, String sessionId, int turnSeconds) {
+        GameRoom room = getRoom(roomCode);
+        if (room == null) {
+            gameEventService.sendErrorToPlayer(sessionId, "Room not found.");
+            return;
+        }
+        SessionRegistry.Seat seat = sessionRegistry.seatOf(sessionId);
+        if (seat == null || !seat.roomCode().equals(roomCode) || !seat.playerId().equals(room.getRoomOwnerId())) {
+            gameEventService.sendErrorToPlayer(sessionId, "Only the room owner can set the turn timer.");
+            return;
+        }
+        if (room.isStarted()) {
+            gameEventService.sendErrorToPlayer(sessionId, "Game has already started. The turn timer stays as it is.");
+            return;
+        }
+        if (turnSeconds < 0 || turnSeconds > MAX_TURN_SECONDS) {
+            gameEventService.sendErrorToPlayer(sessionId, "Turn timer must be between 0 (off) and " + MAX_TURN_SECONDS + " seconds.");
+            return;
+        }
+
+        roomJournal.turnTimerSet(roomCode, turnSeconds);
+        room.setTurnSeconds(turnSeconds);
+        gameEventService.sendGameStateUpdate(roomCode, turnSeconds == 0
+                ? "No turn timer; take your time."
+                : "Turns now last " + turnSeconds + " seconds.");
+    }
+
+    /**
+     * The first of "Bot 1", "Bot 2", ... nobody at the table is already called.
+     */
+    private static String botName(GameRoom room) {
+        for (int number = 1; ; number++) {
+            String name = "Bot " + number;
+            if (room.getPlayerByUsername(name) == null) {
+                return name;
+            }
+        }
+    }
+
+
+
+    /**
+     * Seeks out a game room by its legendary room code, waking it from hibernation if it dozed off.
      * @param roomCode The secret key to the room's very existence.
      * @return The mystical GameRoom object, or null if it's a figment of a player's drunken imagination.
      */
     public GameRoom getRoom(String roomCode) {
 
+        GameRoom room = gameRooms.get(roomCode);
+
+        if (room != null) {
+
+            return room;
+
+        }
+
+        // Rise and shine. Nothing goes into the map if there was nobody asleep under that code.
+        return gameRooms.computeIfAbsent(roomCode, roomHibernator::rehydrate);
+
+    }
+
+    /**
+     * Looks for a room that's awake, without disturbing one that's hibernating.
+     * @return The room if it's in memory, or null if it's asleep or doesn't exist.
+     */
+    public GameRoom peekRoom(String roomCode) {
+
         return gameRooms.get(roomCode);
 
     }
 
+    /**
+     * Counts the rooms this server is currently babysitting.
+     * @return How many rooms are open here, lobbies and games alike, awake or asleep.
+     */
+    public int getRoomCount() {
+
+        return gameRooms.size() + roomHibernator.count();
+
+    }
+
+    /**
+     * @return How many rooms are awake versus asleep, and what waking them costs.
+     */
+    public RoomHibernator.HibernationStats getHibernationStats() {
+
+        return roomHibernator.getStats(gameRooms.size());
+
+    }
+
 
 
     /**
@@ -216,16 +443,29 @@ public class RoomService {
 
         GameRoom room = getRoom(roomCode);
 
-        if (room != null) {
+        Player leaving = room == null ? null : room.getPlayerById(playerId);
+
+        if (leaving != null) {
+
+            // Only journaled once we know they were here, or replay would trip over a stranger leaving
+            roomJournal.playerLeft(roomCode, playerId);
 
-            String username = room.getPlayerById(playerId).getUsername();
+            String username = leaving.getUsername();
 
-            room.getPlayers().removeIf(p -> p.getId().equals(playerId));
+            sessionRegistry.unseat(leaving.getSessionId());
+
+            room.removePlayer(playerId);
+
+            room.nextVersion();
 
             if (room.getPlayers().isEmpty()) {
 
                 gameRooms.remove(roomCode);
 
+                roomJournal.roomClosed(roomCode);
+
+                gameEventService.roomClosed(roomCode);
+
             } else {
 
                 gameEventService.sendPlayerLeft(roomCode, username);
@@ -238,9 +478,238 @@ public class RoomService {
 
 
 
+    /**
+     * Nobody has done anything here for far too long. Everyone still seated is shown the door, one
+     * {@code PLAYER_LEFT} at a time so their screens say so, and then the room is closed for good.
+     * Run it on the room's own thread.
+     */
+    public void closeIdleRoom(String roomCode) {
+
+        GameRoom room = getRoom(roomCode);
+
+        if (room == null) {
+
+            return;
+
+        }
+
+        log.info("Closing room {} after {} s without activity", roomCode,
+                (System.currentTimeMillis() - room.getLastActiveAt()) / 1000);
+
+        for (Player player : room.getPlayers()) {
+
+            roomJournal.playerLeft(roomCode, player.getId()); // So a replay closes it too
+
+            sessionRegistry.unseat(player.getSessionId());
+
+            gameEventService.sendPlayerLeft(roomCode, player.getUsername());
+
+        }
+
+        room.clearPlayers();
+
+        gameRooms.remove(roomCode);
+
+        roomJournal.roomClosed(roomCode);
+
+        gameEventService.roomClosed(roomCode); // Waits for the goodbyes above to go out first
+
+    }
+
+
+
+    /**
+     * A player's connection dropped. They keep their seat (and their cards), but nothing more is sent their way
+     * until they rejoin, and everyone else is told they've stepped away. Run it on the room's own thread.
+     * @param sessionId The session that dropped; if the player has already moved on to a newer one, nothing happens.
+     */
+    public void playerDisconnected(String roomCode, String playerId, String sessionId) {
+
+        GameRoom room = getRoom(roomCode);
+
+        Player player = room == null ? null : room.getPlayerById(playerId);
+
+        if (player == null || !sessionId.equals(player.getSessionId())) {
+
+            return;
+
+        }
+
+        player.setSessionId(null); // Away. No more shouting into a dead socket.
+
+        gameEventService.sendPlayerDisconnected(roomCode, player.getUsername());
+
+        gameEventService.sendGameStateUpdate(roomCode, player.getUsername() + " disconnected.");
+
+    }
+
+
+
+    /**
+     * Puts a quiet room to sleep: off the heap and into its compact form until somebody asks for it again.
+     * Its subscribers stay subscribed; only the memory goes. Run it on the room's own thread.
+     */
+    public void hibernateRoom(String roomCode) {
+
+        GameRoom room = gameRooms.get(roomCode);
+
+        if (room == null) {
+
+            return;
+
+        }
+
+        roomHibernator.hibernate(room);
+
+        gameRooms.remove(roomCode, room); // Only after it's safely stored, so getRoom never finds neither
+
+        gameEventService.roomHibernated(roomCode);
+
+    }
+
+
+
+    /**
+     * Performs one journaled action again, as if its player had just sent it. Nobody's connected yet,
+     * so all the announcements it makes fall on empty rooms.
+     */
+    private void replay(JournalRecord record) {
+
+        String roomCode = record.roomCode();
+
+        if (record.type() != JournalRecord.Type.CREATED && getRoom(roomCode) == null) {
+
+            return; // An echo from a room that has since closed
+
+        }
+
+        try {
+
+            apply(record);
+
+        } catch (RuntimeException e) {
+
+            log.warn("Skipping journal record {} that no longer applies", record, e);
+
+        }
+
+    }
+
+
+
+    private void takeSnapshot(String roomCode) {
+
+        GameRoom room = peekRoom(roomCode);
+
+        if (room != null) {
+
+            roomJournal.snapshot(room);
+
+            return;
+
+        }
+
+        byte[] snapshot = roomHibernator.snapshotOf(roomCode); // No need to wake it up; it's already in snapshot form
+
+        if (snapshot != null) {
+
+            roomJournal.snapshot(roomCode, snapshot);
+
+        }
+
+    }
+
+
+
+    private void apply(JournalRecord record) {
+
+        String roomCode = record.roomCode();
+
+        switch (record.type()) {
+
+            case CREATED -> {
+
+                GameRoom room = new GameRoom(roomCode, record.seed());
+
+                room.setTurnSeconds(defaultTurnSeconds);
+
+                room.addPlayer(new Player(record.playerId(), record.username(), null));
+
+                room.setRoomOwnerId(record.playerId());
+
+                gameRooms.put(roomCode, room);
+
+            }
+
+            case JOINED -> {
+
+                GameRoom room = getRoom(roomCode);
+
+                if (room != null) {
+
+                    room.addPlayer(new Player(record.playerId(), record.username(), null));
+
+                    room.nextVersion();
+
+                }
+
+            }
+
+            case BOT_JOINED -> {
+
+                GameRoom room = getRoom(roomCode);
+
+                if (room != null) {
+
+                    room.addPlayer(Player.bot(record.playerId(), record.username()));
+
+                    room.nextVersion();
+
+                }
+
+            }
+
+            case LEFT -> removePlayer(roomCode, record.playerId());
+
+            case TURN_TIMER_SET -> {
+
+                GameRoom room = getRoom(roomCode);
+
+                room.setTurnSeconds(record.turnSeconds());
+
+                room.nextVersion();
+
+            }
+
+            case STARTED -> gameService.startGame(roomCode);
+
+            case STARTED_SEEDED -> {
+
+                getRoom(roomCode).getRandom().setState(record.seed()); // Usually where it was anyway
+
+                gameService.startGame(roomCode);
+
+            }
+
+            case PLAYED -> gameService.playCards(roomCode, record.playerId(), null, record.cards(),
+                    record.suit() == null ? null : record.suit().getLabel());
+
+            case DREW -> gameService.drawCard(roomCode, record.playerId(), null);
+
+            case CALLED_CARDI -> gameService.callCardi(roomCode, record.playerId(), null);
+
+            case PASSED -> gameService.passTurn(roomCode, record.playerId(), null);
+
+        }
+
+    }
+
+
+
     /**
      * Crafts a unique, six-character string, a secret handshake for a new room.
      * Ensures no two rooms share the same destiny (or code).
+     * In cluster mode it keeps rolling until the code hashes to this very node, so the room lives where it was made.
      * @return A fresh, never-before-seen room code, ready for adventure!
      */
     private String generateRoomCode() {
@@ -251,7 +720,7 @@ public class RoomService {
 
             code = UUID.randomUUID().toString().substring(0, 6).toUpperCase();
 
-        } while (gameRooms.containsKey(code));
+        } while (gameRooms.containsKey(code) || roomHibernator.contains(code) || !clusterService.owns(code));
 
         return code;
 
@@ -270,4 +739,29 @@ public class RoomService {
 
     }
 
-}
\ No newline at end of file
+
+
+    /**
+     * Says cheese on behalf of any room that's done enough since its last snapshot, right after the action that
+     * tipped it over, while nothing else can be touching the room.
+     */
+    private final class SnapshotScope implements RoomActionExecutor.ActionScope {
+
+        @Override
+        public void enter(String roomCode) {
+        }
+
+        @Override
+        public void exit(String roomCode) {
+
+            if (roomCode != null && roomJournal.isSnapshotDue(roomCode)) {
+
+                takeSnapshot(roomCode);
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.cardi.cardi.services;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Who is on the other end of every session: which room they sit in and as which player, answered with one map
+ * lookup rather than a stroll around every table.
+ * <p>
+ * Sessions are noted when they connect (STOMP or binary), seated when their owner creates, joins or rejoins a
+ * room, and unseated when they go. A dropped connection leaves its player at the table but marks them away (their
+ * session is cleared), so nothing more is sent to a socket that's no longer there, and the rest of the room is told.
+ * When a player comes back on a new session, the old one is forgotten.
+ */
+@Service
+public class SessionRegistry {
+
+    private final RoomService roomService;
+    private final RoomActionExecutor roomActionExecutor;
+
+    private final Set<String> connected = ConcurrentHashMap.newKeySet();
+    private final Map<String, Seat> seats = new ConcurrentHashMap<>();
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    public SessionRegistry(@Lazy RoomService roomService, RoomActionExecutor roomActionExecutor) {
+        this.roomService = roomService;
+        this.roomActionExecutor = roomActionExecutor;
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent connectEvent) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(connectEvent.getMessage().getHeaders());
+        if (sessionId != null) {
+            connected(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent disconnectEvent) {
+        disconnected(disconnectEvent.getSessionId());
+    }
+
+    /**
+     * A session has opened, on whichever endpoint.
+     */
+    public void connected(String sessionId) {
+        if (connected.add(sessionId)) {
+            connects.increment();
+        }
+    }
+
+    /**
+     * A session has gone. If it had a seat, the room is told on its own thread; the player stays, but away.
+     */
+    public void disconnected(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        if (connected.remove(sessionId)) {
+            disconnects.increment();
+        }
+        Seat seat = seats.remove(sessionId);
+        if (seat != null) {
+            roomActionExecutor.execute(seat.roomCode(),
+                    () -> roomService.playerDisconnected(seat.roomCode(), seat.playerId(), sessionId));
+        }
+    }
+
+    /**
+     * Notes that the session now speaks for the given player in the given room.
+     * @param previousSessionId The session the player was on before, if any; it's forgotten.
+     */
+    public void seat(String sessionId, String roomCode, String playerId, String previousSessionId) {
+        if (previousSessionId != null && !previousSessionId.equals(sessionId)) {
+            if (seats.remove(previousSessionId) != null) {
+                replaced.increment();
+            }
+        }
+        if (sessionId != null) {
+            seats.put(sessionId, new Seat(roomCode, playerId));
+        }
+    }
+
+    /**
+     * Forgets the session's seat without treating it as a disconnect, e.g. because its player left the room.
+     */
+    public void unseat(String sessionId) {
+        if (sessionId != null) {
+            seats.remove(sessionId);
+        }
+    }
+
+    /**
+     * @return Where the session sits, or null if it hasn't sat down anywhere (here).
+     */
+    public Seat seatOf(String sessionId) {
+        return sessionId == null ? null : seats.get(sessionId);
+    }
+
+    public SessionStats getStats() {
+        return new SessionStats(connected.size(), seats.size(), connects.sum(), disconnects.sum(), replaced.sum());
+    }
+
+    public record Seat(String roomCode, String playerId) {
+    }
+
+    /**
+     * How many sessions are open and seated, and how many have come, gone, or been replaced by a newer one.
+     */
+    public record SessionStats(int connected, int seated, long connects, long disconnects, long replaced) {
+    }
+}
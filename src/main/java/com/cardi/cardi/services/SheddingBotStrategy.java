@@ -0,0 +1,74 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import org.springframework.stereotype.Component;
+
+/**
+ * The bots' house style: get rid of the ordinary cards first and hang on to the ones that get you out of
+ * trouble. Plain cards go before question cards, Jacks and Kings, those before the penalty cards, and Jokers and
+ * Aces only when there's nothing else. Within a tier it plays from the suit it holds most of, so whatever it
+ * puts down tends to leave it something to follow with, and it calls that same suit with an Ace.
+ * <p>
+ * All masks and bit counts, so a choice costs a few dozen instructions and allocates nothing.
+ */
+@Component
+public class SheddingBotStrategy implements BotStrategy {
+
+    // Cheapest to give up first
+    private static final long[] TIERS = {
+            ~CardValidator.FINISHING_RESTRICTED_MASK,
+            Hand.rankMask(Rank.QUEEN) | Hand.rankMask(Rank.EIGHT) | Hand.rankMask(Rank.JACK) | Hand.rankMask(Rank.KING),
+            Hand.rankMask(Rank.TWO) | Hand.rankMask(Rank.THREE),
+            Hand.JOKER_BIT,
+            Hand.rankMask(Rank.ACE)
+    };
+
+    @Override
+    public Card choose(GameRoom room, Player bot, long playable) {
+        long held = bot.getHand().getMask();
+        for (long tier : TIERS) {
+            long candidates = playable & tier;
+            if (candidates != 0) {
+                return Card.byOrdinal(Long.numberOfTrailingZeros(fromLongestSuit(candidates, held)));
+            }
+        }
+        return Card.byOrdinal(Long.numberOfTrailingZeros(playable)); // Nothing left out of the tiers, but just in case
+    }
+
+    @Override
+    public Suit callSuit(GameRoom room, Player bot, Card ace) {
+        return longestSuit(bot.getHand().getMask() & ~(1L << ace.getOrdinal()), Hand.STANDARD_MASK);
+    }
+
+    /**
+     * @return The candidates in whichever of their suits the hand holds the most of (Jokers, having no suit, as is).
+     */
+    private static long fromLongestSuit(long candidates, long held) {
+        if ((candidates & Hand.STANDARD_MASK) == 0) {
+            return candidates;
+        }
+        return candidates & Hand.suitMask(longestSuit(held, candidates));
+    }
+
+    /**
+     * @return The suit the hand holds most of, among those that have at least one of the wanted cards.
+     */
+    private static Suit longestSuit(long held, long wanted) {
+        Suit longest = null;
+        int most = -1;
+        for (Suit suit : Suit.STANDARD) {
+            long suitMask = Hand.suitMask(suit);
+            int count = Long.bitCount(held & suitMask);
+            if ((wanted & suitMask) != 0 && count > most) {
+                longest = suit;
+                most = count;
+            }
+        }
+        return longest == null ? Suit.HEARTS : longest;
+    }
+}
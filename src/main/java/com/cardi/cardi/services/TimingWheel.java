@@ -0,0 +1,125 @@
+package com.cardi.cardi.services;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel: a clock face of slots per level, each level's slot spanning a whole revolution
+ * of the level below. Scheduling drops an entry into one slot, and a tick only looks at the slot under the
+ * hand, so it costs the same with ten timers as with a million. Entries in the outer levels trickle down a
+ * level each time the hand below comes round, until they land in the innermost wheel and go off.
+ * <p>
+ * Deadlines are only as precise as one tick, and nothing is ever cancelled: whoever is told a timer went off
+ * checks whether it still matters, which is cheaper than finding it in the wheel to take it out.
+ * <p>
+ * Not thread-safe; one thread owns the wheel.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Entry<T>[][] levels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis How long one tick lasts.
+     * @param slotsPerLevel Slots on each level's face; rounded up to a power of two.
+     * @param levelCount How many levels; together they cover {@code tickMillis * slotsPerLevel ^ levelCount}.
+     *                   Anything further out waits on the outermost level and is looked at again each time round.
+     * @param startMillis What time it is now.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.bits = 32 - Integer.numberOfLeadingZeros(Math.max(slotsPerLevel, 2) - 1);
+        this.mask = (1 << bits) - 1;
+        this.levels = new Entry[levelCount][1 << bits];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Sets a timer. A deadline that has already passed goes off on the next tick.
+     */
+    public void schedule(T item, long deadlineMillis) {
+        size++;
+        insert(new Entry<>(item, Math.max(deadlineMillis / tickMillis, currentTick + 1)));
+    }
+
+    /**
+     * Moves the hand forward to the given time, handing every timer that went off on the way to {@code expired}.
+     * The callback may schedule new timers.
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // When a lower hand comes back to twelve, the level above empties its next slot into it
+            for (int level = levels.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            int slot = (int) (currentTick & mask);
+            Entry<T> entry = levels[0][slot];
+            levels[0][slot] = null;
+            while (entry != null) {
+                Entry<T> next = entry.next;
+                entry.next = null;
+                if (entry.deadlineTick <= currentTick) {
+                    size--;
+                    expired.accept(entry.item);
+                } else {
+                    insert(entry); // Beyond the outermost level's reach last time round
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * @return How many timers are set.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        int slot = (int) ((currentTick >>> (bits * level)) & mask);
+        Entry<T> entry = levels[level][slot];
+        levels[level][slot] = null;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            entry.next = null;
+            insert(entry);
+            entry = next;
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels.length - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        long tick = Math.max(entry.deadlineTick, currentTick);
+        if (delta >= 1L << (bits * levels.length)) {
+            // Too far out for any level: park it in the furthest slot the outermost level can see
+            tick = currentTick + (1L << (bits * levels.length)) - (1L << (bits * (levels.length - 1)));
+        }
+        int slot = (int) ((tick >>> (bits * level)) & mask);
+        entry.next = levels[level][slot];
+        levels[level][slot] = entry;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Entry<T> next;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps the game moving when somebody wanders off mid-turn. In a room with a turn timer (its
+ * {@code turnSeconds}, {@code cardi.game.turn-seconds} by default), a player who lets the clock run out has
+ * their turn taken for them: they draw if they haven't played yet, and pass if they have.
+ * <p>
+ * The clock starts at the end of the action that handed over the turn, and the deadline lives on the room. Every
+ * room with a clock running has exactly one timer on a single {@link TimingWheel}, however many turns go by, in
+ * the manner of {@link RoomReaper}: the room's turns don't go near the wheel, they only move its deadline. When
+ * the timer goes off and the deadline has moved on, the timer is set again for it; when the deadline really has
+ * passed, the draw or pass runs on the room's own thread, like any other action, and is journaled and announced
+ * like one too. A hundred thousand tables cost a hundred thousand wheel entries and one thread.
+ */
+@Slf4j
+@Service
+public class TurnTimer {
+
+    private final RoomService roomService;
+    private final GameService gameService;
+    private final RoomActionExecutor roomActionExecutor;
+    private final long tickMillis;
+
+    // Only the timer thread touches the wheel; rooms whose clock just started are dropped in here
+    private final ConcurrentLinkedQueue<Arrival> arrivals = new ConcurrentLinkedQueue<>();
+    // Rooms with a timer on the wheel (or on its way there), so no room ever has two
+    private final Set<String> armed = ConcurrentHashMap.newKeySet();
+    private final TimingWheel<String> wheel;
+    private final Thread ticker;
+    private volatile boolean running = true;
+
+    private final LongAdder rearmed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    public TurnTimer(@Lazy RoomService roomService,
+                     @Lazy GameService gameService,
+                     RoomActionExecutor roomActionExecutor,
+                     @Value("${cardi.game.turn-timer-tick-ms:100}") long tickMillis) {
+        this.roomService = roomService;
+        this.gameService = gameService;
+        this.roomActionExecutor = roomActionExecutor;
+        this.tickMillis = tickMillis;
+        // 64 slots over 3 levels is over seven hours of 100ms ticks, far longer than any turn may be
+        this.wheel = new TimingWheel<>(tickMillis, 64, 3, System.currentTimeMillis());
+        this.ticker = Thread.ofPlatform().name("turn-timer").daemon().start(this::tickLoop);
+        roomActionExecutor.addScope(new ClockScope());
+    }
+
+    public TimerStats getStats() {
+        return new TimerStats(tickMillis, armed.size(), rearmed.sum(), expired.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tickLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(tickMillis));
+            long now = System.currentTimeMillis();
+            try {
+                for (Arrival arrival; (arrival = arrivals.poll()) != null; ) {
+                    wheel.schedule(arrival.roomCode(), arrival.deadline());
+                }
+                wheel.advanceTo(now, roomCode -> timerWentOff(roomCode, now));
+            } catch (RuntimeException e) {
+                log.error("Turn timer tick failed", e);
+            }
+        }
+    }
+
+    /**
+     * Runs on the timer thread, so it only glances at the room.
+     */
+    private void timerWentOff(String roomCode, long now) {
+        armed.remove(roomCode);
+        // Read after letting go of the room's timer: a clock started meanwhile either shows up here, or sees the
+        // room unarmed and sends its own timer along
+        GameRoom room = roomService.peekRoom(roomCode);
+        long deadline = room == null ? 0 : room.getTurnDeadline();
+        if (deadline == 0) {
+            return; // The game's over, the room's asleep or gone, or the next clock hasn't started yet
+        }
+        if (deadline > now) {
+            if (armed.add(roomCode)) {
+                rearmed.increment();
+                wheel.schedule(roomCode, deadline);
+            }
+            return;
+        }
+        roomActionExecutor.execute(roomCode, () -> timeUp(roomCode, deadline));
+    }
+
+    /**
+     * Runs on the room's own thread. The player may have moved while this waited in the mailbox, so it checks
+     * the clock it was sent for is still the one running.
+     */
+    private void timeUp(String roomCode, long deadline) {
+        GameRoom room = roomService.peekRoom(roomCode);
+        if (room == null || !room.isStarted() || room.getTurnDeadline() != deadline) {
+            return;
+        }
+        Player player = room.getCurrentPlayer();
+        expired.increment();
+        log.debug("Room {}: {} ran out of time", roomCode, player.getUsername());
+
+        if (!room.isPlayerHasTakenAction() || room.isQuestionActive()) {
+            gameService.drawCard(roomCode, player.getId(), player.getSessionId());
+        }
+        if (room.isStarted() && room.isTurnOf(player) && room.isPlayerHasTakenAction() && !room.isQuestionActive()) {
+            gameService.passTurn(roomCode, player.getId(), player.getSessionId()); // Played, or the hand was too full to draw
+        }
+        if (room.getTurnDeadline() == deadline) {
+            // Nothing the rules would let us do for them; give them another go rather than trying every tick
+            room.setTurnDeadline(System.currentTimeMillis() + room.getTurnSeconds() * 1000L);
+        }
+    }
+
+    /**
+     * Starts the clock at the end of any action that handed over the turn, while nothing else can be touching
+     * the room, and makes sure the room has a timer.
+     */
+    private final class ClockScope implements RoomActionExecutor.ActionScope {
+
+        @Override
+        public void enter(String roomCode) {
+        }
+
+        @Override
+        public void exit(String roomCode) {
+            if (roomCode == null || roomCode.isEmpty()) {
+                return;
+            }
+            GameRoom room = roomService.peekRoom(roomCode);
+            if (room == null) {
+                return;
+            }
+            if (!room.isStarted() || room.getTurnSeconds() <= 0) {
+                if (room.getTurnDeadline() != 0) {
+                    room.setTurnDeadline(0);
+                }
+                return;
+            }
+            long deadline = room.getTurnDeadline();
+            if (deadline == 0) {
+                deadline = System.currentTimeMillis() + room.getTurnSeconds() * 1000L;
+                room.setTurnDeadline(deadline);
+            }
+            if (armed.add(roomCode)) {
+                arrivals.offer(new Arrival(roomCode, deadline));
+            }
+        }
+    }
+
+    private record Arrival(String roomCode, long deadline) {
+    }
+
+    /**
+     * How finely turns are timed, how many rooms have a clock running, and how often a timer found the turn had
+     * moved on (and was set again) or ran out (and the turn was taken).
+     */
+    public record TimerStats(long tickMillis, long armedRooms, long rearmed, long expired) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.cardi.cardi.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterNodeTests {
+
+    private static final String SECRET = "open sesame";
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ClusterNode::close);
+    }
+
+    @Test
+    void testRingSpreadsRoomsAndAddingANodeOnlyMovesItsShare() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int rooms = 30_000;
+        for (int i = 0; i < rooms; i++) {
+            String code = String.format("%06X", i * 7919);
+            String before = three.ownerOf(code);
+            String after = four.ownerOf(code);
+            counts.merge(before, 1, Integer::sum);
+            if (!before.equals(after)) {
+                moved++;
+                assertEquals("node-d", after, "Rooms only ever move to the newcomer");
+            }
+        }
+        for (int count : counts.values()) {
+            assertTrue(count > rooms / 5 && count < rooms / 2, "Uneven spread: " + counts);
+        }
+        assertTrue(moved > rooms / 6 && moved < rooms / 3, "Expected about a quarter to move, got " + moved);
+    }
+
+    @Test
+    void testActionsAndRepliesTravelBetweenNodesOnLocalhost() throws Exception {
+        RecordingListener a = new RecordingListener();
+        RecordingListener b = new RecordingListener();
+        RecordingListener c = new RecordingListener();
+        ClusterNode nodeA = start("node-a", a, 0);
+        ClusterNode nodeB = start("node-b", b, 0);
+        ClusterNode nodeC = start("node-c", c, 0);
+        connectAll();
+
+        String roomCode = codeOwnedBy(nodeA, "node-b");
+        assertEquals("node-b", nodeC.ownerOf(roomCode), "Every node agrees on the owner");
+
+        byte[] payload = "{\"roomCode\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        assertTrue(nodeA.forwardAction("node-b", "session-1", "/app/game.draw", payload));
+        assertEquals("action node-a session-1 /app/game.draw {\"roomCode\":\"x\"}", b.next());
+
+        nodeB.sendToSession("node-a", "session-1", "/queue/hand", "hand".getBytes(StandardCharsets.UTF_8));
+        assertEquals("user session-1 /queue/hand hand", a.next());
+
+        nodeC.subscribed("node-b", roomCode, "session-2");
+        assertEquals("subscribed node-c " + roomCode + " session-2", b.next());
+
+        nodeB.publish("node-c", roomCode, "state".getBytes(StandardCharsets.UTF_8));
+        nodeB.roomClosed("node-c", roomCode);
+        assertEquals("publish " + roomCode + " state", c.next());
+        assertEquals("closed " + roomCode, c.next());
+    }
+
+    @Test
+    void testNewRoomsGoToTheLeastLoadedLiveNode() throws Exception {
+        ClusterNode nodeA = start("node-a", new RecordingListener(), 5);
+        start("node-b", new RecordingListener(), 1);
+        start("node-c", new RecordingListener(), 3);
+        connectAll();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (nodeA.getStats().peers().stream().anyMatch(peer -> !peer.alive()) && System.nanoTime() < deadline) {
+            Thread.sleep(ClusterNode.HEARTBEAT_MILLIS / 5);
+        }
+        assertEquals("node-b", nodeA.leastLoadedNode());
+        assertEquals("node-b", nodeA.leastLoadedNode()); // Counted as 2 now, still the quietest
+        assertEquals("node-b", nodeA.leastLoadedNode()); // 3 against node-c's 3; ties go by name
+        assertEquals("node-c", nodeA.leastLoadedNode());
+    }
+
+    @Test
+    void testOnlyListedPeersThatKnowTheSecretAreListenedTo() throws Exception {
+        RecordingListener b = new RecordingListener();
+        ClusterNode nodeB = start("node-b", b, 0);
+        ClusterNode stranger = start("node-x", new RecordingListener(), 0);
+        ClusterNode impostor = start("node-a", new RecordingListener(), 0, "let me in");
+        ClusterNode nodeC = start("node-c", new RecordingListener(), 0);
+        nodeB.addPeer("node-a", "127.0.0.1", impostor.getPort());
+        nodeB.addPeer("node-c", "127.0.0.1", nodeC.getPort());
+        for (ClusterNode sender : List.of(stranger, impostor, nodeC)) {
+            sender.addPeer("node-b", "127.0.0.1", nodeB.getPort());
+        }
+
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+        stranger.forwardAction("node-b", "session-x", "/app/game.draw", payload);
+        impostor.forwardAction("node-b", "session-a", "/app/game.draw", payload);
+        nodeC.forwardAction("node-b", "session-c", "/app/game.draw", payload);
+        assertEquals("action node-c session-c /app/game.draw {}", b.next());
+        b.assertQuiet();
+    }
+
+    @Test
+    void testAPeerDroppingItsConnectionIsReported() throws Exception {
+        RecordingListener b = new RecordingListener();
+        ClusterNode nodeA = start("node-a", new RecordingListener(), 0);
+        start("node-b", b, 0);
+        connectAll();
+
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+        assertTrue(nodeA.forwardAction("node-b", "session-1", "/app/game.draw", payload));
+        assertEquals("action node-a session-1 /app/game.draw {}", b.next());
+        nodeA.close();
+        assertEquals("peer-gone node-a", b.next());
+    }
+
+    private ClusterNode start(String id, ClusterNode.Listener listener, int load) {
+        return start(id, listener, load, SECRET);
+    }
+
+    private ClusterNode start(String id, ClusterNode.Listener listener, int load, String secret) {
+        ClusterNode node = new ClusterNode(id, "127.0.0.1", 0, secret, 64, listener, () -> load);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private void connectAll() {
+        for (ClusterNode node : nodes) {
+            for (ClusterNode peer : nodes) {
+                node.addPeer(peer.getNodeId(), "127.0.0.1", peer.getPort());
+            }
+        }
+    }
+
+    private static String codeOwnedBy(ClusterNode node, String owner) {
+        for (int i = 0; ; i++) {
+            String code = String.format("R%05d", i);
+            if (owner.equals(node.ownerOf(code))) {
+                return code;
+            }
+        }
+    }
+
+    private static class RecordingListener implements ClusterNode.Listener {
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        String next() throws InterruptedException {
+            String event = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "Nothing arrived");
+            return event;
+        }
+
+        void assertQuiet() throws InterruptedException {
+            String event = received.poll(2 * ClusterNode.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNull(event, "Should have heard nothing more");
+        }
+
+        @Override
+        public void onAction(String fromNode, String sessionId, String destination, byte[] payload) {
+            received.add("action " + fromNode + " " + sessionId + " " + destination + " " + text(payload));
+        }
+
+        @Override
+        public void onPublish(String roomCode, byte[] frame) {
+            received.add("publish " + roomCode + " " + text(frame));
+        }
+
+        @Override
+        public void onUserMessage(String sessionId, String destination, byte[] frame) {
+            received.add("user " + sessionId + " " + destination + " " + text(frame));
+        }
+
+        @Override
+        public void onSubscribed(String fromNode, String roomCode, String sessionId) {
+            received.add("subscribed " + fromNode + " " + roomCode + " " + sessionId);
+        }
+
+        @Override
+        public void onRoomClosed(String roomCode) {
+            received.add("closed " + roomCode);
+        }
+
+        @Override
+        public void onSessionClosed(String fromNode, String sessionId) {
+            received.add("session-closed " + fromNode + " " + sessionId);
+        }
+
+        @Override
+        public void onPeerDisconnected(String nodeId) {
+            received.add("peer-gone " + nodeId);
+        }
+
+        private static String text(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cardi.cardi.cluster;
+
+import com.cardi.cardi.services.GameEventService;
+import com.cardi.cardi.services.RoomBroker;
+import com.cardi.cardi.services.RoomService;
+import com.cardi.cardi.services.SessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.MessageChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ClusterServiceTests {
+
+    private final SessionRegistry sessionRegistry = mock(SessionRegistry.class);
+
+    @Test
+    void testADroppedPeersSessionsAreForgottenAndTheirPlayersMarkedAway() {
+        ClusterService cluster = cluster("open sesame");
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+        cluster.onAction("node-b", "s1", "/app/game.draw", payload);
+        cluster.onSubscribed("node-b", "ROOM01", "s2");
+        cluster.onAction("node-c", "s3", "/app/game.draw", payload);
+        assertEquals(3, cluster.getStats().remoteSessions());
+
+        cluster.onPeerDisconnected("node-b");
+        assertEquals(1, cluster.getStats().remoteSessions());
+        verify(sessionRegistry).disconnected("s1");
+        verify(sessionRegistry).disconnected("s2");
+        verify(sessionRegistry, never()).disconnected("s3");
+    }
+
+    @Test
+    void testClusterModeWontStartWithoutASecret() {
+        assertThrows(IllegalStateException.class, () -> cluster(" ").start());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClusterService cluster(String secret) {
+        ObjectProvider<MessageChannel> inbound = mock(ObjectProvider.class);
+        when(inbound.getObject()).thenReturn(mock(MessageChannel.class));
+        return new ClusterService(true, "node-a", "127.0.0.1", 0, secret, "", 16, mock(GameEventService.class),
+                mock(RoomService.class), mock(RoomBroker.class), sessionRegistry, inbound, new ObjectMapper());
+    }
+}
@@ -0,0 +1,233 @@
+package com.cardi.cardi.journal;
+
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.services.CardValidator;
+import com.cardi.cardi.services.DeckGenerator;
+import com.cardi.cardi.services.GameEventService;
+import com.cardi.cardi.services.GameService;
+import com.cardi.cardi.services.RoomActionExecutor;
+import com.cardi.cardi.services.RoomHibernator;
+import com.cardi.cardi.services.RoomReaper;
+import com.cardi.cardi.services.RoomService;
+import com.cardi.cardi.services.SessionRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RoomJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsSurviveReopeningAndATornTailIsCutOff() throws Exception {
+        try (MappedJournal journal = new MappedJournal(directory, 4096, 1)) {
+            for (int i = 0; i < 3; i++) {
+                journal.awaitDurable(journal.append(text("record-" + i)));
+            }
+        }
+        // Scribble over the last record's payload, as a crash halfway through writing it might
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(2 * (8 + 8) + 8 + 3);
+            file.write('X');
+        }
+
+        try (MappedJournal journal = new MappedJournal(directory, 4096, 1)) {
+            assertEquals(List.of("record-0", "record-1"), read(journal));
+            journal.append(text("record-3"));
+            assertEquals(List.of("record-0", "record-1", "record-3"), read(journal));
+        }
+    }
+
+    @Test
+    void testFullSegmentsRollOverToTheNextFile() {
+        try (MappedJournal journal = new MappedJournal(directory, 64, 1)) {
+            List<String> written = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                written.add("entry-" + i);
+                journal.append(text("entry-" + i));
+            }
+            assertEquals(written, read(journal));
+            assertTrue(journal.getStats().segments() > 1);
+        }
+    }
+
+    @Test
+    void testATurnTimerRoundTripsInItsOwnField() {
+        JournalRecord record = JournalRecord.turnTimerSet("ROOM01", 45);
+        ByteBuffer buffer = ByteBuffer.allocate(record.maxSize());
+        record.encode(buffer);
+        buffer.flip();
+
+        JournalRecord decoded = JournalRecord.decode(buffer);
+        assertEquals(JournalRecord.Type.TURN_TIMER_SET, decoded.type());
+        assertEquals(45, decoded.turnSeconds());
+        assertEquals(0, decoded.seed(), "Seconds aren't a seed");
+    }
+
+    @Test
+    void testReplayingTheJournalRebuildsTheSameGame() {
+        RoomJournal journal = journal();
+        Server server = server(journal);
+        String roomCode = startGame(server);
+        GameRoom before = server.rooms().getRoom(roomCode);
+        drawCards(server, before, 6);
+        journal.close();
+
+        RoomJournal reopened = journal();
+        Server restarted = server(reopened);
+        restarted.rooms().afterSingletonsInstantiated();
+        GameRoom after = restarted.rooms().getRoom(roomCode);
+        reopened.close();
+
+        assertSameGame(before, after);
+    }
+
+    @Test
+    void testSomebodyWhoWasNeverSeatedLeavesNoTrace() {
+        RoomJournal journal = journal();
+        Server server = server(journal);
+        String roomCode = startGame(server);
+        assertDoesNotThrow(() -> server.rooms().removePlayer(roomCode, "nobody"));
+        journal.close();
+
+        RoomJournal reopened = journal();
+        Server restarted = server(reopened);
+        assertDoesNotThrow(() -> restarted.rooms().afterSingletonsInstantiated());
+        assertEquals(2, restarted.rooms().getRoom(roomCode).getPlayers().size());
+        reopened.close();
+    }
+
+    @Test
+    void testRecoveryStartsFromTheSnapshotAndOnlyReplaysWhatCameAfter() throws Exception {
+        RoomJournal journal = journal(128);
+        Server server = server(journal);
+        String roomCode = startGame(server);
+        GameRoom before = server.rooms().getRoom(roomCode);
+        drawCards(server, before, 20);
+        List<Path> history = journalSegments();
+        assertTrue(history.size() > 3, "The history should span several segments");
+        journal.snapshot(before);
+        drawCards(server, before, 3);
+        journal.close();
+        List<Path> kept = journalSegments();
+        assertTrue(kept.size() < history.size(), "Once the snapshot is on disk, the segments before it can go");
+        assertFalse(kept.contains(history.get(0)));
+
+        RoomJournal reopened = journal(128);
+        List<GameRoom> snapshots = reopened.loadSnapshots();
+        assertEquals(1, snapshots.size());
+        assertEquals(3, reopened.replay(record -> { }), "Only the draws after the snapshot need replaying");
+        reopened.close();
+
+        RoomJournal restartedJournal = journal(128);
+        Server restarted = server(restartedJournal);
+        restarted.rooms().afterSingletonsInstantiated();
+        GameRoom after = restarted.rooms().getRoom(roomCode);
+        restartedJournal.close();
+
+        assertSameGame(before, after);
+        assertEquals(before.getRandom().getState(), after.getRandom().getState(), "The luck carries on where it left off");
+        assertEquals(1, journalSegments().size(), "Recovery snapshots every room, so older segments can go");
+    }
+
+    private String startGame(Server server) {
+        server.rooms().createRoom("alice", "s1");
+        ArgumentCaptor<String> created = ArgumentCaptor.forClass(String.class);
+        verify(server.events()).sendRoomUpdate(created.capture(), eq("s1"));
+        String roomCode = created.getValue();
+        server.rooms().joinRoom(roomCode, "bob", "s2");
+        server.game().startGame(roomCode);
+        return roomCode;
+    }
+
+    private static void drawCards(Server server, GameRoom room, int turns) {
+        for (int turn = 0; turn < turns; turn++) {
+            Player current = room.getPlayers().get(room.getCurrentPlayerIndex());
+            server.game().drawCard(room.getRoomCode(), current.getId(), null);
+        }
+    }
+
+    private static void assertSameGame(GameRoom before, GameRoom after) {
+        assertNotNull(after);
+        assertEquals(before.getSeed(), after.getSeed());
+        assertEquals(before.getCurrentPlayerIndex(), after.getCurrentPlayerIndex());
+        assertEquals(before.getTopCard(), after.getTopCard());
+        assertEquals(List.copyOf(before.getDrawPile()), List.copyOf(after.getDrawPile()));
+        for (int i = 0; i < before.getPlayers().size(); i++) {
+            Player expected = before.getPlayers().get(i);
+            Player actual = after.getPlayers().get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getHand(), actual.getHand());
+            assertNull(actual.getSessionId(), "Nobody is connected until they rejoin");
+        }
+    }
+
+    private RoomJournal journal() {
+        return journal(1024 * 1024);
+    }
+
+    private RoomJournal journal(int segmentBytes) {
+        RoomJournal journal = new RoomJournal(true, directory, segmentBytes, 1, false, 0);
+        journal.open();
+        return journal;
+    }
+
+    /**
+     * A RoomService and GameService wired to each other the way Spring does it, with the lazy side stood in for.
+     */
+    private static Server server(RoomJournal journal) {
+        ClusterService cluster = mock(ClusterService.class);
+        when(cluster.owns(any())).thenReturn(true);
+        GameEventService events = mock(GameEventService.class);
+        AtomicReference<GameService> game = new AtomicReference<>();
+        GameService lazyGame = mock(GameService.class,
+                invocation -> invocation.getMethod().invoke(game.get(), invocation.getArguments()));
+        RoomService rooms = new RoomService(events, cluster, journal, lazyGame, mock(RoomActionExecutor.class),
+                mock(RoomReaper.class), new RoomHibernator(), mock(SessionRegistry.class));
+        game.set(new GameService(rooms, new DeckGenerator(), new CardValidator(), events, journal));
+        return new Server(rooms, game.get(), events);
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private List<Path> journalSegments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(MappedJournal.PREFIX)).sorted().toList();
+        }
+    }
+
+    private static ByteBuffer text(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> read(MappedJournal journal) {
+        List<String> records = new ArrayList<>();
+        journal.replay((buffer, position) -> records.add(StandardCharsets.UTF_8.decode(buffer).toString()));
+        return records;
+    }
+
+    private record Server(RoomService rooms, GameService game, GameEventService events) {
+    }
+}
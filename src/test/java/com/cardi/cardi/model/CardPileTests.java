@@ -0,0 +1,51 @@
+package com.cardi.cardi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EmptyStackException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardPileTests {
+
+    @Test
+    void testPushPopAndPeekWorkFromTheTop() {
+        CardPile pile = new CardPile();
+        pile.push(Card.of(Suit.HEARTS, Rank.TWO));
+        pile.push(Card.byId("JK2"));
+        assertSame(Card.byId("JK2"), pile.peek());
+        assertSame(Card.of(Suit.HEARTS, Rank.TWO), pile.get(0));
+        assertSame(Card.byId("JK2"), pile.pop());
+        assertSame(Card.of(Suit.HEARTS, Rank.TWO), pile.pop());
+        assertTrue(pile.isEmpty());
+        assertThrows(EmptyStackException.class, pile::pop);
+    }
+
+    @Test
+    void testRecyclingShufflesExactlyLikeItUsedTo() {
+        List<Card> played = new ArrayList<>(Card.deck().subList(0, 30));
+        CardPile pile = new CardPile();
+        pile.addAll(played);
+
+        List<Card> expected = new ArrayList<>(played.subList(0, 29));
+        Collections.shuffle(expected, new RoomRandom(99));
+        CardPile draw = new CardPile();
+        pile.recycleInto(draw, new RoomRandom(99));
+
+        assertEquals(expected, draw, "Same seed, same deal");
+        assertEquals(List.of(played.get(29)), pile, "The top card stays where it is");
+    }
+
+    @Test
+    void testNothingToRecycleUnderALoneTopCard() {
+        CardPile pile = new CardPile();
+        pile.push(Card.of(Suit.SPADES, Rank.ACE));
+        CardPile draw = new CardPile();
+        pile.recycleInto(draw, new RoomRandom(1));
+        assertTrue(draw.isEmpty());
+        assertEquals(1, pile.size());
+    }
+}
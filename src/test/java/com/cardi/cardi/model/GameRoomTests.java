@@ -0,0 +1,110 @@
+package com.cardi.cardi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRoomTests {
+
+    private static GameRoom roomOf(int players) {
+        GameRoom room = new GameRoom("RING01", 1L);
+        for (int i = 0; i < players; i++) {
+            room.addPlayer(new Player("p" + i, "player" + i));
+        }
+        return room;
+    }
+
+    @Test
+    void testPlayersAreFoundByIdAndSeat() {
+        GameRoom room = roomOf(3);
+        assertEquals(2, room.seatOf("p2"));
+        assertEquals(-1, room.seatOf("nobody"));
+        assertSame(room.getPlayers().get(1), room.getPlayerById("p1"));
+        assertNull(room.getPlayerById("nobody"));
+        assertThrows(UnsupportedOperationException.class, () -> room.getPlayers().add(new Player("x", "x")));
+    }
+
+    @Test
+    void testPlayersAreFoundByNameWhateverTheCase() {
+        GameRoom room = roomOf(3);
+        assertSame(room.getPlayerById("p1"), room.getPlayerByUsername("PLAYER1"));
+        assertNull(room.getPlayerByUsername("nobody"));
+
+        room.removePlayer("p1");
+        assertNull(room.getPlayerByUsername("player1"));
+        assertSame(room.getPlayerById("p2"), room.getPlayerByUsername("player2"), "Moving up a seat doesn't lose anyone");
+
+        room.clearPlayers();
+        assertNull(room.getPlayerByUsername("player0"));
+    }
+
+    @Test
+    void testTurnsGoRoundTheRingBothWays() {
+        GameRoom room = roomOf(4);
+        room.setCurrentPlayerIndex(3);
+        assertEquals(0, room.seatAfter(1));
+        assertEquals(1, room.seatAfter(2));
+
+        room.setReversed(true);
+        room.setCurrentPlayerIndex(0);
+        assertEquals(3, room.seatAfter(1));
+        assertEquals(2, room.seatAfter(2));
+        assertEquals(0, room.seatAfter(4));
+    }
+
+    @Test
+    void testTurnIsBySeatNotByLookalike() {
+        GameRoom room = roomOf(2);
+        room.setCurrentPlayerIndex(1);
+        assertTrue(room.isTurnOf(room.getPlayerById("p1")));
+        assertFalse(room.isTurnOf(room.getPlayerById("p0")));
+        assertFalse(room.isTurnOf(new Player("stranger", "player1")));
+        assertFalse(room.isTurnOf(null));
+    }
+
+    @Test
+    void testLeavingClosesTheGapAndKeepsTheTurnWhereItWas() {
+        GameRoom room = roomOf(4);
+        room.setCurrentPlayerIndex(2);
+
+        assertNotNull(room.removePlayer("p0"));
+        assertEquals(List.of("p1", "p2", "p3"), room.getPlayers().stream().map(Player::getId).toList());
+        assertEquals(0, room.seatOf("p1"));
+        assertEquals("p2", room.getCurrentPlayer().getId());
+
+        room.setCurrentPlayerIndex(2);
+        room.removePlayer("p3"); // Whoever's turn it was walks out; it wraps round to the first seat
+        assertEquals("p1", room.getCurrentPlayer().getId());
+        assertNull(room.removePlayer("p3"));
+
+        room.clearPlayers();
+        assertTrue(room.getPlayers().isEmpty());
+        assertNull(room.getPlayerById("p1"));
+    }
+
+    @Test
+    void testTableHasRoomForSoManyAndNoMore() {
+        GameRoom room = roomOf(GameRoom.MAX_SEATS);
+        assertTrue(room.isFull());
+        assertThrows(IllegalStateException.class, () -> room.addPlayer(new Player("extra", "extra")));
+    }
+
+    @Test
+    void testTurnMillisLeftCountsDownFromTheDeadline() {
+        GameRoom room = roomOf(2);
+        room.setTurnSeconds(20);
+        assertNull(room.turnMillisLeft(1_000), "No game, no clock");
+
+        room.setStarted(true);
+        assertEquals(20_000, room.turnMillisLeft(1_000), "A clock that hasn't started yet has all of it left");
+        room.setTurnDeadline(21_000);
+        assertEquals(5_000, room.turnMillisLeft(16_000));
+        assertEquals(0, room.turnMillisLeft(30_000));
+
+        room.setCurrentPlayerIndex(1);
+        room.removePlayer("p1");
+        assertEquals(0, room.getTurnDeadline(), "Whoever has the turn now gets a fresh clock");
+    }
+}
@@ -0,0 +1,58 @@
+package com.cardi.cardi.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HandTests {
+
+    private final Card sevenOfHearts = Card.of(Suit.HEARTS, Rank.SEVEN);
+    private final Card sevenOfClubs = Card.of(Suit.CLUBS, Rank.SEVEN);
+    private final Card kingOfSpades = Card.of(Suit.SPADES, Rank.KING);
+    private final Card joker = Card.byId("JK1");
+    private final Card otherJoker = Card.byId("JK2");
+
+    @Test
+    void testRemoveAllIsAllOrNothing() {
+        Hand hand = Hand.of(List.of(sevenOfHearts, kingOfSpades, joker));
+
+        assertFalse(hand.removeAll(List.of(sevenOfHearts, sevenOfClubs)));
+        assertEquals(3, hand.size());
+        assertTrue(hand.contains(sevenOfHearts));
+
+        assertTrue(hand.removeAll(List.of(sevenOfHearts, kingOfSpades)));
+        assertEquals(1, hand.size());
+        assertFalse(hand.contains(sevenOfHearts));
+    }
+
+    @Test
+    void testSameCardCannotBePlayedTwice() {
+        Hand hand = Hand.of(List.of(sevenOfHearts, kingOfSpades));
+
+        assertFalse(hand.containsAll(List.of(sevenOfHearts, sevenOfHearts)));
+    }
+
+    @Test
+    void testJokersAreCountedNotIdentified() {
+        Hand hand = Hand.of(List.of(joker, otherJoker));
+
+        // A client that only sends suit and value always resolves to the first Joker.
+        assertTrue(hand.containsAll(List.of(joker, joker)));
+        assertFalse(hand.containsAll(List.of(joker, joker, joker)));
+        assertTrue(hand.removeAll(List.of(otherJoker)));
+        assertEquals(1, hand.getJokers());
+        assertEquals(List.of(joker), hand.toList());
+    }
+
+    @Test
+    void testSuitAndRankQueries() {
+        Hand hand = Hand.of(List.of(sevenOfHearts, sevenOfClubs, kingOfSpades, joker));
+
+        assertEquals(2, Long.bitCount(hand.cardsOfRank(Rank.SEVEN)));
+        assertEquals(1, Long.bitCount(hand.cardsOfSuit(Suit.SPADES)));
+        assertEquals(Hand.JOKER_BIT, hand.cardsOfRank(Rank.JOKER));
+        assertEquals(0, hand.cardsOfSuit(Suit.DIAMONDS));
+    }
+}
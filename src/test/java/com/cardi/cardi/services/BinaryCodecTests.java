@@ -0,0 +1,100 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameEvent;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.GameState;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCodecTests {
+
+    @Test
+    void testPlayFrameDecodesToCatalogueCards() {
+        ByteBuffer frame = ByteBuffer.wrap(new byte[]{
+                BinaryCodec.OP_PLAY, (byte) Suit.SPADES.ordinal(), 2,
+                (byte) Card.of("Hearts", "A").getOrdinal(), (byte) Card.FIRST_JOKER});
+
+        assertEquals(BinaryCodec.OP_PLAY, frame.get());
+        assertEquals(Suit.SPADES, BinaryCodec.readSuit(frame));
+        List<Card> cards = BinaryCodec.readCards(frame);
+        assertSame(Card.of("Hearts", "A"), cards.get(0));
+        assertTrue(cards.get(1).isJoker());
+        assertFalse(frame.hasRemaining());
+    }
+
+    @Test
+    void testBogusCardOrdinalIsRejected() {
+        ByteBuffer frame = ByteBuffer.wrap(new byte[]{1, (byte) 200});
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.readCards(frame));
+    }
+
+    @Test
+    void testVersionNegotiationPicksHighestCommonVersion() {
+        assertEquals(BinaryCodec.MAX_VERSION, BinaryCodec.negotiate(1, 9));
+        assertEquals(-1, BinaryCodec.negotiate(BinaryCodec.MAX_VERSION + 1, BinaryCodec.MAX_VERSION + 3));
+    }
+
+    @Test
+    void testStateRecordLayout() {
+        GameRoom room = new GameRoom("ABC123");
+        Player alice = new Player("p1", "alice", "s1");
+        alice.getHand().add(Card.of("Clubs", "9"));
+        room.addPlayer(alice);
+        room.addPlayer(new Player("p2", "bob")); // No session, so bob is sent as away
+        room.setRoomOwnerId("p2");
+        room.getPlayedPile().push(Card.of("Diamonds", "4"));
+        room.setStarted(true);
+        room.setReversed(true);
+        room.setCurrentPlayerIndex(1);
+        room.setVersion(42);
+        room.setTurnSeconds(30);
+
+        byte[] bytes = BinaryCodec.encode(new GameEvent(GameEvent.EventType.GAME_STATE_UPDATE, GameState.from(room, "hi")), room);
+        ByteBuffer frame = ByteBuffer.wrap(bytes);
+
+        assertEquals(BinaryCodec.OP_STATE, frame.get());
+        assertEquals(GameEvent.EventType.GAME_STATE_UPDATE.ordinal(), frame.get());
+        assertEquals(42, frame.getLong());
+        assertEquals("ABC123", BinaryCodec.readString(frame));
+        assertEquals(Card.of("Diamonds", "4").getOrdinal(), frame.get());
+        assertEquals(1, frame.get());
+        assertEquals(BinaryCodec.FLAG_REVERSED | BinaryCodec.FLAG_STARTED, frame.get());
+        assertEquals(0, frame.get()); // draw penalty
+        assertEquals((byte) BinaryCodec.NONE, frame.get()); // no active suit
+        assertEquals(1, frame.get()); // bob owns the room
+        assertEquals(2, frame.get());
+        assertEquals(1, frame.get()); // alice's hand size
+        assertEquals(0, frame.get());
+        assertEquals(0, frame.getShort());
+        assertEquals("alice", BinaryCodec.readString(frame));
+        assertEquals(0, frame.get());
+        assertEquals(BinaryCodec.FLAG_AWAY, frame.get());
+        assertEquals(0, frame.getShort());
+        assertEquals("bob", BinaryCodec.readString(frame));
+        assertEquals("hi", BinaryCodec.readString(frame));
+        assertEquals(30_000, frame.getInt()); // bob's clock hasn't started yet
+        assertFalse(frame.hasRemaining());
+    }
+
+    @Test
+    void testTableEventUsesSeatsInsteadOfPlayerIds() {
+        GameRoom room = new GameRoom("ABC123");
+        room.addPlayer(new Player("p1", "alice"));
+        room.addPlayer(new Player("p2", "bob"));
+        Card seven = Card.of("Hearts", "7");
+
+        byte[] bytes = BinaryCodec.encode(new GameEvent(GameEvent.EventType.CARD_PLAYED,
+                Map.of("playerId", "p2", "cards", List.of(seven))), room);
+
+        assertArrayEquals(new byte[]{BinaryCodec.OP_EVENT, (byte) GameEvent.EventType.CARD_PLAYED.ordinal(),
+                1, 1, 1, (byte) seven.getOrdinal(), 0}, bytes);
+    }
+}
@@ -0,0 +1,79 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BotBrainTests {
+
+    private final BotBrain brain = new BotBrain(new CardValidator(), new SheddingBotStrategy());
+    private GameRoom room;
+    private Player bot;
+
+    @BeforeEach
+    void setUp() {
+        room = new GameRoom("BOTS", 7L);
+        room.addPlayer(Player.bot("b1", "Bot 1"));
+        room.addPlayer(new Player("p2", "Player Two"));
+        new GameEngine(new DeckGenerator(), new CardValidator()).deal(room);
+        bot = room.getCurrentPlayer();
+        room.getPlayedPile().push(Card.of(Suit.HEARTS, Rank.SEVEN));
+    }
+
+    private void give(Card... cards) {
+        bot.getHand().clear();
+        for (Card card : cards) {
+            bot.getHand().add(card);
+        }
+    }
+
+    @Test
+    void testPassesOnceItHasPlayedAndDrawsWhenItCant() {
+        give(Card.of(Suit.CLUBS, Rank.NINE), Card.of(Suit.SPADES, Rank.TEN));
+        assertEquals(BotBrain.Move.DRAW, brain.decide(room, bot));
+
+        room.setPlayerHasTakenAction(true);
+        assertEquals(BotBrain.Move.PASS, brain.decide(room, bot));
+    }
+
+    @Test
+    void testSheddingPlainCardsBeforeTheUsefulOnes() {
+        give(Card.of(Suit.HEARTS, Rank.TWO), Card.of(Suit.SPADES, Rank.SEVEN), Card.of(Suit.HEARTS, Rank.KING));
+
+        BotBrain.Move move = brain.decide(room, bot);
+        assertEquals(BotBrain.Action.PLAY, move.action());
+        assertEquals(Card.of(Suit.SPADES, Rank.SEVEN), move.card());
+        assertNull(move.suit());
+        assertFalse(move.callCardi());
+    }
+
+    @Test
+    void testLastCardCallsCardiAndNeverGoesOutOnARestrictedCard() {
+        give(Card.of(Suit.HEARTS, Rank.FOUR));
+        BotBrain.Move move = brain.decide(room, bot);
+        assertEquals(Card.of(Suit.HEARTS, Rank.FOUR), move.card());
+        assertTrue(move.callCardi());
+
+        bot.setHasCalledCardi(true);
+        assertFalse(brain.decide(room, bot).callCardi(), "Once is enough");
+
+        give(Card.of(Suit.HEARTS, Rank.TWO));
+        assertEquals(BotBrain.Move.DRAW, brain.decide(room, bot), "A Two may not finish, so it draws instead");
+    }
+
+    @Test
+    void testAceCallsTheSuitItHoldsMostOf() {
+        give(Card.of(Suit.SPADES, Rank.ACE), Card.of(Suit.CLUBS, Rank.NINE), Card.of(Suit.CLUBS, Rank.TEN),
+                Card.of(Suit.DIAMONDS, Rank.FOUR));
+
+        BotBrain.Move move = brain.decide(room, bot);
+        assertEquals(Card.of(Suit.SPADES, Rank.ACE), move.card());
+        assertEquals(Suit.CLUBS.getLabel(), move.suit());
+    }
+}
@@ -0,0 +1,73 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Hand;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardValidatorTests {
+
+    private final CardValidator validator = new CardValidator();
+    private final GameRoom room = new GameRoom("RULES1", 1L);
+
+    private static Card card(Suit suit, Rank rank) {
+        return Card.of(suit, rank);
+    }
+
+    @Test
+    void testNormalTurnMatchesSuitOrRankAndWildsGoAnywhere() {
+        Card top = card(Suit.HEARTS, Rank.SEVEN);
+        assertTrue(validator.isValidPlay(card(Suit.HEARTS, Rank.TWO), top, room));
+        assertTrue(validator.isValidPlay(card(Suit.CLUBS, Rank.SEVEN), top, room));
+        assertTrue(validator.isValidPlay(card(Suit.CLUBS, Rank.ACE), top, room));
+        assertTrue(validator.isValidPlay(Card.byId("JK2"), top, room));
+        assertFalse(validator.isValidPlay(card(Suit.CLUBS, Rank.EIGHT), top, room));
+        assertFalse(validator.isValidPlay(card(Suit.HEARTS, Rank.TWO), null, room));
+    }
+
+    @Test
+    void testPenaltyOnlyTakesCountersUnderTheHouseRules() {
+        Card top = card(Suit.HEARTS, Rank.TWO);
+        room.setDrawPenalty(2);
+        assertTrue(validator.isValidPlay(card(Suit.CLUBS, Rank.THREE), top, room));
+        assertTrue(validator.isValidPlay(card(Suit.CLUBS, Rank.KING), top, room));
+        assertFalse(validator.isValidPlay(card(Suit.HEARTS, Rank.SEVEN), top, room));
+
+        room.setRestrictJKCounters(true);
+        assertFalse(validator.isValidPlay(card(Suit.HEARTS, Rank.KING), top, room));
+
+        room.setMatchShapeForCounter(true);
+        assertFalse(validator.isValidPlay(card(Suit.CLUBS, Rank.THREE), top, room));
+        assertTrue(validator.isValidPlay(card(Suit.HEARTS, Rank.THREE), top, room));
+        assertTrue(validator.isValidPlay(card(Suit.CLUBS, Rank.ACE), top, room), "Aces can always counter");
+    }
+
+    @Test
+    void testCalledSuitAndOpenQuestionsNarrowThingsDown() {
+        Card top = card(Suit.HEARTS, Rank.QUEEN);
+        room.setQuestionActive(true);
+        assertTrue(validator.isValidPlay(card(Suit.HEARTS, Rank.FOUR), top, room));
+        assertFalse(validator.isValidPlay(card(Suit.SPADES, Rank.QUEEN), top, room));
+
+        room.setActiveSuit(Suit.SPADES); // A called suit outranks the question
+        assertTrue(validator.isValidPlay(card(Suit.SPADES, Rank.FOUR), top, room));
+        assertFalse(validator.isValidPlay(card(Suit.HEARTS, Rank.FOUR), top, room));
+    }
+
+    @Test
+    void testPlayableCardsIsTheHandAgainstTheTable() {
+        Hand hand = Hand.of(List.of(card(Suit.HEARTS, Rank.FOUR), card(Suit.CLUBS, Rank.NINE), Card.byId("JK1")));
+        long playable = validator.playableCards(hand, card(Suit.HEARTS, Rank.SEVEN), room);
+        assertEquals((1L << card(Suit.HEARTS, Rank.FOUR).getOrdinal()) | Hand.JOKER_BIT, playable);
+
+        room.setDrawPenalty(2);
+        assertEquals(-1L >>> (64 - Card.DECK_SIZE), validator.legalMask(Card.byId("JK1"), room),
+                "Anything goes on a Joker");
+    }
+}
@@ -0,0 +1,40 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.CardPile;
+import com.cardi.cardi.model.RoomRandom;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeckGeneratorTests {
+
+    private final DeckGenerator deckGenerator = new DeckGenerator();
+
+    @Test
+    void testEveryCardTurnsUpExactlyOnce() {
+        CardPile deck = new CardPile();
+        deck.push(Card.byId("JK1")); // Leftovers from the last game don't count
+        deckGenerator.shuffleInto(deck, new RoomRandom(5));
+        assertEquals(Card.DECK_SIZE, deck.size());
+        assertEquals(new HashSet<>(Card.deck()), new HashSet<>(deck));
+    }
+
+    @Test
+    void testSameSeedSameDealAsEver() {
+        List<Card> expected = new ArrayList<>(Card.deck());
+        Collections.shuffle(expected, new RoomRandom(2024));
+
+        CardPile deck = new CardPile();
+        deckGenerator.shuffleInto(deck, new RoomRandom(2024));
+        assertEquals(expected, deck);
+
+        deckGenerator.shuffleInto(deck, new RoomRandom(2024)); // Same pile, dealt again
+        assertEquals(expected, deck);
+    }
+}
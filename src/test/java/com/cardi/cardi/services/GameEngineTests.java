@@ -0,0 +1,120 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameEngineTests {
+
+    private final GameEngine engine = new GameEngine(new DeckGenerator(), new CardValidator());
+    private GameRoom room;
+    private Player first;
+    private Player second;
+
+    @BeforeEach
+    void setUp() {
+        room = new GameRoom("ENGINE", 99L);
+        room.addPlayer(new Player("p1", "Player One"));
+        room.addPlayer(new Player("p2", "Player Two"));
+        engine.deal(room);
+        first = room.getCurrentPlayer();
+        second = room.getPlayers().get(room.seatAfter(1));
+    }
+
+    private void give(Player player, Card... cards) {
+        player.getHand().clear();
+        for (Card card : cards) {
+            player.getHand().add(card);
+        }
+    }
+
+    private void topCard(Card card) {
+        room.getPlayedPile().push(card);
+    }
+
+    @Test
+    void testDealIsTheSameGameFromTheSameSeed() {
+        GameRoom again = new GameRoom("ENGINE", 99L);
+        again.addPlayer(new Player("p1", "Player One"));
+        again.addPlayer(new Player("p2", "Player Two"));
+        engine.deal(again);
+
+        assertTrue(room.isStarted());
+        assertEquals(room.getTopCard(), again.getTopCard());
+        assertEquals(room.getCurrentPlayerIndex(), again.getCurrentPlayerIndex());
+        assertEquals(room.getPlayers().get(0).getHand(), again.getPlayers().get(0).getHand());
+        assertEquals(GameEngine.INITIAL_CARDS_PER_PLAYER, first.getHand().size());
+    }
+
+    @Test
+    void testRejectedMovesChangeNothing() {
+        give(second, Card.of(Suit.HEARTS, Rank.FIVE));
+        int drawPile = room.getDrawPile().size();
+
+        GameEngine.Outcome outcome = engine.play(room, second, List.of(Card.of(Suit.HEARTS, Rank.FIVE)), null);
+        assertEquals(GameEngine.Result.REJECTED, outcome.result());
+        assertEquals("It's not your turn.", outcome.detail());
+        assertFalse(engine.pass(room, first).accepted(), "Nothing played yet, so nothing to pass on");
+        assertEquals(drawPile, room.getDrawPile().size());
+        assertEquals(1, second.getHand().size());
+    }
+
+    @Test
+    void testPenaltiesStackUntilSomebodyDraws() {
+        topCard(Card.of(Suit.HEARTS, Rank.SEVEN));
+        give(first, Card.of(Suit.HEARTS, Rank.TWO), Card.of(Suit.CLUBS, Rank.NINE));
+        give(second, Card.of(Suit.SPADES, Rank.THREE), Card.of(Suit.CLUBS, Rank.TEN));
+
+        assertEquals(GameEngine.Result.PLAYED, engine.play(room, first, List.of(Card.of(Suit.HEARTS, Rank.TWO)), null).result());
+        assertTrue(room.isTurnOf(second), "Counter cards hand the turn on by themselves");
+        engine.play(room, second, List.of(Card.of(Suit.SPADES, Rank.THREE)), null);
+        assertEquals(5, room.getDrawPenalty());
+
+        GameEngine.Outcome outcome = engine.draw(room, first);
+        assertEquals(GameEngine.Result.DREW, outcome.result());
+        assertEquals(5, outcome.cardsDrawn());
+        assertEquals(6, first.getHand().size());
+        assertEquals(0, room.getDrawPenalty());
+        assertTrue(room.isTurnOf(second));
+    }
+
+    @Test
+    void testHandingOverTheTurnStopsTheClock() {
+        topCard(Card.of(Suit.HEARTS, Rank.SEVEN));
+        give(first, Card.of(Suit.HEARTS, Rank.FOUR), Card.of(Suit.CLUBS, Rank.NINE));
+        room.setTurnDeadline(12345L);
+
+        engine.play(room, first, List.of(Card.of(Suit.HEARTS, Rank.FOUR)), null);
+        assertEquals(12345L, room.getTurnDeadline(), "Still their turn, still their clock");
+        engine.pass(room, first);
+        assertEquals(0, room.getTurnDeadline(), "The next player's clock starts afresh");
+    }
+
+    @Test
+    void testGoingOutAfterCardiWinsAndAFullHandCantDraw() {
+        topCard(Card.of(Suit.HEARTS, Rank.SEVEN));
+        give(first, Card.of(Suit.HEARTS, Rank.FOUR));
+        first.setHasCalledCardi(true);
+
+        GameEngine.Outcome won = engine.play(room, first, List.of(Card.of(Suit.HEARTS, Rank.FOUR)), null);
+        assertEquals(GameEngine.Result.WON, won.result());
+        assertFalse(room.isStarted());
+        assertTrue(first.getHand().isEmpty());
+
+        setUp();
+        room.setMaxCardsAllowed(4);
+        GameEngine.Outcome full = engine.draw(room, first);
+        assertEquals(GameEngine.Result.HAND_FULL, full.result());
+        assertTrue(full.accepted());
+        assertTrue(room.isPlayerHasTakenAction());
+        assertEquals(GameEngine.Result.PASSED, engine.pass(room, first).result());
+    }
+}
@@ -0,0 +1,139 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.cluster.ClusterService;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameEventServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RoomActionExecutor executor = new RoomActionExecutor(1);
+    private SimpMessagingTemplate messagingTemplate;
+    private RoomBroker roomBroker;
+    private GameEventService gameEventService;
+    private RoomService roomService;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        roomBroker = mock(RoomBroker.class);
+        roomService = mock(RoomService.class);
+        gameEventService = eventService(false);
+    }
+
+    private GameEventService eventService(boolean deltaMode) {
+        EncodedFrameCache frameCache = new EncodedFrameCache(objectMapper);
+        return new GameEventService(messagingTemplate, roomService, executor, frameCache,
+                new GameStateProjector(frameCache), new BinarySessionGateway(), roomBroker, mock(ClusterService.class), deltaMode);
+    }
+
+    private GameRoom seatedRoom(String roomCode) {
+        GameRoom room = new GameRoom(roomCode);
+        room.addPlayer(new Player("p1", "alice"));
+        room.addPlayer(new Player("p2", "bob"));
+        when(roomService.getRoom(roomCode)).thenReturn(room);
+        return room;
+    }
+
+    private JsonNode lastPublished(String roomCode) throws Exception {
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        verify(roomBroker, atLeastOnce()).publish(eq(roomCode), sent.capture());
+        return objectMapper.readTree(sent.getValue());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testEventsFromOneActionGoOutAsOneOrderedFrame() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("ROOM01", () -> {
+            gameEventService.sendCardDrawn("ROOM01", "p1", 2);
+            gameEventService.sendTurnPassed("ROOM01", "p1");
+        });
+        executor.execute("ROOM01", done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        verify(roomBroker, times(1)).publish(eq("ROOM01"), sent.capture());
+
+        JsonNode batch = objectMapper.readTree(sent.getValue());
+        assertEquals("BATCH", batch.get("type").asText());
+        assertEquals("CARD_DRAWN", batch.get("payload").get(0).get("type").asText());
+        assertEquals(2, batch.get("payload").get(0).get("payload").get("numberOfCards").asInt());
+        assertEquals("TURN_PASSED", batch.get("payload").get(1).get("type").asText());
+        assertEquals(2, gameEventService.getBatchStats().events());
+    }
+
+    @Test
+    void testEventsOutsideAnActionAreSentStraightAway() {
+        gameEventService.sendPlayerJoined("ROOM02", "alice");
+        gameEventService.sendPlayerJoined("ROOM02", "bob");
+
+        verify(roomBroker, times(2)).publish(eq("ROOM02"), any(byte[].class));
+    }
+
+    @Test
+    void testDeltasCarryCardiCallsAndWins() throws Exception {
+        GameEventService deltas = eventService(true);
+        GameRoom room = seatedRoom("ROOM03");
+        deltas.sendGameStateUpdate("ROOM03", "Let's go");
+
+        room.getPlayers().get(1).setHasCalledCardi(true);
+        room.getPlayers().get(0).setWins(2);
+        deltas.sendGameStateUpdate("ROOM03", "Cardi!");
+
+        JsonNode frame = lastPublished("ROOM03");
+        assertEquals("GAME_STATE_DELTA", frame.get("type").asText());
+        JsonNode delta = frame.get("payload");
+        assertEquals("[false,true]", delta.get("calledCardi").toString());
+        assertEquals("[2,0]", delta.get("wins").toString());
+
+        deltas.sendGameStateUpdate("ROOM03", "Nothing new");
+        delta = lastPublished("ROOM03").get("payload");
+        assertFalse(delta.has("calledCardi"));
+        assertFalse(delta.has("wins"));
+    }
+
+    @Test
+    void testANewcomerAndTheNextDeltaAgreeOnTheVersion() throws Exception {
+        GameEventService deltas = eventService(true);
+        GameRoom room = seatedRoom("ROOM04");
+        deltas.sendGameStateUpdate("ROOM04", "Let's go");
+        long broadcast = room.getVersion();
+
+        room.getPlayers().get(0).setHasCalledCardi(true);
+        room.nextVersion(); // Changed, but nothing broadcast, as calling Cardi does
+
+        deltas.sendFullState("ROOM04", "s3");
+        JsonNode catchUp = lastPublished("ROOM04").get("payload");
+        assertEquals(broadcast, catchUp.get("baseVersion").asLong(), "Everyone already watching gets the change first");
+        ArgumentCaptor<Message<byte[]>> snapshot = ArgumentCaptor.captor();
+        verify(messagingTemplate).send(contains("s3/queue/state"), snapshot.capture());
+        long newcomer = objectMapper.readTree(snapshot.getValue().getPayload()).get("payload").get("version").asLong();
+        assertEquals(catchUp.get("version").asLong(), newcomer);
+
+        deltas.sendGameStateUpdate("ROOM04", "Next");
+        assertEquals(newcomer, lastPublished("ROOM04").get("payload").get("baseVersion").asLong(),
+                "The newcomer can apply the next delta without resyncing");
+    }
+}
@@ -1,6 +1,8 @@
 package com.cardi.cardi.services;
 
+import com.cardi.cardi.journal.RoomJournal;
 import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.CardPile;
 import com.cardi.cardi.model.GameRoom;
 import com.cardi.cardi.model.Player;
 import com.cardi.cardi.model.GameState;
@@ -36,6 +38,9 @@ public class GameServiceTests {
     @Mock
     private GameEventService gameEventService;
 
+    @Mock
+    private RoomJournal roomJournal;
+
     @InjectMocks
     private GameService gameService;
 
@@ -53,17 +58,17 @@ public class GameServiceTests {
         List<Card> deck = new ArrayList<>();
         // Add a bunch of number cards first to ensure the top card is not special
         for (int i = 2; i <= 10; i++) {
-            deck.add(new Card("Hearts", String.valueOf(i)));
-            deck.add(new Card("Spades", String.valueOf(i)));
-            deck.add(new Card("Diamonds", String.valueOf(i)));
-            deck.add(new Card("Clubs", String.valueOf(i)));
+            deck.add(Card.of("Hearts", String.valueOf(i)));
+            deck.add(Card.of("Spades", String.valueOf(i)));
+            deck.add(Card.of("Diamonds", String.valueOf(i)));
+            deck.add(Card.of("Clubs", String.valueOf(i)));
         }
         // Add some special cards
-        deck.add(new Card("Hearts", "A"));
-        deck.add(new Card("Spades", "K"));
-        deck.add(new Card("Diamonds", "Q"));
-        deck.add(new Card("Clubs", "J"));
-        deck.add(new Card("Joker", "Joker"));
+        deck.add(Card.of("Hearts", "A"));
+        deck.add(Card.of("Spades", "K"));
+        deck.add(Card.of("Diamonds", "Q"));
+        deck.add(Card.of("Clubs", "J"));
+        deck.add(Card.of("Joker", "Joker"));
         return deck;
     }
 
@@ -71,7 +76,8 @@ public class GameServiceTests {
     void testStartGame_DealsCardsAndSetsUpBoard() {
         // Arrange
         when(roomService.getRoom(ROOM_CODE)).thenReturn(testRoom);
-        when(deckGenerator.createShuffledDeck()).thenReturn(createTestDeck());
+        doAnswer(invocation -> invocation.<CardPile>getArgument(0).addAll(createTestDeck()))
+                .when(deckGenerator).shuffleInto(any(), any());
 
         // Act
         gameService.startGame(ROOM_CODE);
@@ -80,7 +86,7 @@ public class GameServiceTests {
         // 1. Verify game state
         assertTrue(testRoom.isStarted());
         assertNotNull(testRoom.getTopCard());
-        assertFalse(CardValidator.FINISHING_RESTRICTED_CARDS.contains(testRoom.getTopCard().getValue()), "The first card should not be a special card.");
+        assertFalse(CardValidator.FINISHING_RESTRICTED_CARDS.contains(testRoom.getTopCard().getRank()), "The first card should not be a special card.");
         assertEquals(1, testRoom.getPlayedPile().size());
 
         // 2. Verify players received correct number of cards
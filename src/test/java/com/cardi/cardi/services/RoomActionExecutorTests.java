@@ -0,0 +1,78 @@
+package com.cardi.cardi.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomActionExecutorTests {
+
+    private final RoomActionExecutor executor = new RoomActionExecutor(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testActionsForOneRoomRunInOrderAndNeverOverlap() throws InterruptedException {
+        assertRunsInOrderWithoutOverlap(executor);
+    }
+
+    @Test
+    void testVirtualThreadModeKeepsRoomOrdering() throws InterruptedException {
+        RoomActionExecutor virtualExecutor = new RoomActionExecutor(4, "test-room", true);
+        try {
+            assertRunsInOrderWithoutOverlap(virtualExecutor);
+        } finally {
+            virtualExecutor.shutdown();
+        }
+    }
+
+    private static void assertRunsInOrderWithoutOverlap(RoomActionExecutor executor) throws InterruptedException {
+        int actions = 10_000;
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(actions);
+
+        for (int i = 0; i < actions; i++) {
+            int n = i;
+            executor.execute("ROOM01", () -> {
+                if (inFlight.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                seen.add(n);
+                inFlight.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < actions; i++) {
+            assertEquals(i, seen.get(i));
+        }
+    }
+
+    @Test
+    void testFailingActionDoesNotJamTheMailbox() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("ROOM02", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("ROOM02", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long failed = executor.getShardStats().stream().mapToLong(RoomActionExecutor.ShardStats::failedActions).sum();
+        assertEquals(1, failed);
+    }
+}
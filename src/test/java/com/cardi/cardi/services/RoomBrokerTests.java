@@ -0,0 +1,127 @@
+package com.cardi.cardi.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RoomBrokerTests {
+
+    private final List<Message<?>> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final MessageChannel outbound = (message, timeout) -> delivered.add(message);
+    private RoomBroker broker;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<MessageChannel> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(outbound);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        broker = new RoomBroker(provider, eventPublisher, 2, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.shutdown();
+    }
+
+    @Test
+    void testGameSubscriptionsAreKeptAwayFromTheSimpleBroker() {
+        assertNull(broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/game/ROOM01"), outbound));
+        assertNotNull(broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-1", "/topic/news"), outbound));
+        verify(eventPublisher, times(1)).publishEvent(any(SessionSubscribeEvent.class));
+        assertEquals(1, broker.getStats().subscriptions());
+    }
+
+    @Test
+    void testPublishReachesOnlyThatRoomInOrder() throws InterruptedException {
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/game/ROOM01"), outbound);
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s2", "sub-0", "/topic/game/ROOM01"), outbound);
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s3", "sub-0", "/topic/game/ROOM02"), outbound);
+
+        for (int i = 0; i < 100; i++) {
+            broker.publish("ROOM01", new byte[]{(byte) i});
+        }
+        awaitDelivered(200);
+
+        List<Integer> seenByS1 = new ArrayList<>();
+        for (Message<?> message : delivered) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            assertNotEquals("s3", accessor.getSessionId());
+            assertEquals("/topic/game/ROOM01", accessor.getDestination());
+            if ("s1".equals(accessor.getSessionId())) {
+                seenByS1.add((int) ((byte[]) message.getPayload())[0]);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, seenByS1.get(i));
+        }
+    }
+
+    @Test
+    void testDisconnectAndRoomCloseDropSubscriptions() throws InterruptedException {
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/game/ROOM01"), outbound);
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s2", "sub-0", "/topic/game/ROOM02"), outbound);
+
+        broker.preSend(frame(SimpMessageType.DISCONNECT, "s1", null, null), outbound);
+        broker.roomClosed("ROOM02");
+
+        awaitRooms(0);
+        assertEquals(0, broker.getStats().sessions());
+    }
+
+    @Test
+    void testRoomCloseWaitsForWhatWasAlreadyPublished() throws InterruptedException {
+        broker.preSend(frame(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/game/ROOM03"), outbound);
+
+        for (int i = 0; i < 50; i++) {
+            broker.publish("ROOM03", new byte[]{(byte) i});
+        }
+        broker.roomClosed("ROOM03");
+
+        awaitRooms(0);
+        assertEquals(50, delivered.size(), "The farewells go out before the audience is dismissed");
+    }
+
+    private void awaitRooms(int count) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 500 && broker.getStats().rooms() != count; i++) {
+            done.await(10, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(count, broker.getStats().rooms());
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 500 && delivered.size() < count; i++) {
+            done.await(10, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(count, delivered.size());
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
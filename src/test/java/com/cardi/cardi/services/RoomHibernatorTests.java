@@ -0,0 +1,70 @@
+package com.cardi.cardi.services;
+
+import com.cardi.cardi.model.Card;
+import com.cardi.cardi.model.GameRoom;
+import com.cardi.cardi.model.Player;
+import com.cardi.cardi.model.Rank;
+import com.cardi.cardi.model.Suit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomHibernatorTests {
+
+    private final RoomHibernator hibernator = new RoomHibernator();
+
+    @Test
+    void testRoomWakesUpExactlyAsItWentToSleep() {
+        GameRoom room = new GameRoom("NAP001", 42L);
+        Player alice = new Player("p1", "alice", "s1");
+        Player bob = new Player("p2", "bob", "s2");
+        alice.getHand().add(Card.of(Suit.HEARTS, Rank.SEVEN));
+        alice.getHand().add(Card.byId("JK1"));
+        bob.getHand().add(Card.of(Suit.SPADES, Rank.KING));
+        room.addPlayer(alice);
+        room.addPlayer(bob);
+        room.setRoomOwnerId("p1");
+        room.getDrawPile().push(Card.of(Suit.CLUBS, Rank.TWO));
+        room.getPlayedPile().push(Card.of(Suit.DIAMONDS, Rank.ACE));
+        room.setStarted(true);
+        room.setCurrentPlayerIndex(1);
+        room.setDrawPenalty(2);
+        room.setActiveSuit(Suit.HEARTS);
+        room.setLastActiveAt(1_000L);
+        room.getRandom().nextLong();
+
+        hibernator.hibernate(room);
+        assertTrue(hibernator.contains("NAP001"));
+        assertEquals(1_000L, hibernator.peek("NAP001").lastActiveAt());
+        assertTrue(hibernator.getStats(0).offHeapBytes() > 0);
+
+        GameRoom woken = hibernator.rehydrate("NAP001");
+        assertNotNull(woken);
+        assertFalse(hibernator.contains("NAP001"));
+        assertEquals(0, hibernator.getStats(1).offHeapBytes());
+        assertEquals(1, hibernator.getStats(1).rehydrations());
+
+        assertEquals(room.getVersion(), woken.getVersion());
+        assertEquals(room.getRandom().getState(), woken.getRandom().getState());
+        assertEquals(1_000L, woken.getLastActiveAt(), "Waking up doesn't count as activity");
+        assertEquals(1, woken.getCurrentPlayerIndex());
+        assertEquals(2, woken.getDrawPenalty());
+        assertEquals(Suit.HEARTS, woken.getActiveSuit());
+        assertTrue(woken.isStarted());
+        assertEquals(room.getDrawPile(), woken.getDrawPile());
+        assertEquals(room.getPlayedPile(), woken.getPlayedPile());
+        for (int seat = 0; seat < 2; seat++) {
+            Player before = room.getPlayers().get(seat);
+            Player after = woken.getPlayers().get(seat);
+            assertEquals(before.getId(), after.getId());
+            assertEquals(before.getSessionId(), after.getSessionId(), "Sessions survive a nap");
+            assertEquals(before.getHand().toList(), after.getHand().toList());
+        }
+    }
+
+    @Test
+    void testUnknownRoomStaysUnknown() {
+        assertNull(hibernator.rehydrate("NOPE01"));
+        assertNull(hibernator.snapshotOf("NOPE01"));
+    }
+}
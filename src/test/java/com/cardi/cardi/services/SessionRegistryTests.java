@@ -0,0 +1,62 @@
+package com.cardi.cardi.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SessionRegistryTests {
+
+    private final RoomService roomService = mock(RoomService.class);
+    private final RoomActionExecutor executor = mock(RoomActionExecutor.class);
+    private final SessionRegistry registry = new SessionRegistry(roomService, executor);
+
+    SessionRegistryTests() {
+        // Run room actions on the spot
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(executor).execute(any(), any());
+    }
+
+    @Test
+    void testSeatedSessionsAreFoundAndReplacedOnesForgotten() {
+        registry.connected("s1");
+        registry.seat("s1", "ROOM01", "p1", null);
+        assertEquals(new SessionRegistry.Seat("ROOM01", "p1"), registry.seatOf("s1"));
+
+        registry.seat("s2", "ROOM01", "p1", "s1"); // Back on a new connection
+        assertNull(registry.seatOf("s1"));
+        assertEquals(new SessionRegistry.Seat("ROOM01", "p1"), registry.seatOf("s2"));
+        assertEquals(1, registry.getStats().replaced());
+
+        registry.disconnected("s1"); // The old socket finally noticing it's dead changes nothing
+        verifyNoInteractions(roomService);
+    }
+
+    @Test
+    void testDisconnectMarksThePlayerAwayOnTheRoomsThread() {
+        registry.connected("s1");
+        registry.seat("s1", "ROOM01", "p1", null);
+
+        registry.disconnected("s1");
+
+        verify(executor).execute(eq("ROOM01"), any());
+        verify(roomService).playerDisconnected("ROOM01", "p1", "s1");
+        assertNull(registry.seatOf("s1"));
+        SessionRegistry.SessionStats stats = registry.getStats();
+        assertEquals(0, stats.connected());
+        assertEquals(0, stats.seated());
+        assertEquals(1, stats.disconnects());
+    }
+
+    @Test
+    void testLeavingIsNotDisconnecting() {
+        registry.seat("s1", "ROOM01", "p1", null);
+        registry.unseat("s1");
+        registry.disconnected("s1");
+        verifyNoInteractions(roomService);
+    }
+}
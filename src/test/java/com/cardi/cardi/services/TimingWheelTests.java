@@ -0,0 +1,58 @@
+package com.cardi.cardi.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTests {
+
+    @Test
+    void testTimersGoOffOnTheirTickAcrossEveryLevel() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 8, 3, 0);
+        SplittableRandom random = new SplittableRandom(7);
+        int timers = 2_000;
+        for (int i = 0; i < timers; i++) {
+            long deadline = 1 + random.nextLong(600); // Levels of 8, 64 and 512 ticks, plus some beyond them all
+            wheel.schedule(deadline, deadline);
+        }
+        assertEquals(timers, wheel.size());
+
+        List<Long> late = new ArrayList<>();
+        int[] fired = {0};
+        for (long now = 1; now <= 700; now++) {
+            long tick = now;
+            wheel.advanceTo(now, deadline -> {
+                fired[0]++;
+                if (deadline != tick) {
+                    late.add(deadline);
+                }
+            });
+        }
+
+        assertEquals(timers, fired[0]);
+        assertTrue(late.isEmpty(), "Timers went off on the wrong tick: " + late);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlinesGoOffOnTheNextTickAndCallbacksMayReschedule() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 64, 2, 10_000);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("late", 5_000);
+
+        wheel.advanceTo(11_000, item -> {
+            fired.add(item);
+            wheel.schedule("again", 13_000);
+        });
+        assertEquals(List.of("late"), fired);
+
+        wheel.advanceTo(12_999, fired::add);
+        assertEquals(1, fired.size());
+        wheel.advanceTo(13_000, fired::add);
+        assertEquals(List.of("late", "again"), fired);
+    }
+}